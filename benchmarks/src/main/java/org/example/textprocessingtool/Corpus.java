@@ -0,0 +1,116 @@
+package org.example.textprocessingtool;
+
+import java.util.Random;
+
+/**
+ * The Corpus class generates the benchmark inputs: application logs, English-like prose and CSV rows.
+ * Every corpus is generated from a fixed seed, so each run and each commit measures the same text.
+ */
+final class Corpus {
+
+    private static final String[] LEVELS = {"INFO", "INFO", "INFO", "DEBUG", "WARN", "ERROR"};
+    private static final String[] COMPONENTS = {"http.server", "db.pool", "auth", "scheduler", "cache", "mailer"};
+    private static final String[] MESSAGES = {
+            "request completed in %d ms",
+            "connection %d returned to pool",
+            "user user%d@example.com logged in from 10.0.%d.%d",
+            "job %d finished with status OK",
+            "cache miss for key item:%d",
+            "timeout after %d ms, retrying"
+    };
+    private static final String[] WORDS = {
+            "the", "of", "and", "to", "in", "a", "is", "that", "for", "it", "as", "was", "with", "be", "by",
+            "on", "not", "he", "this", "are", "or", "his", "from", "at", "which", "but", "have", "an", "had",
+            "they", "you", "were", "their", "one", "all", "we", "can", "her", "has", "there", "been", "if",
+            "text", "pattern", "expression", "regular", "processing", "search", "replace", "document",
+            "character", "sentence", "paragraph", "London", "Paris", "Monday", "January", "Alice", "Bob"
+    };
+    private static final String[] CITIES = {"London", "Paris", "Berlin", "Madrid", "Accra", "Lagos"};
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Carol", "Dave", "Eve", "Frank", "Grace", "Heidi"};
+
+    private Corpus() {
+    }
+
+    /**
+     * Generates text of the given kind with at least the given number of characters, cut at a line end.
+     *
+     * @param kind   "logs", "prose" or "csv".
+     * @param length The number of characters to generate.
+     * @return The generated text.
+     */
+    static String generate(String kind, int length) {
+        return switch (kind) {
+            case "logs" -> logs(length);
+            case "prose" -> prose(length);
+            case "csv" -> csv(length);
+            default -> throw new IllegalArgumentException("Unknown corpus: " + kind);
+        };
+    }
+
+    private static String logs(int length) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(length + 256);
+        long timestamp = 1_700_000_000_000L;
+        while (text.length() < length) {
+            timestamp += random.nextInt(1000);
+            String message = MESSAGES[random.nextInt(MESSAGES.length)];
+            text.append(timestamp).append(' ')
+                    .append(LEVELS[random.nextInt(LEVELS.length)]).append(" [")
+                    .append(COMPONENTS[random.nextInt(COMPONENTS.length)]).append("] ")
+                    .append(String.format(message, random.nextInt(5000), random.nextInt(256), random.nextInt(256)))
+                    .append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String prose(int length) {
+        Random random = new Random(43);
+        StringBuilder text = new StringBuilder(length + 256);
+        while (text.length() < length) {
+            int sentences = 3 + random.nextInt(5);
+            for (int s = 0; s < sentences; s++) {
+                int words = 5 + random.nextInt(15);
+                for (int w = 0; w < words; w++) {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    if (w == 0) {
+                        word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                    }
+                    text.append(word).append(w == words - 1 ? ". " : random.nextInt(12) == 0 ? ", " : " ");
+                }
+            }
+            text.append("\n\n");
+        }
+        return text.toString();
+    }
+
+    private static String csv(int length) {
+        Random random = new Random(44);
+        StringBuilder text = new StringBuilder(length + 256);
+        text.append("id,name,email,age,city,amount\n");
+        for (int id = 1; text.length() < length; id++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            text.append(id).append(',')
+                    .append(name).append(' ').append((char) ('A' + random.nextInt(26))).append(',')
+                    .append(name.toLowerCase()).append(id).append("@example.com,")
+                    .append(18 + random.nextInt(70)).append(',')
+                    .append(CITIES[random.nextInt(CITIES.length)]).append(',')
+                    .append(random.nextInt(100_000)).append('.').append(random.nextInt(100)).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Generates unique person names, in the style of the names used in the Data Management tab.
+     *
+     * @param count The number of names.
+     * @return The names, all different.
+     */
+    static String[] names(int count) {
+        Random random = new Random(45);
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + Integer.toString(i, 36);
+        }
+        return names;
+    }
+}
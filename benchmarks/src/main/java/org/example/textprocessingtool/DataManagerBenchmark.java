@@ -0,0 +1,137 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the DataManager operations behind the Data Management tab, for small and large registries.
+ * Single operations are measured per call; bulkLoad measures loading the whole registry at once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataManagerBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int persons;
+
+    private String[] names;
+    private DataManager dataManager;
+    private int next; // Cycles through the names so lookups do not hit the same entry every time
+    private PrintStream console;
+
+    @Setup
+    public void setUp() {
+        // DataManager reports deletes and misses on the console; keep that out of the measurement
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        names = Corpus.names(persons);
+        dataManager = new DataManager();
+        for (int i = 0; i < names.length; i++) {
+            dataManager.createPerson(names[i], i % 90);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    private String nextName() {
+        next = next + 1 == names.length ? 0 : next + 1;
+        return names[next];
+    }
+
+    @Benchmark
+    public Object lookup() {
+        return dataManager.searchPersonByName(nextName());
+    }
+
+    @Benchmark
+    public Object lookupMissing() {
+        return dataManager.searchPersonByName("nobody");
+    }
+
+    @Benchmark
+    public void update() {
+        dataManager.updatePerson(nextName(), next % 90);
+    }
+
+    @Benchmark
+    public void createAndDelete() {
+        dataManager.createPerson("benchmark person", 30);
+        dataManager.deletePerson("benchmark person");
+    }
+
+    @Benchmark
+    public int ageRange() {
+        return dataManager.findPersonsByAgeRange(40, 42).size();
+    }
+
+    @Benchmark
+    public int namePrefix() {
+        return dataManager.findPersonsByNamePrefix("Eve 1").size();
+    }
+
+    /**
+     * Loads the whole registry into an empty DataManager in batches, as the CSV import does.
+     */
+    @State(Scope.Benchmark)
+    public static class BulkLoad {
+        @Param({"10000", "1000000"})
+        public int persons;
+
+        List<List<Person>> batches;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            String[] names = Corpus.names(persons);
+            batches = new ArrayList<>();
+            for (int i = 0; i < names.length; i += PersonBulkLoader.DEFAULT_BATCH_SIZE) {
+                List<Person> batch = new ArrayList<>();
+                for (int j = i; j < Math.min(names.length, i + PersonBulkLoader.DEFAULT_BATCH_SIZE); j++) {
+                    batch.add(new Person(names[j], j % 90));
+                }
+                batches.add(batch);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public DataManager bulkLoad(BulkLoad load) {
+        DataManager target = new DataManager();
+        target.ensureCapacity(load.persons);
+        for (List<Person> batch : load.batches) {
+            target.createPersons(batch);
+        }
+        // Include building the indexes, which the first query after a bulk load triggers
+        target.findPersonsByAgeRange(0, 0);
+        return target;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.textprocessingtool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of RegexProcessor and TextProcessor search, count and replace over generated corpora,
+ * for a set of patterns ranging from a plain literal to alternations and character classes.
+ * Scores are per call over the whole corpus; divide the corpus size by the score for characters per second.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegexBenchmark {
+
+    // Named patterns, so results stay comparable even if a regex is tuned later
+    private static final Map<String, String> PATTERNS = Map.of(
+            "literal", "ERROR",
+            "alternation", "ERROR|WARN|timeout",
+            "digits", "\\d+",
+            "email", "[\\w.]+@[\\w.]+\\.com",
+            "capitalized", "\\b[A-Z][a-z]+\\b",
+            "lineAnchored", "(?m)^\\d+ WARN .*$"
+    );
+
+    @Param({"logs", "prose", "csv"})
+    public String corpus;
+
+    @Param({"65536", "4194304"})
+    public int size;
+
+    @Param({"literal", "alternation", "digits", "email", "capitalized", "lineAnchored"})
+    public String pattern;
+
+    private String text;
+    private String regex;
+    private RegexProcessor regexProcessor;
+    private TextProcessor textProcessor;
+
+    @Setup
+    public void setUp() {
+        text = Corpus.generate(corpus, size);
+        regex = PATTERNS.get(pattern);
+        regexProcessor = new RegexProcessor(new PatternCache(PatternCache.DEFAULT_MAX_SIZE), RegexBudget.UNLIMITED);
+        textProcessor = new TextProcessor();
+    }
+
+    @Benchmark
+    public int searchStrings(Blackhole blackhole) {
+        return regexProcessor.search(text, regex, blackhole::consume);
+    }
+
+    @Benchmark
+    public MatchOffsets searchOffsets() {
+        return regexProcessor.searchOffsets(text, regex, false);
+    }
+
+    @Benchmark
+    public int count() {
+        return regexProcessor.count(text, regex);
+    }
+
+    @Benchmark
+    public String replace() {
+        return regexProcessor.replace(text, regex, "<$0>");
+    }
+
+    @Benchmark
+    public int textProcessorCount() {
+        // Includes the default execution budget that the UI runs with
+        return textProcessor.countMatches(text, regex);
+    }
+}
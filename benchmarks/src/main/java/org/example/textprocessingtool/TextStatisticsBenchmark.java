@@ -0,0 +1,73 @@
+package org.example.textprocessingtool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the word, character and line counts shown under the input text, per keystroke.
+ * splitCount is the split-based count the controller used before TextStatistics, kept as the baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextStatisticsBenchmark {
+
+    @Param({"prose", "logs"})
+    public String corpus;
+
+    @Param({"65536", "4194304"})
+    public int size;
+
+    private String text;
+    private String edited; // The text with one character typed in the middle
+    private TextStatistics statistics;
+
+    @Setup
+    public void setUp() {
+        text = Corpus.generate(corpus, size);
+        int middle = text.length() / 2;
+        edited = text.substring(0, middle) + "x" + text.substring(middle);
+        statistics = TextStatistics.of(text);
+    }
+
+    @Benchmark
+    public int splitCount() {
+        String trimmed = text.trim();
+        return trimmed.isEmpty() ? 0 : trimmed.split("\\s+").length;
+    }
+
+    @Benchmark
+    public int fullRecount() {
+        statistics.recount(text);
+        return statistics.getWordCount();
+    }
+
+    @Benchmark
+    public int incrementalUpdate() {
+        // Type a character and delete it again, so the counts stay the same between calls
+        statistics.update(text, edited);
+        statistics.update(edited, text);
+        return statistics.getWordCount();
+    }
+
+    @Benchmark
+    public int streamedCount() throws IOException {
+        return TextStatistics.of(new StringReader(text)).getWordCount();
+    }
+}
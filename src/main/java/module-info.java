@@ -2,6 +2,8 @@ module org.example.textprocessingtool {
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.web;
+    requires java.management;
+    requires jdk.jfr;
 
     requires org.controlsfx.controls;
     requires com.dlsc.formsfx;
@@ -0,0 +1,75 @@
+package org.example.textprocessingtool;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The BatchPublisher class hands items produced on a worker thread to the JavaFX application thread in batches.
+ * At most one hand-over is queued on the FX thread at any time; everything produced while it waits
+ * is merged into it, so a fast producer results in a few large UI updates instead of many small ones.
+ *
+ * @param <T> The type of the published items.
+ */
+public class BatchPublisher<T> {
+
+    private final Consumer<List<T>> consumer;
+    private final int batchSize;
+
+    private List<T> batch = new ArrayList<>(); // Owned by the producer thread
+    private List<T> pending = new ArrayList<>(); // Guarded by this
+    private boolean scheduled;                   // Guarded by this
+
+    /**
+     * Constructor to initialize a publisher.
+     *
+     * @param batchSize The number of items the producer collects before handing them over.
+     * @param consumer  Receives each merged batch on the JavaFX application thread.
+     */
+    public BatchPublisher(int batchSize, Consumer<List<T>> consumer) {
+        this.batchSize = batchSize;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Adds an item. Must be called from a single producer thread.
+     *
+     * @param item The item to publish.
+     */
+    public void add(T item) {
+        batch.add(item);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands over everything added so far, even if the batch is not full.
+     */
+    public void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            pending.addAll(batch);
+            batch.clear();
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        Platform.runLater(this::deliver);
+    }
+
+    private void deliver() {
+        List<T> items;
+        synchronized (this) {
+            items = pending;
+            pending = new ArrayList<>();
+            scheduled = false;
+        }
+        consumer.accept(items);
+    }
+}
@@ -0,0 +1,318 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The ConcurrentDataManager class is a thread-safe variant of DataManager, for loading persons from several threads at once,
+ * as PersonBulkLoader.importFiles does. DataManager itself stays single-threaded: it belongs to the JavaFX thread.
+ * Persons are kept in a ConcurrentHashMap keyed by name, with creation-order, age and name indexes in concurrent skip lists.
+ * Writes are guarded by lock striping: a change to a name holds only the one of STRIPES locks its name hashes to,
+ * so writes to different names run in parallel and share no lock word. Each write updates the map and every index
+ * under that lock, so concurrent changes of the same person are applied one after another and none is lost.
+ * Queries returning several persons take every stripe, in order, so they see no write half done.
+ * Lookups of a single name take no lock at all.
+ * The persons stored here are standalone Person values, which have no setter, so no caller can change
+ * a person's age behind the age index's back; an update stores a new Person instead.
+ * Unlike DataManager, the write methods report their outcome as a return value instead of printing it.
+ */
+public class ConcurrentDataManager {
+
+    // Number of write locks; a power of two well above the core count, so writers rarely share one
+    private static final int STRIPES = 64;
+
+    // Age first, then name, so every person has its own entry and an age range is one contiguous range
+    private static final Comparator<Person> AGE_ORDER = Comparator
+            .comparingInt(Person::getAge)
+            .thenComparing(Person::getName);
+
+    private final ConcurrentHashMap<String, Entry> persons = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Person> creationOrder = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Person> ageIndex = new ConcurrentSkipListSet<>(AGE_ORDER);
+    // Case-insensitive keys; each value is an immutable list of the persons whose names differ only in case
+    private final ConcurrentSkipListMap<String, List<Person>> nameIndex =
+            new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+    // The only state every create touches: one fetch-and-add, which never retries, fixes the creation order
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    /**
+     * Constructor to initialize an empty ConcurrentDataManager.
+     */
+    public ConcurrentDataManager() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Creates a new Person unless a person with the same name already exists.
+     *
+     * @param name The name of the person.
+     * @param age  The age of the person.
+     * @return true if the person was created, false if the name was taken.
+     */
+    public boolean createPerson(String name, int age) {
+        ReentrantLock lock = stripeFor(name);
+        lock.lock();
+        try {
+            if (persons.containsKey(name)) {
+                return false;
+            }
+            Person person = new Person(name, age);
+            long sequence = nextSequence.getAndIncrement();
+            creationOrder.put(sequence, person);
+            ageIndex.add(person);
+            addToNameIndex(person);
+            persons.put(name, new Entry(sequence, person));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the age of an existing Person identified by name.
+     *
+     * @param name   The name of the person to update.
+     * @param newAge The new age to set for the person.
+     * @return true if the person was updated, false if not found.
+     */
+    public boolean updatePerson(String name, int newAge) {
+        return updatePerson(name, age -> newAge);
+    }
+
+    /**
+     * Atomically replaces the age of an existing Person with a value computed from its current age,
+     * for example age -> age + 1. Concurrent updates of the same person are applied one after another, so none is lost.
+     *
+     * @param name      The name of the person to update.
+     * @param ageUpdate Computes the new age from the current one.
+     * @return true if the person was updated, false if not found.
+     */
+    public boolean updatePerson(String name, IntUnaryOperator ageUpdate) {
+        ReentrantLock lock = stripeFor(name);
+        lock.lock();
+        try {
+            Entry entry = persons.get(name);
+            if (entry == null) {
+                return false;
+            }
+            Person updated = new Person(name, ageUpdate.applyAsInt(entry.person().getAge()));
+            creationOrder.put(entry.sequence(), updated);
+            ageIndex.remove(entry.person());
+            ageIndex.add(updated);
+            removeFromNameIndex(entry.person());
+            addToNameIndex(updated);
+            persons.put(name, new Entry(entry.sequence(), updated));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes a Person identified by name.
+     *
+     * @param name The name of the person to delete.
+     * @return true if the person was deleted, false if not found.
+     */
+    public boolean deletePerson(String name) {
+        ReentrantLock lock = stripeFor(name);
+        lock.lock();
+        try {
+            Entry entry = persons.remove(name);
+            if (entry == null) {
+                return false;
+            }
+            creationOrder.remove(entry.sequence());
+            ageIndex.remove(entry.person());
+            removeFromNameIndex(entry.person());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Searches for a Person by name. Does not wait for writers.
+     *
+     * @param name The name of the person to search for.
+     * @return The Person object if found, otherwise null.
+     */
+    public Person searchPersonByName(String name) {
+        Entry entry = persons.get(name);
+        return entry == null ? null : entry.person();
+    }
+
+    /**
+     * Gets the number of persons. Does not wait for writers.
+     *
+     * @return The number of persons.
+     */
+    public int size() {
+        return persons.size();
+    }
+
+    /**
+     * Retrieves a consistent snapshot of all persons, in the order they were created.
+     *
+     * @return An ArrayList containing all the persons.
+     */
+    public ArrayList<Person> getAllPersons() {
+        lockAll();
+        try {
+            return new ArrayList<>(creationOrder.values());
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Retrieves a consistent snapshot of all unique persons, in the order they were created.
+     *
+     * @return A Set containing all unique persons.
+     */
+    public Set<Person> getUniquePersons() {
+        lockAll();
+        try {
+            return new LinkedHashSet<>(creationOrder.values());
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Finds all persons whose age lies in the given range.
+     *
+     * @param minAge The lowest age to include.
+     * @param maxAge The highest age to include.
+     * @return The matching persons, ordered by age and then name.
+     */
+    public ArrayList<Person> findPersonsByAgeRange(int minAge, int maxAge) {
+        if (minAge > maxAge) {
+            return new ArrayList<>();
+        }
+        // The empty name sorts before every other name of the same age
+        NavigableSet<Person> range = ageIndex.tailSet(new Person("", minAge), true);
+        if (maxAge < Integer.MAX_VALUE) {
+            range = range.headSet(new Person("", maxAge + 1), false);
+        }
+        lockAll();
+        try {
+            return new ArrayList<>(range);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Finds all persons whose name starts with the given prefix.
+     *
+     * @param prefix The case-sensitive prefix to look for.
+     * @return The matching persons, ordered by name.
+     */
+    public ArrayList<Person> findPersonsByNamePrefix(String prefix) {
+        ArrayList<Person> result = new ArrayList<>();
+        for (Person person : findPersonsByNamePrefixIgnoreCase(prefix)) {
+            if (person.getName().startsWith(prefix)) {
+                result.add(person);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds all persons whose name starts with the given prefix, ignoring case.
+     *
+     * @param prefix The prefix to look for, in any case.
+     * @return The matching persons, ordered by name.
+     */
+    public ArrayList<Person> findPersonsByNamePrefixIgnoreCase(String prefix) {
+        ArrayList<Person> result = new ArrayList<>();
+        lockAll();
+        try {
+            for (List<Person> sameName : namesStartingWith(prefix).values()) {
+                result.addAll(sameName);
+            }
+        } finally {
+            unlockAll();
+        }
+        return result;
+    }
+
+    /**
+     * Finds all persons whose name equals the given name, ignoring case.
+     *
+     * @param name The name to look for, in any case.
+     * @return The matching persons, ordered by name.
+     */
+    public ArrayList<Person> searchPersonsByNameIgnoreCase(String name) {
+        List<Person> sameName = nameIndex.get(name);
+        return sameName == null ? new ArrayList<>() : new ArrayList<>(sameName);
+    }
+
+    private ReentrantLock stripeFor(String name) {
+        int hash = name.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    // Stripes are always taken in index order, and a writer holds just one, so this cannot deadlock
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    // Returns the range of the name index holding every name that starts with the prefix, ignoring case
+    private NavigableMap<String, List<Person>> namesStartingWith(String prefix) {
+        NavigableMap<String, List<Person>> tail = nameIndex.tailMap(prefix, true);
+        for (String name : tail.keySet()) {
+            if (!name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return tail.headMap(name, false);
+            }
+        }
+        return tail;
+    }
+
+    // Names differing only in case can hash to different stripes and share an entry here, so the entry is
+    // changed with the skip list's own atomic merge; the remapping functions only build new immutable lists,
+    // so the skip list may safely retry them
+    private void addToNameIndex(Person person) {
+        nameIndex.merge(person.getName(), List.of(person), (current, added) -> {
+            List<Person> merged = new ArrayList<>(current);
+            merged.addAll(added);
+            return List.copyOf(merged);
+        });
+    }
+
+    private void removeFromNameIndex(Person person) {
+        nameIndex.computeIfPresent(person.getName(), (key, current) -> {
+            List<Person> remaining = new ArrayList<>(current);
+            remaining.removeIf(other -> other.getName().equals(person.getName()));
+            return remaining.isEmpty() ? null : List.copyOf(remaining);
+        });
+    }
+
+    private record Entry(long sequence, Person person) {
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.textprocessingtool;
+
+import javax.management.ConstructorParameters;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ConcurrentHistogram class records the distribution of non-negative long values, such as latencies
+ * in nanoseconds or batch sizes, from any number of threads without locking.
+ * Buckets are log-linear, as in HdrHistogram: every power of two is split into 32 equal sub-buckets,
+ * so any recorded value is reported within about 3% of its true value, over the whole long range,
+ * in a fixed table of under 2000 counters. Recording is one array increment, with no allocation.
+ * Snapshots are read while recording goes on, so they may miss values recorded during the read.
+ */
+public class ConcurrentHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below twice the sub-bucket count are counted exactly, one bucket each
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = bucketIndex(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Constructor to initialize an empty histogram.
+     */
+    public ConcurrentHistogram() {
+    }
+
+    /**
+     * Records one value. Negative values are recorded as 0.
+     *
+     * @param value The value to record.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.getAndIncrement(bucketIndex(value));
+        sum.add(value);
+        // Only write when the maximum grows, which soon becomes rare
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the count, mean, maximum and the usual percentiles.
+     *
+     * @return The snapshot; all zero if nothing was recorded.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        if (count == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0, 0);
+        }
+        long maximum = max.get();
+        return new Snapshot(count, (double) sum.sum() / count, maximum,
+                percentile(copy, count, 0.50, maximum),
+                percentile(copy, count, 0.90, maximum),
+                percentile(copy, count, 0.99, maximum),
+                percentile(copy, count, 0.999, maximum));
+    }
+
+    /**
+     * Clears every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    // Returns the highest value of the bucket holding the value of the given rank
+    private static long percentile(long[] counts, long count, double fraction, long maximum) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), maximum);
+            }
+        }
+        return maximum;
+    }
+
+    // Linear below LINEAR_LIMIT; above it, the top SUB_BUCKET_BITS + 1 bits of the value pick the bucket
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        long highest = ((subBucket + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest; // The last bucket ends at Long.MAX_VALUE
+    }
+
+    /**
+     * The distribution of the recorded values at one point in time.
+     * Exposed through JMX as composite data, so it is built from a constructor and getters only.
+     */
+    public static class Snapshot {
+        private final long count;
+        private final double mean;
+        private final long max;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+
+        /**
+         * Constructor to initialize a snapshot with its statistics.
+         *
+         * @param count The number of recorded values.
+         * @param mean  The mean of the recorded values.
+         * @param max   The largest recorded value.
+         * @param p50   The median.
+         * @param p90   The 90th percentile.
+         * @param p99   The 99th percentile.
+         * @param p999  The 99.9th percentile.
+         */
+        @ConstructorParameters({"count", "mean", "max", "p50", "p90", "p99", "p999"})
+        public Snapshot(long count, double mean, long max, long p50, long p90, long p99, long p999) {
+            this.count = count;
+            this.mean = mean;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + " mean=" + Math.round(mean) + " p50=" + p50 + " p90=" + p90
+                    + " p99=" + p99 + " p99.9=" + p999 + " max=" + max;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.textprocessingtool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * The CountingByteChannel class passes reads through to another channel and counts the bytes read,
+ * so streaming searches can report how much input they scanned. Closing it does not close the channel.
+ */
+class CountingByteChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel channel;
+    private long count;
+
+    /**
+     * Constructor to initialize a counting view of the given channel.
+     *
+     * @param channel The channel to read from.
+     */
+    CountingByteChannel(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Gets the number of bytes read so far.
+     *
+     * @return The byte count.
+     */
+    long count() {
+        return count;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
+        int read = channel.read(buffer);
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -1,44 +1,200 @@
 package org.example.textprocessingtool;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * The DataManager class manages a collection of Person objects.
- * It provides methods to create, update, delete, and search for persons in three collections:
- * an ArrayList, a Set, and a Map.
+ * It provides methods to create, update, delete, and search for persons.
+ * Persons are stored in a PersonColumnStore: ages in an int column, names packed as UTF-8 in one byte arena,
+ * and a primitive hash table from name to row, so no object is kept per person. With both indexes a person
+ * costs about 45 bytes plus its name, so ten million of them fit in about 600 MB.
+ * The Person objects handed out are lightweight views of their rows.
+ * Secondary indexes on age and on name are RowIndexes of row ids, so range and prefix
+ * queries cost O(log n + k) instead of a scan over every person.
+ * Bulk loads skip the indexes; they are rebuilt once, when the next query needs them.
+ * If a PersonJournal is attached, every change is also appended to it so it survives a restart.
+ * Registered PersonChangeListeners are told about every single change, so views can update just what changed.
+ * Operation counts, misses and query latencies are kept in a DataManagerMetrics, readable through JMX,
+ * instead of being printed.
  */
 public class DataManager {
 
-    private ArrayList<Person> personList;
-    private Set<Person> personSet;
-    private Map<String, Person> personMap;
+    // Deleted rows are reclaimed once there are at least this many, and more of them than live ones
+    private static final int COMPACT_MIN_DELETED = 1024;
+
+    private final PersonColumnStore store = new PersonColumnStore(); // Every person, in creation order
+    private final Set<Person> uniquePersons;              // Live read-only Set view of the persons
+    private final RowIndex ageIndex;  // Keys of age and row, ordered by age, then by creation
+    private final RowIndex nameIndex; // Rows ordered by name ignoring case, then by creation
+    private boolean indexesStale; // Set by bulk loads; the indexes are rebuilt before the next query
+    private PersonJournal journal; // Receives every change, if persistence is enabled
+    private final List<PersonChangeListener> listeners = new ArrayList<>();
+    private final DataManagerMetrics metrics = new DataManagerMetrics(store::size);
 
 
     /**
      * Constructor to initialize the collections.
-     * Initializes the ArrayList, HashSet, and HashMap for storing Person objects.
+     * Initializes the column store holding the persons, and the age and name indexes.
      */
     public DataManager() {
-        personList = new ArrayList<>();
-        personSet = new HashSet<>();
-        personMap = new HashMap<>();
+        uniquePersons = new PersonSet();
+        ageIndex = new RowIndex(Long::compare);
+        nameIndex = new RowIndex((a, b) -> compareByName((int) a, (int) b));
     }
 
     /**
-     * Creates a new Person and adds it to all collections (ArrayList, HashSet, and HashMap).
+     * Creates a new Person and adds it to the collection and the indexes.
+     * Names are unique: if a person with the same name already exists, nothing is added.
      *
      * @param name The name of the person.
      * @param age  The age of the person.
      */
     public void createPerson(String name, int age) {
-        Person person = new Person(name, age);
-        personList.add(person);
-        personSet.add(person);
-        personMap.put(name, person);
+        int row = store.create(name, age);
+        if (row < 0) {
+            metrics.duplicateCreate(name);
+            return;
+        }
+        metrics.created();
+        addToIndexes(row);
+        if (journal != null) {
+            journal.logCreate(name, age);
+        }
+        if (!listeners.isEmpty()) {
+            List<Person> added = List.of(new Person(store, row));
+            for (PersonChangeListener listener : listeners) {
+                listener.personsAdded(added);
+            }
+        }
+    }
+
+    /**
+     * Adds a batch of persons to the collection, as loaded by PersonBulkLoader.
+     * Persons whose name already exists are skipped silently; only the number added is reported.
+     * The indexes are not updated per person but rebuilt in one pass before the next query.
+     *
+     * @param batch The persons to add, in the order they should be kept.
+     * @return The number of persons added.
+     */
+    public int createPersons(Collection<Person> batch) {
+        int added = 0;
+        List<Person> addedPersons = listeners.isEmpty() ? null : new ArrayList<>(batch.size());
+        for (Person person : batch) {
+            int row = store.create(person.getName(), person.getAge());
+            if (row >= 0) {
+                if (journal != null) {
+                    journal.logCreate(person.getName(), person.getAge());
+                }
+                if (addedPersons != null) {
+                    addedPersons.add(new Person(store, row));
+                }
+                added++;
+            }
+        }
+        indexesStale |= added > 0;
+        metrics.bulkCreated(batch.size(), added);
+        if (added > 0 && addedPersons != null) {
+            for (PersonChangeListener listener : listeners) {
+                listener.personsAdded(addedPersons);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Makes room for the given total number of persons, so adding up to that many never resizes the store
+     * or the indexes.
+     * Call it once before a bulk load with the expected final size; the columns are copied once if they must grow.
+     *
+     * @param expectedSize The number of persons the collection should hold without resizing.
+     */
+    public void ensureCapacity(int expectedSize) {
+        store.ensureCapacity(expectedSize);
+        ageIndex.ensureCapacity(expectedSize);
+        nameIndex.ensureCapacity(expectedSize);
+    }
+
+    /**
+     * Takes a snapshot of all persons for aggregate queries such as histograms, statistics and group counts.
+     * Names and ages are copied into arrays here, so the queries can run in parallel
+     * while this DataManager keeps changing.
+     *
+     * @return The aggregates over the current persons, in creation order.
+     */
+    public PersonAggregates aggregate() {
+        String[] names = new String[store.size()];
+        int[] ages = new int[store.size()];
+        int i = 0;
+        for (int row = 0; row < store.getRowCount(); row++) {
+            if (store.isLive(row)) {
+                names[i] = store.nameAt(row);
+                ages[i++] = store.ageAt(row);
+            }
+        }
+        return new PersonAggregates(names, ages, new RegexProcessor());
+    }
+
+    /**
+     * Registers a listener that is told about every later change.
+     *
+     * @param listener The listener to add.
+     */
+    public void addChangeListener(PersonChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered with addChangeListener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeChangeListener(PersonChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Attaches a journal that records every later change, or detaches it when null.
+     * Called by PersonJournal once it has restored the persons, so the restore itself is not logged again.
+     *
+     * @param journal The journal to append changes to, or null.
+     */
+    void setJournal(PersonJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the metrics of this DataManager, to register with JMX or read directly.
+     *
+     * @return The metrics, updated by every operation.
+     */
+    public DataManagerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the number of persons.
+     *
+     * @return The number of persons.
+     */
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Estimates the heap used by the persons and the indexes; Person views handed out are not included.
+     *
+     * @return The allocated size in bytes.
+     */
+    public long getMemoryUsage() {
+        return store.getMemoryUsage() + ageIndex.getMemoryUsage() + nameIndex.getMemoryUsage();
     }
 
 
@@ -49,68 +205,309 @@ public class DataManager {
      * @param newAge The new age to set for the person.
      */
     public void updatePerson(String name, int newAge) {
-        Person person = personMap.get(name);
-        if (person != null) {
-            person.setAge(newAge);
+        int row = store.rowOf(name);
+        if (row >= 0) {
+            int oldAge = store.ageAt(row);
+            store.setAge(row, newAge);
+            if (!indexesStale) {
+                ageIndex.remove(ageKey(oldAge, row));
+                ageIndex.add(ageKey(newAge, row));
+            }
+            if (journal != null) {
+                journal.logUpdate(name, newAge);
+            }
+            if (!listeners.isEmpty()) {
+                Person person = new Person(store, row);
+                for (PersonChangeListener listener : listeners) {
+                    listener.personUpdated(person, oldAge);
+                }
+            }
+            metrics.updated();
         } else {
-            System.out.println("Person with name " + name + " not found.");
+            metrics.missedUpdate(name);
         }
     }
 
 
     /**
-     * Deletes a Person identified by name from all collections (ArrayList, HashSet, and HashMap).
+     * Deletes a Person identified by name from the collection and the indexes.
      *
      * @param name The name of the person to delete.
      */
     public void deletePerson(String name) {
-        Person person = personMap.remove(name);
-        if (person != null) {
-            personList.remove(person);
-            personSet.remove(person);
-            System.out.println("Deleted person: " + name);
+        int row = store.rowOf(name);
+        if (row >= 0) {
+            Person person = listeners.isEmpty() ? null : new Person(store, row);
+            removeFromIndexes(row);
+            store.delete(row);
+            if (journal != null) {
+                journal.logDelete(name);
+            }
+            for (PersonChangeListener listener : listeners) {
+                listener.personRemoved(person);
+            }
+            metrics.deleted();
+            if (store.getDeletedCount() >= COMPACT_MIN_DELETED && store.getDeletedCount() > store.size()) {
+                compact();
+            }
         } else {
-            System.out.println("Person with name " + name + " not found.");
+            metrics.missedDelete(name);
         }
     }
 
     /**
-     * Searches for a Person by name in the Map.
+     * Searches for a Person by name.
      *
      * @param name The name of the person to search for.
-     * @return The Person object if found, otherwise null.
+     * @return A view of the Person if found, otherwise null.
      */
     public Person searchPersonByName(String name) {
-        return personMap.get(name);
+        metrics.lookedUp();
+        int row = store.rowOf(name);
+        return row < 0 ? null : new Person(store, row);
     }
 
 
     /**
-     * Retrieves all persons in the ArrayList.
+     * Finds all persons whose age lies in the given range, using the age index.
+     *
+     * @param minAge The lowest age to include.
+     * @param maxAge The highest age to include.
+     * @return The matching persons, ordered by age.
+     */
+    public ArrayList<Person> findPersonsByAgeRange(int minAge, int maxAge) {
+        ArrayList<Person> result = new ArrayList<>();
+        if (minAge > maxAge) {
+            return result;
+        }
+        long start = System.nanoTime();
+        ensureIndexes();
+        ageIndex.scan(key -> (int) (key >> 32) < minAge, key -> {
+            if ((int) (key >> 32) > maxAge) {
+                return false;
+            }
+            result.add(new Person(store, (int) key));
+            return true;
+        });
+        metrics.queried(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Finds all persons whose name starts with the given prefix, using the name index.
      *
-     * @return An ArrayList containing all the persons.
+     * @param prefix The case-sensitive prefix to look for.
+     * @return The matching persons, ordered by name.
+     */
+    public ArrayList<Person> findPersonsByNamePrefix(String prefix) {
+        ArrayList<Person> result = new ArrayList<>();
+        long start = System.nanoTime();
+        ensureIndexes();
+        scanNamesFrom(prefix, person -> {
+            if (!person.getName().regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return false;
+            }
+            if (person.getName().startsWith(prefix)) {
+                result.add(person);
+            }
+            return true;
+        });
+        metrics.queried(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Finds all persons whose name starts with the given prefix, ignoring case, using the name index.
+     *
+     * @param prefix The prefix to look for, in any case.
+     * @return The matching persons, ordered by name.
+     */
+    public ArrayList<Person> findPersonsByNamePrefixIgnoreCase(String prefix) {
+        ArrayList<Person> result = new ArrayList<>();
+        long start = System.nanoTime();
+        ensureIndexes();
+        scanNamesFrom(prefix, person -> {
+            if (!person.getName().regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return false;
+            }
+            result.add(person);
+            return true;
+        });
+        metrics.queried(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Finds all persons whose name equals the given name, ignoring case, using the name index.
+     *
+     * @param name The name to look for, in any case.
+     * @return The matching persons, ordered by name.
+     */
+    public ArrayList<Person> searchPersonsByNameIgnoreCase(String name) {
+        ArrayList<Person> result = new ArrayList<>();
+        ensureIndexes();
+        scanNamesFrom(name, person -> {
+            if (!person.getName().equalsIgnoreCase(name)) {
+                return false;
+            }
+            result.add(person);
+            return true;
+        });
+        return result;
+    }
+
+    // Visits the persons in name order, ignoring case, from the first name not below the given one.
+    // Names sharing a prefix in any case sort next to each other, so a prefix range starts there.
+    private void scanNamesFrom(String name, Predicate<Person> visit) {
+        nameIndex.scan(row -> String.CASE_INSENSITIVE_ORDER.compare(store.nameAt((int) row), name) < 0,
+                row -> visit.test(new Person(store, (int) row)));
+    }
+
+    // Order of the name index: by name ignoring case, then by row, so every row has its own place
+    private int compareByName(int a, int b) {
+        int byName = store.compareNamesIgnoreCase(a, b);
+        return byName != 0 ? byName : Integer.compare(a, b);
+    }
+
+    // Key of a row in the age index; ages in the high half order the keys by age, then by row
+    private static long ageKey(int age, int row) {
+        return (long) age << 32 | row;
+    }
+
+    // Rebuilds both indexes from the store in one pass if a bulk load left them out of date
+    private void ensureIndexes() {
+        if (!indexesStale) {
+            return;
+        }
+        long start = System.nanoTime();
+        long[] ageKeys = new long[store.size()];
+        long[] rows = new long[store.size()];
+        int count = 0;
+        for (int row = 0; row < store.getRowCount(); row++) {
+            if (store.isLive(row)) {
+                ageKeys[count] = ageKey(store.ageAt(row), row);
+                rows[count++] = row;
+            }
+        }
+        ageIndex.rebuild(ageKeys, count);
+        nameIndex.rebuild(rows, count);
+        indexesStale = false;
+        metrics.indexesRebuilt(System.nanoTime() - start);
+    }
+
+    private void addToIndexes(int row) {
+        if (!indexesStale) {
+            ageIndex.add(ageKey(store.ageAt(row), row));
+            nameIndex.add(row);
+        }
+    }
+
+    private void removeFromIndexes(int row) {
+        if (!indexesStale) {
+            ageIndex.remove(ageKey(store.ageAt(row), row));
+            nameIndex.remove(row);
+        }
+    }
+
+    // Reclaims deleted rows; rows keep their order, so the indexes only need their row ids renumbered
+    private void compact() {
+        int[] moved = store.compact();
+        if (indexesStale) {
+            return;
+        }
+        ageIndex.renumber(key -> moved[(int) key] < 0 ? -1 : (key & ~0xFFFFFFFFL) | moved[(int) key]);
+        nameIndex.renumber(row -> moved[(int) row]);
+    }
+
+    /**
+     * Retrieves all persons, in the order they were created.
+     *
+     * @return An ArrayList containing a view of each person.
      */
     public ArrayList<Person> getAllPersons() {
-        return personList;
+        ArrayList<Person> result = new ArrayList<>(store.size());
+        for (int row = 0; row < store.getRowCount(); row++) {
+            if (store.isLive(row)) {
+                result.add(new Person(store, row));
+            }
+        }
+        return result;
     }
 
 
     /**
-     * Retrieves all unique persons in the Set (no duplicates).
+     * Retrieves all unique persons (no duplicates), in the order they were created.
      *
-     * @return A Set containing all unique persons.
+     * @return A live, read-only Set of all unique persons.
      */
     public Set<Person> getUniquePersons() {
-        return personSet;
+        return uniquePersons;
+    }
+
+    /**
+     * Read-only Set view of the store. Persons are equal when their names are, so membership is a key lookup.
+     */
+    private class PersonSet extends AbstractSet<Person> {
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Person person && store.rowOf(person.getName()) >= 0;
+        }
+
+        @Override
+        public Iterator<Person> iterator() {
+            return new Iterator<>() {
+                private final int generation = store.getGeneration();
+                private int row = nextLive(0);
+
+                @Override
+                public boolean hasNext() {
+                    return row < store.getRowCount();
+                }
+
+                @Override
+                public Person next() {
+                    if (generation != store.getGeneration()) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Person person = new Person(store, row);
+                    row = nextLive(row + 1);
+                    return person;
+                }
+
+                private int nextLive(int from) {
+                    while (from < store.getRowCount() && !store.isLive(from)) {
+                        from++;
+                    }
+                    return from;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
     }
 
     /**
      * The Person class represents an individual with a name and age.
+     * A Person returned by a DataManager is a lightweight view of a row of its store: it always shows
+     * the current age. Once the person is deleted it shows the last age, until the deleted rows are
+     * reclaimed; from then on it keeps the age it last read.
+     * A Person created with the constructor is a standalone value, as passed to createPersons.
+     * Neither kind can be changed directly; ages change only through DataManager.updatePerson.
      * It overrides equals() and hashCode() to ensure proper handling in Sets and Maps.
      */
     static class Person {
-        private String name;
-        private int age;
+        private final String name;
+        private int age; // The age of a standalone person, or the last age read from the store
+        private PersonColumnStore store; // The store this person is a view of, or null for a standalone person
+        private final int id; // The person's id in the store, which stays the same when rows are renumbered
+        private int row;
+        private int generation; // The store generation in which row was valid
 
         /**
          * Constructor to initialize a Person object with a name and age.
@@ -121,6 +518,17 @@ public class DataManager {
         public Person(String name, int age) {
             this.name = name;
             this.age = age;
+            this.id = 0;
+        }
+
+        // A view of a live row of the store
+        Person(PersonColumnStore store, int row) {
+            this.name = store.nameAt(row);
+            this.age = store.ageAt(row);
+            this.store = store;
+            this.id = store.idAt(row);
+            this.row = row;
+            this.generation = store.getGeneration();
         }
 
 
@@ -139,17 +547,34 @@ public class DataManager {
          * @return The age of the person.
          */
         public int getAge() {
+            if (store != null && findRow()) {
+                age = store.ageAt(row);
+            }
             return age;
         }
 
-
         /**
-         * Sets the age of the person.
+         * Gets the id of the person in its DataManager, which tells apart persons of the same name
+         * created at different times.
          *
-         * @param age The new age to set.
+         * @return The id, or 0 for a standalone person.
          */
-        public void setAge(int age) {
-            this.age = age;
+        int getId() {
+            return id;
+        }
+
+        // Finds the row again after the store renumbered its rows; a person deleted meanwhile keeps its last age
+        private boolean findRow() {
+            if (generation != store.getGeneration()) {
+                int current = store.rowOf(name);
+                if (current < 0 || store.idAt(current) != id) {
+                    store = null;
+                    return false;
+                }
+                row = current;
+                generation = store.getGeneration();
+            }
+            return true;
         }
 
         /**
@@ -183,8 +608,7 @@ public class DataManager {
          */
         @Override
         public String toString() {
-            return "Person{name='" + name + "', age=" + age + '}';
+            return "Person{name='" + name + "', age=" + getAge() + '}';
         }
     }
-
 }
@@ -0,0 +1,162 @@
+package org.example.textprocessingtool;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntSupplier;
+
+/**
+ * The DataManagerMetrics class counts the operations of one DataManager: creates, updates, deletes and lookups,
+ * the ones that found nothing to do, bulk load sizes, and the latency of queries and index rebuilds.
+ * A DataManager is used by one thread at a time, so every counter has a single writer and is bumped with
+ * plain reads and opaque writes, which cost no more than an ordinary field increment on the lookup path.
+ * JMX reads the figures from another thread while the DataManager runs; changes that miss are
+ * also Flight Recorder events.
+ */
+public class DataManagerMetrics implements DataManagerMetricsMXBean {
+
+    // Indexes into the counters
+    private static final int CREATES = 0;
+    private static final int DUPLICATE_CREATES = 1;
+    private static final int BULK_CREATES = 2;
+    private static final int UPDATES = 3;
+    private static final int MISSED_UPDATES = 4;
+    private static final int DELETES = 5;
+    private static final int MISSED_DELETES = 6;
+    private static final int LOOKUPS = 7;
+    private static final int COUNTERS = 8;
+
+    private final IntSupplier personCount;
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTERS);
+    private final ConcurrentHistogram bulkBatchSize = new ConcurrentHistogram();
+    private final ConcurrentHistogram queryLatency = new ConcurrentHistogram();
+    private final ConcurrentHistogram indexRebuildLatency = new ConcurrentHistogram();
+
+    /**
+     * Constructor to initialize empty metrics.
+     *
+     * @param personCount Reports the number of persons held; read from the JMX thread, so it may be slightly stale.
+     */
+    public DataManagerMetrics(IntSupplier personCount) {
+        this.personCount = personCount;
+    }
+
+    // Only the DataManager's thread writes, so a plain read and an opaque write are enough
+    private void add(int counter, long delta) {
+        counters.setOpaque(counter, counters.getPlain(counter) + delta);
+    }
+
+    // Recording methods, called by the DataManager as each operation completes
+
+    void created() {
+        add(CREATES, 1);
+    }
+
+    void duplicateCreate(String name) {
+        add(DUPLICATE_CREATES, 1);
+        PersonMissEvent.emit("create", name);
+    }
+
+    void bulkCreated(int batchSize, int added) {
+        bulkBatchSize.record(batchSize);
+        add(BULK_CREATES, added);
+    }
+
+    void updated() {
+        add(UPDATES, 1);
+    }
+
+    void missedUpdate(String name) {
+        add(MISSED_UPDATES, 1);
+        PersonMissEvent.emit("update", name);
+    }
+
+    void deleted() {
+        add(DELETES, 1);
+    }
+
+    void missedDelete(String name) {
+        add(MISSED_DELETES, 1);
+        PersonMissEvent.emit("delete", name);
+    }
+
+    void lookedUp() {
+        add(LOOKUPS, 1);
+    }
+
+    void queried(long nanos) {
+        queryLatency.record(nanos);
+    }
+
+    void indexesRebuilt(long nanos) {
+        indexRebuildLatency.record(nanos);
+    }
+
+    @Override
+    public int getPersonCount() {
+        return personCount.getAsInt();
+    }
+
+    @Override
+    public long getCreateCount() {
+        return counters.getOpaque(CREATES);
+    }
+
+    @Override
+    public long getDuplicateCreateCount() {
+        return counters.getOpaque(DUPLICATE_CREATES);
+    }
+
+    @Override
+    public long getBulkCreateCount() {
+        return counters.getOpaque(BULK_CREATES);
+    }
+
+    @Override
+    public ConcurrentHistogram.Snapshot getBulkBatchSize() {
+        return bulkBatchSize.snapshot();
+    }
+
+    @Override
+    public long getUpdateCount() {
+        return counters.getOpaque(UPDATES);
+    }
+
+    @Override
+    public long getMissedUpdateCount() {
+        return counters.getOpaque(MISSED_UPDATES);
+    }
+
+    @Override
+    public long getDeleteCount() {
+        return counters.getOpaque(DELETES);
+    }
+
+    @Override
+    public long getMissedDeleteCount() {
+        return counters.getOpaque(MISSED_DELETES);
+    }
+
+    @Override
+    public long getLookupCount() {
+        return counters.getOpaque(LOOKUPS);
+    }
+
+    @Override
+    public ConcurrentHistogram.Snapshot getQueryLatency() {
+        return queryLatency.snapshot();
+    }
+
+    @Override
+    public ConcurrentHistogram.Snapshot getIndexRebuildLatency() {
+        return indexRebuildLatency.snapshot();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < COUNTERS; i++) {
+            counters.setOpaque(i, 0);
+        }
+        bulkBatchSize.reset();
+        queryLatency.reset();
+        indexRebuildLatency.reset();
+    }
+}
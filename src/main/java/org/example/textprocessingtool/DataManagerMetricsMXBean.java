@@ -0,0 +1,74 @@
+package org.example.textprocessingtool;
+
+/**
+ * The DataManagerMetricsMXBean interface is the JMX view of DataManagerMetrics.
+ * Counters only grow until reset, so a monitoring client gets operation rates by sampling them twice.
+ * Latencies are in nanoseconds.
+ */
+public interface DataManagerMetricsMXBean {
+
+    /**
+     * @return The number of persons held now.
+     */
+    int getPersonCount();
+
+    /**
+     * @return The number of persons created one at a time.
+     */
+    long getCreateCount();
+
+    /**
+     * @return The number of creates ignored because the name already existed.
+     */
+    long getDuplicateCreateCount();
+
+    /**
+     * @return The number of persons added by bulk loads.
+     */
+    long getBulkCreateCount();
+
+    /**
+     * @return The number of persons per bulk load batch.
+     */
+    ConcurrentHistogram.Snapshot getBulkBatchSize();
+
+    /**
+     * @return The number of ages updated.
+     */
+    long getUpdateCount();
+
+    /**
+     * @return The number of updates ignored because the name did not exist.
+     */
+    long getMissedUpdateCount();
+
+    /**
+     * @return The number of persons deleted.
+     */
+    long getDeleteCount();
+
+    /**
+     * @return The number of deletes ignored because the name did not exist.
+     */
+    long getMissedDeleteCount();
+
+    /**
+     * @return The number of lookups by exact name.
+     */
+    long getLookupCount();
+
+    /**
+     * @return The latency of age range and name prefix queries.
+     */
+    ConcurrentHistogram.Snapshot getQueryLatency();
+
+    /**
+     * @return The latency of index rebuilds after bulk loads.
+     */
+    ConcurrentHistogram.Snapshot getIndexRebuildLatency();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
@@ -9,11 +9,14 @@ import java.io.IOException;
 
 public class HelloApplication extends Application {
 
+    private RegexController controller;
+
     @Override
     public void start(Stage stage) throws IOException {
         // Load the Regex.fxml file with the RegexController
         FXMLLoader fxmlLoader = new FXMLLoader(HelloApplication.class.getResource("Regex.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 900, 600);
+        controller = fxmlLoader.getController();
 
 
         scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
@@ -23,6 +26,12 @@ public class HelloApplication extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        // Save pending changes before the JVM exits
+        controller.shutdown();
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -0,0 +1,136 @@
+package org.example.textprocessingtool;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+
+/**
+ * The InterruptibleCharSequence class wraps a CharSequence so that a regex running over it can be stopped.
+ * java.util.regex never checks the interrupt flag itself, but it reads its input through charAt,
+ * so every few thousand reads this wrapper checks whether the current thread was interrupted
+ * and aborts the match with a CancellationException.
+ * An optional RegexBudget additionally aborts the match with a RegexTimeoutException once it
+ * has run too long or read too many characters.
+ * An optional checkpoint callback receives the index being read, which is handy for progress reporting.
+ */
+public class InterruptibleCharSequence implements CharSequence {
+
+    // Number of charAt calls between interrupt checks; a power of two so the check is a mask
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final CharSequence delegate;
+    private final IntConsumer checkpoint;
+    private final long maxReads;
+    private final long startNanos;
+    private final long timeoutNanos; // 0 when the budget has no time limit
+    private long reads;
+
+    /**
+     * Constructor to initialize a wrapper without a checkpoint callback.
+     *
+     * @param delegate The text to wrap.
+     */
+    public InterruptibleCharSequence(CharSequence delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * Constructor to initialize a wrapper that reports its read position at every interrupt check.
+     *
+     * @param delegate   The text to wrap.
+     * @param checkpoint Receives the index being read at each check, or null.
+     */
+    public InterruptibleCharSequence(CharSequence delegate, IntConsumer checkpoint) {
+        this(delegate, checkpoint, RegexBudget.UNLIMITED);
+    }
+
+    /**
+     * Constructor to initialize a wrapper that also enforces an execution budget.
+     * The time limit counts from the moment the wrapper is created.
+     *
+     * @param delegate   The text to wrap.
+     * @param checkpoint Receives the index being read at each check, or null.
+     * @param budget     The limits on time and character reads.
+     */
+    public InterruptibleCharSequence(CharSequence delegate, IntConsumer checkpoint, RegexBudget budget) {
+        this.delegate = delegate;
+        this.checkpoint = checkpoint;
+        this.maxReads = budget.maxSteps();
+        this.timeoutNanos = budget.timeout() == null ? 0 : budget.timeout().toNanos();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the wrapped text, for scans that read it directly and report their reads through countReads.
+     *
+     * @return The wrapped CharSequence.
+     */
+    public CharSequence getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Counts reads a scan made on getDelegate() as if they had gone through charAt, so the scan is
+     * interrupted and held to the budget the same way. Scans call it once per block of characters
+     * instead of once per character.
+     *
+     * @param index The index the scan has reached.
+     * @param count The number of characters read since the last call.
+     */
+    public void countReads(int index, long count) {
+        long before = reads;
+        reads += count;
+        if (reads / CHECK_INTERVAL != before / CHECK_INTERVAL || reads > maxReads) {
+            check(index);
+        }
+        if (delegate instanceof InterruptibleCharSequence wrapped) {
+            wrapped.countReads(index, count);
+        }
+    }
+
+    @Override
+    public char charAt(int index) {
+        if ((++reads & (CHECK_INTERVAL - 1)) == 0 || reads > maxReads) {
+            check(index);
+        }
+        return delegate.charAt(index);
+    }
+
+    private void check(int index) {
+        if (reads > maxReads) {
+            throw new RegexTimeoutException("Regex evaluation exceeded its budget of " + maxReads + " steps",
+                    reads, Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Regex evaluation was interrupted");
+        }
+        if (timeoutNanos != 0) {
+            long elapsed = System.nanoTime() - startNanos;
+            if (elapsed > timeoutNanos) {
+                throw new RegexTimeoutException("Regex evaluation exceeded its time budget of "
+                        + Duration.ofNanos(timeoutNanos), reads, Duration.ofNanos(elapsed));
+            }
+        }
+        if (checkpoint != null) {
+            checkpoint.accept(index);
+        }
+    }
+
+    @Override
+    public int length() {
+        return delegate.length();
+    }
+
+    /**
+     * Returns the subsequence of the wrapped text itself, so extracting a match costs no extra checks.
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return delegate.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
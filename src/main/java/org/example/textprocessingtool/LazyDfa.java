@@ -0,0 +1,1303 @@
+package org.example.textprocessingtool;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The LazyDfa class matches regex patterns with a deterministic automaton instead of backtracking,
+ * so a search reads each character a bounded number of times whatever the pattern and the text.
+ * The pattern is compiled to an NFA program, and DFA states are built from it only as the text reaches them,
+ * then cached; characters are first mapped to equivalence classes through a table, so states have one
+ * transition per class rather than per character.
+ * A forward automaton finds where the leftmost match ends, with the same leftmost-first preference as
+ * java.util.regex, and an automaton of the reversed pattern, run back from there, finds where it starts.
+ *
+ * Only a subset of the regex syntax is compiled: literals and escapes, character classes, ., \d \w \s
+ * and their negations, groups, alternation, greedy and lazy quantifiers, ^ \A \z \b \B.
+ * Patterns using anything else, such as back-references, lookaround, flags, $ or possessive quantifiers,
+ * are left to java.util.regex. Capturing groups are resolved by java.util.regex within the span of the match,
+ * and only when asked for. Text containing surrogate pairs is also handed over to java.util.regex for
+ * the searches that reach it. Results are always identical to a plain Matcher.find() loop.
+ */
+public class LazyDfa {
+
+    // Largest program compiled; counted repetition such as \w{500} is unrolled and can get big
+    private static final int MAX_PROGRAM_SIZE = 5000;
+    private static final int MAX_REPEAT = 1000;
+    // States cached per automaton before the cache is cleared and rebuilt
+    private static final int MAX_STATES = 2000;
+    // Characters scanned between interrupt and budget checks, as for InterruptibleCharSequence.charAt
+    private static final int CHECK_INTERVAL = 4096;
+
+    // Program instructions
+    private static final int CLASS = 0;   // Consume a character of set x
+    private static final int SPLIT = 1;   // Continue at x, then at the lower priority y
+    private static final int JUMP = 2;    // Continue at x
+    private static final int ASSERT = 3;  // Continue at the next instruction if assertion x holds
+    private static final int MATCH = 4;
+
+    // Zero-width assertions
+    private static final int BEGIN = 0;
+    private static final int END = 1;
+    private static final int WORD_BOUNDARY = 2;
+    private static final int NOT_WORD_BOUNDARY = 3;
+
+    // What lies on one side of a position, as far as the assertions care
+    private static final int NONE = 0; // The edge of the text
+    private static final int WORD = 1;
+    private static final int OTHER = 2;
+
+    private static final int BAIL = -1; // Equivalence class of characters the automaton does not handle
+    static final long NO_MATCH = -1;
+
+    private static final int[] ANY = {0, 0xFFFF};
+    private static final int[] DIGIT = {'0', '9'};
+    private static final int[] WORD_CHARS = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+    private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+    private static final int[] DOT = complement(new int[]{'\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029});
+
+    private final boolean anchored; // Every match starts at the beginning of the text
+    private final boolean wordAssertions;
+    private final boolean asciiOnly; // Every match is a non-empty run of ASCII characters
+    private final int[] asciiClasses;
+    private final int[] rangeStarts;
+    private final int[] rangeClasses;
+    private final int nonAsciiClass; // Of every non-ASCII character, when the pattern is ASCII-only
+    private final int eot; // The pseudo-class of the end of the text, after the real ones
+    private final int[] classKinds;
+    private final Automaton forward;
+    private final Automaton reverse;
+
+    private LazyDfa(Node node) {
+        this.anchored = startsWithBegin(node);
+        this.asciiOnly = !nullable(node) && asciiOnly(node);
+        Program forwardProgram = new Program(new ArrayList<>());
+        if (!anchored) {
+            // A lazy .* in front, so matches may start anywhere but earlier starts are preferred
+            forwardProgram.add(SPLIT, 3, 1);
+            forwardProgram.add(CLASS, forwardProgram.set(ANY), 0);
+            forwardProgram.add(JUMP, 0, 0);
+        }
+        forwardProgram.emit(node);
+        forwardProgram.add(MATCH, 0, 0);
+        Program reverseProgram = new Program(forwardProgram.sets); // Same sets, so the same classes
+        reverseProgram.emit(reverse(node));
+        reverseProgram.add(MATCH, 0, 0);
+        this.wordAssertions = forwardProgram.wordAssertions;
+
+        // Cut the character range wherever some set starts or stops, then give ranges that
+        // belong to the same sets the same equivalence class
+        List<int[]> sets = forwardProgram.sets;
+        TreeSet<Integer> cuts = new TreeSet<>(List.of(0, 0xD800, 0xE000));
+        for (int[] set : sets) {
+            addCuts(cuts, set);
+        }
+        if (wordAssertions) {
+            addCuts(cuts, WORD_CHARS);
+        }
+        cuts.remove(0x10000);
+        this.rangeStarts = cuts.stream().mapToInt(Integer::intValue).toArray();
+        this.rangeClasses = new int[rangeStarts.length];
+        Map<BitSet, Integer> classes = new HashMap<>();
+        List<BitSet> signatures = new ArrayList<>();
+        for (int r = 0; r < rangeStarts.length; r++) {
+            int c = rangeStarts[r];
+            if (Character.isSurrogate((char) c)) {
+                rangeClasses[r] = BAIL;
+                continue;
+            }
+            BitSet signature = new BitSet();
+            for (int s = 0; s < sets.size(); s++) {
+                if (contains(sets.get(s), c)) {
+                    signature.set(s);
+                }
+            }
+            if (wordAssertions && contains(WORD_CHARS, c)) {
+                signature.set(sets.size());
+            }
+            rangeClasses[r] = classes.computeIfAbsent(signature, k -> {
+                signatures.add(k);
+                return signatures.size() - 1;
+            });
+        }
+        this.eot = signatures.size();
+        this.nonAsciiClass = rangeClasses[range((char) 0x80)];
+        this.asciiClasses = new int[128];
+        for (char c = 0; c < 128; c++) {
+            asciiClasses[c] = rangeClasses[range(c)];
+        }
+
+        // Which classes each set matches, and what each class is next to an assertion
+        boolean[][] setClasses = new boolean[sets.size()][eot];
+        this.classKinds = new int[eot + 1];
+        for (int k = 0; k < eot; k++) {
+            BitSet signature = signatures.get(k);
+            for (int s = signature.nextSetBit(0); s >= 0 && s < sets.size(); s = signature.nextSetBit(s + 1)) {
+                setClasses[s][k] = true;
+            }
+            classKinds[k] = wordAssertions && signature.get(sets.size()) ? WORD : OTHER;
+        }
+        boolean assertions = forwardProgram.assertions;
+        classKinds[eot] = assertions ? NONE : OTHER;
+        this.forward = new Automaton(forwardProgram, setClasses, classKinds, eot, false);
+        this.reverse = new Automaton(reverseProgram, setClasses, classKinds, eot, true);
+    }
+
+    /**
+     * Compiles the pattern if it lies within the supported subset.
+     * The pattern must already have compiled with java.util.regex.
+     *
+     * @param pattern The regex pattern.
+     * @return The automaton, or null if the pattern must be matched by java.util.regex.
+     */
+    public static LazyDfa forPattern(String pattern) {
+        try {
+            return new LazyDfa(new Parser(pattern).parse());
+        } catch (UnsupportedPatternException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the matches of the pattern in the text, exactly as a Matcher.find() loop would.
+     * The MatchResult passed to the action is only valid during the call and must not be kept.
+     *
+     * @param text    The text to search.
+     * @param pattern The compiled form of the pattern this automaton was built for.
+     * @param limit   The maximum number of matches to report.
+     * @param action  The callback receiving each match, in text order.
+     * @return The number of matches reported.
+     */
+    public int find(CharSequence text, Pattern pattern, int limit, Consumer<MatchResult> action) {
+        return find(text, 0, pattern, limit, action);
+    }
+
+    // Finds the matches from the given index on, as a Matcher.find() loop over a region starting there would
+    int find(CharSequence text, int start, Pattern pattern, int limit, Consumer<MatchResult> action) {
+        int length = text.length();
+        Match match = new Match(text, pattern);
+        Matcher fallback = null;
+        // The automaton reads the raw text and counts its reads in blocks, so it still
+        // stops when the thread is interrupted or the budget is used up
+        InterruptibleCharSequence guard = text instanceof InterruptibleCharSequence wrapped ? wrapped : null;
+        CharSequence raw = text;
+        while (raw instanceof InterruptibleCharSequence wrapped) {
+            raw = wrapped.getDelegate();
+        }
+        int resumeAt = 0; // Searches starting before this index are left to java.util.regex
+        int lastStart = -1;
+        int lastEnd = start;
+        int count = 0;
+        while (count < limit) {
+            // Step past an empty match, like Matcher.find()
+            int from = lastEnd == lastStart ? lastEnd + 1 : lastEnd;
+            if (from > length) {
+                break;
+            }
+            long found = from >= resumeAt ? search(raw, from, guard) : NO_MATCH - 1;
+            if (found == NO_MATCH) {
+                break;
+            }
+            if (found > NO_MATCH) {
+                lastStart = (int) (found >>> 32);
+                lastEnd = (int) found;
+                match.set(lastStart, lastEnd);
+                action.accept(match);
+            } else {
+                // The search reached a character the automaton does not handle, so this one
+                // is done by java.util.regex, as are the next ones until they start past it
+                if (from >= resumeAt) {
+                    resumeAt = (int) (-found - 2) + 3;
+                }
+                if (fallback == null) {
+                    fallback = pattern.matcher(text);
+                    fallback.useTransparentBounds(true);
+                    fallback.useAnchoringBounds(false);
+                }
+                fallback.region(from, length);
+                if (!fallback.find()) {
+                    break;
+                }
+                lastStart = fallback.start();
+                lastEnd = fallback.end();
+                action.accept(fallback);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    // Returns the leftmost match at or after from as start << 32 | end, NO_MATCH,
+    // or -(index + 2) if the character at index has to be left to java.util.regex.
+    // Each pass over a multiple of CHECK_INTERVAL counts a block of reads on the guard, if there is one,
+    // so a scan through the text is checked at a fixed spacing however short its matches are.
+    private long search(CharSequence text, int from, InterruptibleCharSequence guard) {
+        int length = text.length();
+        if (anchored && from > 0) {
+            return NO_MATCH;
+        }
+
+        // Forward to the end of the leftmost match
+        int prevKind = classKinds[eot];
+        if (from > 0) {
+            int cls = classOf(text.charAt(from - 1));
+            if (cls == BAIL) {
+                return -(from - 1) - 2;
+            }
+            prevKind = classKinds[cls];
+        }
+        State state = forward.start(prevKind);
+        int end = -1;
+        int i = from;
+        for (; i < length; i++) {
+            if (guard != null && (i & (CHECK_INTERVAL - 1)) == 0) {
+                guard.countReads(i, CHECK_INTERVAL);
+            }
+            int cls = classOf(text.charAt(i));
+            if (cls == BAIL) {
+                return -i - 2;
+            }
+            state = forward.next(state, cls);
+            if (state.matched) {
+                end = i;
+            }
+            if (state.threads.length == 0) {
+                break;
+            }
+        }
+        if (i == length && forward.next(state, eot).matched) {
+            end = length;
+        }
+        if (end < 0) {
+            return NO_MATCH;
+        }
+
+        // Backward from there to the leftmost position the match can start at
+        prevKind = classKinds[eot];
+        if (end < length) {
+            int cls = classOf(text.charAt(end));
+            if (cls == BAIL) {
+                return -end - 2;
+            }
+            prevKind = classKinds[cls];
+        }
+        state = reverse.start(prevKind);
+        int start = -1;
+        i = end - 1;
+        for (; i >= from; i--) {
+            if (guard != null && (i & (CHECK_INTERVAL - 1)) == 0) {
+                guard.countReads(i, CHECK_INTERVAL);
+            }
+            int cls = classOf(text.charAt(i));
+            if (cls == BAIL) {
+                return -i - 2;
+            }
+            state = reverse.next(state, cls);
+            if (state.matched) {
+                start = i + 1;
+            }
+            if (state.threads.length == 0) {
+                break;
+            }
+        }
+        if (i < from) {
+            // The character before from is only looked at, as the assertions may need it
+            int cls = from == 0 ? eot : classOf(text.charAt(from - 1));
+            if (cls == BAIL) {
+                return -(from - 1) - 2;
+            }
+            if (reverse.next(state, cls).matched) {
+                start = from;
+            }
+        }
+        if (start < 0) {
+            return -from - 2; // Cannot happen, but java.util.regex always has the right answer
+        }
+        return (long) start << 32 | end;
+    }
+
+    /**
+     * Checks whether every match of the pattern is a non-empty run of ASCII characters, as for \d+ or ERROR \w+.
+     * Such patterns can be matched on UTF-8 bytes directly, where every other character is just bytes
+     * that nothing matches.
+     *
+     * @return true if the pattern only ever matches ASCII characters.
+     */
+    public boolean isAsciiOnly() {
+        return asciiOnly;
+    }
+
+    // The same search as for characters, over UTF-8 bytes from the buffer's index 0 to its limit, for
+    // patterns that only match ASCII; positions are byte offsets. Malformed bytes need no care, as
+    // a decoder turns them into non-ASCII replacement characters and never swallows an ASCII byte.
+    long search(ByteBuffer text, int from) {
+        int length = text.limit();
+        if (!asciiOnly) {
+            throw new IllegalStateException("Not an ASCII-only pattern");
+        }
+        if (anchored && from > 0) {
+            return NO_MATCH;
+        }
+
+        int prevKind = classKinds[eot];
+        if (from > 0) {
+            int cls = byteClass(text, from - 1);
+            if (cls == BAIL) {
+                return -(from - 1) - 2;
+            }
+            prevKind = classKinds[cls];
+        }
+        State state = forward.start(prevKind);
+        int end = -1;
+        int i = from;
+        for (; i < length; i++) {
+            int cls = byteClass(text, i);
+            if (cls == BAIL) {
+                return -i - 2;
+            }
+            state = forward.next(state, cls);
+            if (state.matched) {
+                end = i;
+            }
+            if (state.threads.length == 0) {
+                break;
+            }
+        }
+        if (i == length && forward.next(state, eot).matched) {
+            end = length;
+        }
+        if (end < 0) {
+            return NO_MATCH;
+        }
+
+        prevKind = classKinds[eot];
+        if (end < length) {
+            int cls = byteClass(text, end);
+            if (cls == BAIL) {
+                return -end - 2;
+            }
+            prevKind = classKinds[cls];
+        }
+        state = reverse.start(prevKind);
+        int start = -1;
+        i = end - 1;
+        for (; i >= from; i--) {
+            int cls = byteClass(text, i);
+            if (cls == BAIL) {
+                return -i - 2;
+            }
+            state = reverse.next(state, cls);
+            if (state.matched) {
+                start = i + 1;
+            }
+            if (state.threads.length == 0) {
+                break;
+            }
+        }
+        if (i < from) {
+            int cls = from == 0 ? eot : byteClass(text, from - 1);
+            if (cls == BAIL) {
+                return -(from - 1) - 2;
+            }
+            if (reverse.next(state, cls).matched) {
+                start = from;
+            }
+        }
+        if (start < 0) {
+            return -from - 2;
+        }
+        return (long) start << 32 | end;
+    }
+
+    private int byteClass(ByteBuffer text, int index) {
+        byte b = text.get(index);
+        if (b >= 0) {
+            return asciiClasses[b];
+        }
+        // A combining mark after a letter would be part of the word, so those are left to java.util.regex
+        if (wordAssertions && (b & 0xC0) == 0xC0 && isNonSpacingMark(text, index)) {
+            return BAIL;
+        }
+        return nonAsciiClass;
+    }
+
+    // Decodes the well-formed sequence starting with the lead byte at index, if there is one
+    private static boolean isNonSpacingMark(ByteBuffer text, int index) {
+        int lead = text.get(index) & 0xFF;
+        int continuations = lead >= 0xF0 ? 3 : lead >= 0xE0 ? 2 : 1;
+        int codePoint = lead & (0x3F >> continuations);
+        if (index + continuations >= text.limit()) {
+            return false;
+        }
+        for (int k = 1; k <= continuations; k++) {
+            int b = text.get(index + k) & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                return false;
+            }
+            codePoint = codePoint << 6 | b & 0x3F;
+        }
+        return codePoint <= Character.MAX_CODE_POINT && Character.getType(codePoint) == Character.NON_SPACING_MARK;
+    }
+
+    private int classOf(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        int cls = rangeClasses[range(c)];
+        // java.util.regex counts a combining mark after a letter as part of the word
+        if (wordAssertions && cls != BAIL && Character.getType(c) == Character.NON_SPACING_MARK) {
+            return BAIL;
+        }
+        return cls;
+    }
+
+    private int range(char c) {
+        int r = Arrays.binarySearch(rangeStarts, c);
+        return r >= 0 ? r : -r - 2;
+    }
+
+    private static boolean startsWithBegin(Node node) {
+        while (node instanceof Concatenation concatenation && !concatenation.items().isEmpty()) {
+            node = concatenation.items().get(0);
+        }
+        return node instanceof Assertion assertion && assertion.kind() == BEGIN;
+    }
+
+    // The pattern read from right to left, for the backward search
+    private static Node reverse(Node node) {
+        return switch (node) {
+            case CharSet set -> set;
+            case Assertion assertion -> switch (assertion.kind()) {
+                case BEGIN -> new Assertion(END);
+                case END -> new Assertion(BEGIN);
+                default -> assertion;
+            };
+            case Concatenation concatenation -> {
+                List<Node> items = new ArrayList<>();
+                for (Node item : concatenation.items()) {
+                    items.add(0, reverse(item));
+                }
+                yield new Concatenation(items);
+            }
+            case Alternation alternation -> new Alternation(alternation.alternatives().stream()
+                    .map(LazyDfa::reverse).toList());
+            case Repeat repeat -> new Repeat(reverse(repeat.body()), repeat.min(), repeat.max(), repeat.greedy());
+        };
+    }
+
+    private static boolean asciiOnly(Node node) {
+        return switch (node) {
+            case CharSet set -> set.ranges().length == 0 || set.ranges()[set.ranges().length - 1] < 128;
+            case Assertion assertion -> true;
+            case Concatenation concatenation -> concatenation.items().stream().allMatch(LazyDfa::asciiOnly);
+            case Alternation alternation -> alternation.alternatives().stream().allMatch(LazyDfa::asciiOnly);
+            case Repeat repeat -> asciiOnly(repeat.body());
+        };
+    }
+
+    private static boolean nullable(Node node) {
+        return switch (node) {
+            case CharSet set -> false;
+            case Assertion assertion -> true;
+            case Concatenation concatenation -> concatenation.items().stream().allMatch(LazyDfa::nullable);
+            case Alternation alternation -> alternation.alternatives().stream().anyMatch(LazyDfa::nullable);
+            case Repeat repeat -> repeat.min() == 0 || nullable(repeat.body());
+        };
+    }
+
+    // Character sets are sorted, disjoint, inclusive ranges: {low0, high0, low1, high1, ...}
+
+    private static boolean contains(int[] set, int c) {
+        for (int i = 0; i < set.length; i += 2) {
+            if (c >= set[i] && c <= set[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addCuts(TreeSet<Integer> cuts, int[] set) {
+        for (int i = 0; i < set.length; i += 2) {
+            cuts.add(set[i]);
+            cuts.add(set[i + 1] + 1);
+        }
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] all = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, all, a.length, b.length);
+        Integer[] order = new Integer[all.length / 2];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Integer.compare(all[2 * x], all[2 * y]));
+        int[] merged = new int[all.length];
+        int size = 0;
+        for (int i : order) {
+            int low = all[2 * i];
+            int high = all[2 * i + 1];
+            if (size > 0 && low <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], high);
+            } else {
+                merged[size++] = low;
+                merged[size++] = high;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    private static int[] complement(int[] set) {
+        int[] result = new int[set.length + 2];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < set.length; i += 2) {
+            if (set[i] > next) {
+                result[size++] = next;
+                result[size++] = set[i] - 1;
+            }
+            next = set[i + 1] + 1;
+        }
+        if (next <= 0xFFFF) {
+            result[size++] = next;
+            result[size++] = 0xFFFF;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // The parsed pattern; capturing groups only matter to java.util.regex, so they are not kept
+
+    private sealed interface Node permits CharSet, Assertion, Concatenation, Alternation, Repeat {
+    }
+
+    private record CharSet(int[] ranges) implements Node {
+    }
+
+    private record Assertion(int kind) implements Node {
+    }
+
+    private record Concatenation(List<Node> items) implements Node {
+    }
+
+    private record Alternation(List<Node> alternatives) implements Node {
+    }
+
+    private record Repeat(Node body, int min, int max, boolean greedy) implements Node {
+        static final int UNBOUNDED = -1;
+    }
+
+    private static final class UnsupportedPatternException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedPatternException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Reads the supported subset of the java.util.regex syntax. Anything outside it, and anything
+     * java.util.regex reads in a surprising way, such as a ] first in a class, is reported as unsupported
+     * rather than guessed at.
+     */
+    private static final class Parser {
+        private final String pattern;
+        private int pos;
+
+        Parser(String pattern) {
+            this.pattern = pattern;
+        }
+
+        Node parse() {
+            Node node = parseAlternation();
+            if (pos < pattern.length()) {
+                throw new UnsupportedPatternException();
+            }
+            return node;
+        }
+
+        private Node parseAlternation() {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseConcatenation());
+            while (peek('|')) {
+                pos++;
+                alternatives.add(parseConcatenation());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+        }
+
+        private Node parseConcatenation() {
+            List<Node> items = new ArrayList<>();
+            while (pos < pattern.length() && !peek('|') && !peek(')')) {
+                boolean quoted = pattern.startsWith("\\Q", pos);
+                Node atom = parseAtom();
+                if (quoted) {
+                    // A quantifier after \Q...\E applies to the last quoted character only
+                    if (isQuantifier()) {
+                        throw new UnsupportedPatternException();
+                    }
+                    items.add(atom);
+                } else {
+                    items.add(parseQuantifier(atom));
+                }
+            }
+            return items.size() == 1 ? items.get(0) : new Concatenation(items);
+        }
+
+        private Node parseAtom() {
+            char c = pattern.charAt(pos++);
+            switch (c) {
+                case '(':
+                    if (peek('?')) {
+                        pos++;
+                        if (peek(':')) {
+                            pos++;
+                        } else if (peek('<') && pos + 1 < pattern.length() && isAsciiLetter(pattern.charAt(pos + 1))) {
+                            // A named group; the name is only needed by java.util.regex
+                            pos++;
+                            while (pos < pattern.length() && (isAsciiLetter(pattern.charAt(pos))
+                                    || Character.isDigit(pattern.charAt(pos)))) {
+                                pos++;
+                            }
+                            expect('>');
+                        } else {
+                            throw new UnsupportedPatternException(); // Lookaround, atomic groups and flags
+                        }
+                    }
+                    Node group = parseAlternation();
+                    expect(')');
+                    return group;
+                case '[':
+                    return new CharSet(parseClass());
+                case '.':
+                    return new CharSet(DOT);
+                case '^':
+                    return new Assertion(BEGIN);
+                case '\\':
+                    return parseEscape();
+                case '$':
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw new UnsupportedPatternException();
+                default:
+                    return new CharSet(single(c));
+            }
+        }
+
+        private Node parseEscape() {
+            if (pos >= pattern.length()) {
+                throw new UnsupportedPatternException();
+            }
+            char c = pattern.charAt(pos++);
+            int[] predefined = predefinedClass(c);
+            if (predefined != null) {
+                return new CharSet(predefined);
+            }
+            switch (c) {
+                case 'b':
+                    return new Assertion(WORD_BOUNDARY);
+                case 'B':
+                    return new Assertion(NOT_WORD_BOUNDARY);
+                case 'A':
+                    return new Assertion(BEGIN);
+                case 'z':
+                    return new Assertion(END);
+                case 'Q':
+                    int end = pattern.indexOf("\\E", pos);
+                    String quoted = pattern.substring(pos, end < 0 ? pattern.length() : end);
+                    pos = end < 0 ? pattern.length() : end + 2;
+                    List<Node> items = new ArrayList<>();
+                    for (int i = 0; i < quoted.length(); i++) {
+                        items.add(new CharSet(single(quoted.charAt(i))));
+                    }
+                    return new Concatenation(items);
+                default:
+                    return new CharSet(single(escapedChar(c)));
+            }
+        }
+
+        private int[] parseClass() {
+            boolean negated = peek('^');
+            if (negated) {
+                pos++;
+            }
+            if (peek(']')) {
+                throw new UnsupportedPatternException();
+            }
+            int[] set = new int[0];
+            boolean first = true;
+            while (true) {
+                if (pos >= pattern.length()) {
+                    throw new UnsupportedPatternException();
+                }
+                char c = pattern.charAt(pos++);
+                if (c == ']') {
+                    break;
+                }
+                if (c == '[' || (c == '&' && peek('&'))) {
+                    throw new UnsupportedPatternException(); // Nested classes, unions and intersections
+                }
+                int low;
+                if (c == '\\') {
+                    if (pos >= pattern.length()) {
+                        throw new UnsupportedPatternException();
+                    }
+                    char e = pattern.charAt(pos++);
+                    int[] predefined = predefinedClass(e);
+                    if (predefined != null) {
+                        if (peek('-')) {
+                            throw new UnsupportedPatternException();
+                        }
+                        set = union(set, predefined);
+                        first = false;
+                        continue;
+                    }
+                    low = escapedChar(e);
+                } else {
+                    if (c == '-' && !first && !peek(']')) {
+                        throw new UnsupportedPatternException();
+                    }
+                    low = literal(c);
+                }
+                int high = low;
+                if (peek('-') && pos + 1 < pattern.length() && pattern.charAt(pos + 1) != ']') {
+                    pos++;
+                    char d = pattern.charAt(pos++);
+                    if (d == '[' || d == '&') {
+                        throw new UnsupportedPatternException();
+                    }
+                    if (d == '\\') {
+                        if (pos >= pattern.length() || predefinedClass(pattern.charAt(pos)) != null) {
+                            throw new UnsupportedPatternException();
+                        }
+                        high = escapedChar(pattern.charAt(pos++));
+                    } else {
+                        high = literal(d);
+                    }
+                    if (high < low) {
+                        throw new UnsupportedPatternException();
+                    }
+                }
+                set = union(set, new int[]{low, high});
+                first = false;
+            }
+            return negated ? complement(set) : set;
+        }
+
+        private Node parseQuantifier(Node atom) {
+            if (!isQuantifier()) {
+                return atom;
+            }
+            int min;
+            int max;
+            char c = pattern.charAt(pos++);
+            if (c == '*') {
+                min = 0;
+                max = Repeat.UNBOUNDED;
+            } else if (c == '+') {
+                min = 1;
+                max = Repeat.UNBOUNDED;
+            } else if (c == '?') {
+                min = 0;
+                max = 1;
+            } else {
+                min = parseCount();
+                max = min;
+                if (peek(',')) {
+                    pos++;
+                    max = peek('}') ? Repeat.UNBOUNDED : parseCount();
+                }
+                expect('}');
+            }
+            boolean greedy = true;
+            if (peek('?')) {
+                pos++;
+                greedy = false;
+            } else if (peek('+')) {
+                throw new UnsupportedPatternException(); // Possessive quantifiers backtrack differently
+            }
+            // java.util.regex treats repeated empty iterations in its own way, so those are left to it
+            if (isQuantifier() || atom instanceof Assertion
+                    || ((max == Repeat.UNBOUNDED || max > 1) && nullable(atom))) {
+                throw new UnsupportedPatternException();
+            }
+            return new Repeat(atom, min, max, greedy);
+        }
+
+        private int parseCount() {
+            int start = pos;
+            while (pos < pattern.length() && pos - start < 5 && isAsciiDigit(pattern.charAt(pos))) {
+                pos++;
+            }
+            if (pos == start || pos - start == 5) {
+                throw new UnsupportedPatternException();
+            }
+            int count = Integer.parseInt(pattern, start, pos, 10);
+            if (count > MAX_REPEAT) {
+                throw new UnsupportedPatternException();
+            }
+            return count;
+        }
+
+        private boolean isQuantifier() {
+            return pos < pattern.length() && "*+?{".indexOf(pattern.charAt(pos)) >= 0;
+        }
+
+        private static int[] predefinedClass(char c) {
+            return switch (c) {
+                case 'd' -> DIGIT;
+                case 'D' -> complement(DIGIT);
+                case 'w' -> WORD_CHARS;
+                case 'W' -> complement(WORD_CHARS);
+                case 's' -> SPACE;
+                case 'S' -> complement(SPACE);
+                default -> null;
+            };
+        }
+
+        // The character written as backslash and c, for escapes that stand for one character
+        private int escapedChar(char c) {
+            switch (c) {
+                case 't':
+                    return '\t';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 'f':
+                    return '\f';
+                case 'a':
+                    return '\u0007';
+                case 'e':
+                    return '\u001B';
+                case 'x':
+                    if (peek('{')) {
+                        int close = pattern.indexOf('}', pos);
+                        if (close < 0 || close - pos > 5) {
+                            throw new UnsupportedPatternException();
+                        }
+                        int value = hex(pos + 1, close);
+                        pos = close + 1;
+                        return literal(value);
+                    }
+                    pos += 2;
+                    return literal(hex(pos - 2, pos));
+                case 'u':
+                    pos += 4;
+                    return literal(hex(pos - 4, pos));
+                default:
+                    // Other letters and digits are classes, references or errors; other characters stand for themselves
+                    if (c < 128 && Character.isLetterOrDigit(c)) {
+                        throw new UnsupportedPatternException();
+                    }
+                    return literal(c);
+            }
+        }
+
+        private int hex(int start, int end) {
+            if (start >= end || end > pattern.length()) {
+                throw new UnsupportedPatternException();
+            }
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = Character.digit(pattern.charAt(i), 16);
+                if (digit < 0) {
+                    throw new UnsupportedPatternException();
+                }
+                value = value * 16 + digit;
+            }
+            return value;
+        }
+
+        private static int literal(int c) {
+            if (c > 0xFFFF || Character.isSurrogate((char) c)) {
+                throw new UnsupportedPatternException();
+            }
+            return c;
+        }
+
+        private static int[] single(int c) {
+            int value = literal(c);
+            return new int[]{value, value};
+        }
+
+        private boolean peek(char c) {
+            return pos < pattern.length() && pattern.charAt(pos) == c;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) {
+                throw new UnsupportedPatternException();
+            }
+            pos++;
+        }
+
+        private static boolean isAsciiLetter(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        private static boolean isAsciiDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+    }
+
+    /**
+     * An NFA program in the style of a Pike VM: alternatives are SPLIT instructions whose first branch
+     * has the higher priority, which is how leftmost-first preference is kept.
+     */
+    private static final class Program {
+        private int[] ops = new int[64];
+        private int[] xs = new int[64];
+        private int[] ys = new int[64];
+        private int size;
+        private final List<int[]> sets;
+        private boolean assertions;
+        private boolean wordAssertions;
+
+        Program(List<int[]> sets) {
+            this.sets = sets;
+        }
+
+        int add(int op, int x, int y) {
+            if (size == MAX_PROGRAM_SIZE) {
+                throw new UnsupportedPatternException();
+            }
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            ops[size] = op;
+            xs[size] = x;
+            ys[size] = y;
+            return size++;
+        }
+
+        int set(int[] ranges) {
+            for (int i = 0; i < sets.size(); i++) {
+                if (Arrays.equals(sets.get(i), ranges)) {
+                    return i;
+                }
+            }
+            sets.add(ranges);
+            return sets.size() - 1;
+        }
+
+        void emit(Node node) {
+            switch (node) {
+                case CharSet set -> add(CLASS, set(set.ranges()), 0);
+                case Assertion assertion -> {
+                    assertions = true;
+                    wordAssertions |= assertion.kind() == WORD_BOUNDARY || assertion.kind() == NOT_WORD_BOUNDARY;
+                    add(ASSERT, assertion.kind(), 0);
+                }
+                case Concatenation concatenation -> concatenation.items().forEach(this::emit);
+                case Alternation alternation -> {
+                    List<Node> alternatives = alternation.alternatives();
+                    List<Integer> jumps = new ArrayList<>();
+                    for (int i = 0; i < alternatives.size() - 1; i++) {
+                        int split = add(SPLIT, size + 1, 0);
+                        emit(alternatives.get(i));
+                        jumps.add(add(JUMP, 0, 0));
+                        ys[split] = size;
+                    }
+                    emit(alternatives.get(alternatives.size() - 1));
+                    for (int jump : jumps) {
+                        xs[jump] = size;
+                    }
+                }
+                case Repeat repeat -> {
+                    for (int i = 0; i < repeat.min(); i++) {
+                        emit(repeat.body());
+                    }
+                    if (repeat.max() == Repeat.UNBOUNDED) {
+                        int split = add(SPLIT, 0, 0);
+                        emit(repeat.body());
+                        add(JUMP, split, 0);
+                        branch(split, split + 1, size, repeat.greedy());
+                    } else {
+                        List<Integer> splits = new ArrayList<>();
+                        for (int i = repeat.min(); i < repeat.max(); i++) {
+                            splits.add(add(SPLIT, 0, 0));
+                            emit(repeat.body());
+                        }
+                        for (int split : splits) {
+                            branch(split, split + 1, size, repeat.greedy());
+                        }
+                    }
+                }
+            }
+        }
+
+        // Points a SPLIT at the body and the exit, preferring the body if greedy
+        private void branch(int split, int body, int exit, boolean greedy) {
+            xs[split] = greedy ? body : exit;
+            ys[split] = greedy ? exit : body;
+        }
+    }
+
+    /**
+     * One lazily built DFA over a program. A state is the ordered list of program threads waiting
+     * for the next character, with what the previous character was; a transition runs those threads over
+     * one equivalence class. The forward automaton keeps the threads in priority order and drops those below
+     * a match, for leftmost-first results; the reverse automaton keeps them all, for the longest match.
+     * Transitions are written into the states without locking: a reader sees either no transition,
+     * and builds it under the lock, or a fully built state, as states only have final fields.
+     */
+    private static final class Automaton {
+        private final int[] ops;
+        private final int[] xs;
+        private final int[] ys;
+        private final boolean[][] setClasses;
+        private final int[] classKinds;
+        private final int eot;
+        private final boolean longest;
+        private final Map<StateKey, State> states = new HashMap<>();
+        private final State[] starts = new State[3];
+
+        Automaton(Program program, boolean[][] setClasses, int[] classKinds, int eot, boolean longest) {
+            this.ops = Arrays.copyOf(program.ops, program.size);
+            this.xs = Arrays.copyOf(program.xs, program.size);
+            this.ys = Arrays.copyOf(program.ys, program.size);
+            this.setClasses = setClasses;
+            this.classKinds = classKinds;
+            this.eot = eot;
+            this.longest = longest;
+        }
+
+        State start(int prevKind) {
+            State start = starts[prevKind];
+            if (start != null) {
+                return start;
+            }
+            synchronized (this) {
+                if (starts[prevKind] == null) {
+                    starts[prevKind] = state(new int[]{0}, prevKind, false);
+                }
+                return starts[prevKind];
+            }
+        }
+
+        State next(State state, int cls) {
+            State next = state.next[cls];
+            return next != null ? next : step(state, cls);
+        }
+
+        private synchronized State step(State state, int cls) {
+            State known = state.next[cls];
+            if (known != null) {
+                return known;
+            }
+
+            // Follow the threads through jumps, splits and assertions, in priority order
+            int nextKind = classKinds[cls];
+            boolean[] visited = new boolean[ops.length];
+            int[] stack = new int[2 * ops.length + 1];
+            int[] waiting = new int[ops.length];
+            int waitingCount = 0;
+            boolean matched = false;
+            threads:
+            for (int thread : state.threads) {
+                int sp = 0;
+                stack[sp++] = thread;
+                while (sp > 0) {
+                    int pc = stack[--sp];
+                    if (visited[pc]) {
+                        continue;
+                    }
+                    visited[pc] = true;
+                    switch (ops[pc]) {
+                        case CLASS -> waiting[waitingCount++] = pc;
+                        case JUMP -> stack[sp++] = xs[pc];
+                        case SPLIT -> {
+                            stack[sp++] = ys[pc];
+                            stack[sp++] = xs[pc];
+                        }
+                        case ASSERT -> {
+                            if (holds(xs[pc], state.prevKind, nextKind)) {
+                                stack[sp++] = pc + 1;
+                            }
+                        }
+                        default -> {
+                            matched = true;
+                            if (!longest) {
+                                break threads; // Lower priority threads can no longer win
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Then let the waiting threads consume the character
+            int[] threads = new int[waitingCount];
+            int count = 0;
+            if (cls != eot) {
+                for (int i = 0; i < waitingCount; i++) {
+                    int pc = waiting[i];
+                    if (setClasses[xs[pc]][cls]) {
+                        threads[count++] = pc + 1;
+                    }
+                }
+            }
+            threads = Arrays.copyOf(threads, count);
+            if (longest) {
+                Arrays.sort(threads); // Order does not matter, so fewer states are distinct
+            }
+            State next = state(threads, classKinds[cls], matched);
+            state.next[cls] = next;
+            return next;
+        }
+
+        private State state(int[] threads, int prevKind, boolean matched) {
+            StateKey key = new StateKey(threads, prevKind, matched);
+            State state = states.get(key);
+            if (state == null) {
+                if (states.size() >= MAX_STATES) {
+                    // Start over; states already in use stay valid and are dropped once searches let go of them
+                    states.clear();
+                    Arrays.fill(starts, null);
+                }
+                state = new State(threads, prevKind, matched, eot + 1);
+                states.put(key, state);
+            }
+            return state;
+        }
+
+        private static boolean holds(int assertion, int prevKind, int nextKind) {
+            return switch (assertion) {
+                case BEGIN -> prevKind == NONE;
+                case END -> nextKind == NONE;
+                case WORD_BOUNDARY -> (prevKind == WORD) != (nextKind == WORD);
+                default -> (prevKind == WORD) == (nextKind == WORD);
+            };
+        }
+    }
+
+    private static final class State {
+        final int[] threads;   // Program counters waiting for the next character, highest priority first
+        final int prevKind;    // What the character before is, for the assertions
+        final boolean matched; // Whether a match ended just before the character that led here
+        final State[] next;    // Transitions by equivalence class, null until first taken
+
+        State(int[] threads, int prevKind, boolean matched, int classes) {
+            this.threads = threads;
+            this.prevKind = prevKind;
+            this.matched = matched;
+            this.next = new State[classes];
+        }
+    }
+
+    private record StateKey(int[] threads, int prevKind, boolean matched) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StateKey other && prevKind == other.prevKind && matched == other.matched
+                    && Arrays.equals(threads, other.threads);
+        }
+
+        @Override
+        public int hashCode() {
+            return (Arrays.hashCode(threads) * 31 + prevKind) * 2 + (matched ? 1 : 0);
+        }
+    }
+
+    /**
+     * A match found by the automaton. Its capturing groups are found by running java.util.regex over
+     * just the matched span, the first time one is asked for.
+     */
+    private static final class Match implements MatchResult {
+        private final CharSequence text;
+        private final Pattern pattern;
+        private Matcher groups;
+        private boolean resolved;
+        private int start;
+        private int end;
+
+        Match(CharSequence text, Pattern pattern) {
+            this.text = text;
+            this.pattern = pattern;
+        }
+
+        void set(int start, int end) {
+            this.start = start;
+            this.end = end;
+            this.resolved = false;
+        }
+
+        @Override
+        public int start() {
+            return start;
+        }
+
+        @Override
+        public int start(int group) {
+            return group == 0 ? start : groups().start(group);
+        }
+
+        @Override
+        public int end() {
+            return end;
+        }
+
+        @Override
+        public int end(int group) {
+            return group == 0 ? end : groups().end(group);
+        }
+
+        @Override
+        public String group() {
+            return text.subSequence(start, end).toString();
+        }
+
+        @Override
+        public String group(int group) {
+            return group == 0 ? group() : groups().group(group);
+        }
+
+        @Override
+        public int groupCount() {
+            return matcher().groupCount();
+        }
+
+        @Override
+        public Map<String, Integer> namedGroups() {
+            return pattern.namedGroups();
+        }
+
+        @Override
+        public boolean hasMatch() {
+            return true;
+        }
+
+        private Matcher groups() {
+            Matcher matcher = matcher();
+            if (!resolved) {
+                // The highest priority way to match from start is the one that ends at end
+                matcher.region(start, end);
+                if (!matcher.matches()) {
+                    throw new IllegalStateException("No match at " + start + "-" + end + " for " + pattern);
+                }
+                resolved = true;
+            }
+            return matcher;
+        }
+
+        private Matcher matcher() {
+            if (groups == null) {
+                groups = pattern.matcher(text);
+                groups.useTransparentBounds(true);
+                groups.useAnchoringBounds(false);
+            }
+            return groups;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.textprocessingtool;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The LiteralPrefilter class speeds up regex searches by first scanning for a literal that every match
+ * must contain, and running the regex only where that literal occurs.
+ * For String input the scan uses String.indexOf, which the JVM vectorises; other CharSequences
+ * are scanned with Boyer-Moore-Horspool.
+ */
+public class LiteralPrefilter {
+
+    // Literals shorter than this rarely skip enough text to pay for the extra bookkeeping
+    private static final int MIN_LITERAL_LENGTH = 2;
+    // Characters scanned between interrupt and budget checks when the text is an InterruptibleCharSequence
+    private static final int CHECK_BLOCK = 1 << 16;
+
+    private final String literal;
+    private final boolean prefix; // true: every match starts with the literal; false: some line contains it
+    private final int[] shift;    // Horspool shift table indexed by the low byte of a character
+
+    private LiteralPrefilter(String literal, boolean prefix) {
+        this.literal = literal;
+        this.prefix = prefix;
+        int m = literal.length();
+        this.shift = new int[256];
+        Arrays.fill(shift, m);
+        for (int i = 0; i < m - 1; i++) {
+            // Characters sharing a low byte end up with the smallest shift, which stays safe
+            shift[literal.charAt(i) & 0xFF] = m - 1 - i;
+        }
+    }
+
+    /**
+     * Builds a prefilter for the pattern if it has a usable required literal.
+     * A literal at the start of the pattern is used for any pattern; a literal elsewhere is used only
+     * when every match lies within one line, so the regex can be run on just the lines that contain it.
+     *
+     * @param pattern The regex pattern.
+     * @return The prefilter, or null if the pattern must be matched the normal way.
+     */
+    public static LiteralPrefilter forPattern(String pattern) {
+        if (PatternAnalyzer.withoutPreviousMatchAnchor(pattern) != null) {
+            // Moving the region to each hit puts \G there, so it would match where find() never reaches
+            return null;
+        }
+        String start = PatternAnalyzer.requiredPrefix(pattern);
+        String longest = PatternAnalyzer.longestRequiredLiteral(pattern);
+        boolean lineOriented = longest != null && longest.indexOf('\n') < 0 && PatternAnalyzer.isLineOriented(pattern);
+
+        if (start != null && start.length() >= MIN_LITERAL_LENGTH
+                && (!lineOriented || start.length() >= longest.length())) {
+            return new LiteralPrefilter(start, true);
+        }
+        if (lineOriented && longest.length() >= MIN_LITERAL_LENGTH) {
+            return new LiteralPrefilter(longest, false);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the literal this prefilter scans for.
+     *
+     * @return The literal.
+     */
+    public String getLiteral() {
+        return literal;
+    }
+
+    /**
+     * Finds matches of the compiled pattern in the text, visiting only the places where the literal occurs.
+     * The matcher passed to the action is positioned on the current match and must not be kept.
+     *
+     * @param text    The text to search.
+     * @param pattern The compiled form of the pattern this prefilter was built for.
+     * @param limit   The maximum number of matches to report.
+     * @param action  The callback receiving each match, in text order.
+     * @return The number of matches reported.
+     */
+    public int find(CharSequence text, Pattern pattern, int limit, Consumer<Matcher> action) {
+        Matcher matcher = pattern.matcher(text);
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        int length = text.length();
+        int count = 0;
+
+        // The literal scan reads the raw text in blocks and counts each block's reads, so it still
+        // stops when the thread is interrupted or the budget is used up
+        InterruptibleCharSequence guard = text instanceof InterruptibleCharSequence wrapped ? wrapped : null;
+        CharSequence raw = text;
+        while (raw instanceof InterruptibleCharSequence wrapped) {
+            raw = wrapped.getDelegate();
+        }
+
+        if (prefix) {
+            // A match can only start where the literal starts
+            int hit = indexOf(raw, 0, guard);
+            while (hit >= 0 && count < limit) {
+                matcher.region(hit, length);
+                if (matcher.lookingAt()) {
+                    action.accept(matcher);
+                    count++;
+                    hit = indexOf(raw, matcher.end(), guard);
+                } else {
+                    hit = indexOf(raw, hit + 1, guard);
+                }
+            }
+            return count;
+        }
+
+        // Every match lies within one line, so only lines containing the literal need the regex
+        int hit = indexOf(raw, 0, guard);
+        while (hit >= 0 && count < limit) {
+            int lineStart = hit;
+            while (lineStart > 0 && raw.charAt(lineStart - 1) != '\n') {
+                lineStart--;
+            }
+            int lineEnd = hit + literal.length();
+            while (lineEnd < length && raw.charAt(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (guard != null) {
+                guard.countReads(lineEnd, lineEnd - lineStart);
+            }
+            matcher.region(lineStart, lineEnd);
+            while (count < limit && matcher.find()) {
+                action.accept(matcher);
+                count++;
+            }
+            hit = lineEnd < length ? indexOf(raw, lineEnd + 1, guard) : -1;
+        }
+        return count;
+    }
+
+    // Returns the next occurrence of the literal at or after from, or -1.
+    // With a guard the text is searched one CHECK_BLOCK at a time, counting each block on the guard.
+    private int indexOf(CharSequence text, int from, InterruptibleCharSequence guard) {
+        int length = text.length();
+        if (guard == null) {
+            return indexOf(text, from, length);
+        }
+        while (from < length) {
+            // Blocks overlap by the literal's length less one, so no occurrence falls between two
+            int end = (int) Math.min(length, (long) from + CHECK_BLOCK + literal.length() - 1);
+            int hit = indexOf(text, from, end);
+            guard.countReads(hit >= 0 ? hit : end, (hit >= 0 ? hit : end) - from);
+            if (hit >= 0 || end == length) {
+                return hit;
+            }
+            from += CHECK_BLOCK;
+        }
+        return -1;
+    }
+
+    // Returns the first occurrence of the literal that lies within [from, end), or -1
+    private int indexOf(CharSequence text, int from, int end) {
+        if (text instanceof String string) {
+            return string.indexOf(literal, from, end);
+        }
+        int m = literal.length();
+        char last = literal.charAt(m - 1);
+        int i = from + m - 1;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == last) {
+                int j = m - 2;
+                int k = i - 1;
+                while (j >= 0 && text.charAt(k) == literal.charAt(j)) {
+                    j--;
+                    k--;
+                }
+                if (j < 0) {
+                    return k + 1;
+                }
+            }
+            i += shift[c & 0xFF];
+        }
+        return -1;
+    }
+}
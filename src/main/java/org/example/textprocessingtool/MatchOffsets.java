@@ -0,0 +1,223 @@
+package org.example.textprocessingtool;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.regex.MatchResult;
+
+/**
+ * The MatchOffsets class stores regex matches as start and end offsets into the original text,
+ * packed into one growable int array, instead of as one String per match.
+ * Optionally the offsets of every capturing group are stored too.
+ * Substrings are only created when a caller asks for a match's text.
+ */
+public class MatchOffsets {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final CharSequence text;
+    private final int groupCount; // Capturing groups stored per match, 0 if only whole matches are kept
+    private final int stride;     // Ints per match: start and end of the match and of each stored group
+    private int[] offsets;
+    private int size;
+
+    /**
+     * Constructor to initialize an empty result over the given text.
+     *
+     * @param text       The text the offsets refer to.
+     * @param groupCount The number of capturing groups to store per match, or 0.
+     */
+    public MatchOffsets(CharSequence text, int groupCount) {
+        this(text, groupCount, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor to initialize an empty result with room for the given number of matches.
+     *
+     * @param text            The text the offsets refer to.
+     * @param groupCount      The number of capturing groups to store per match, or 0.
+     * @param initialCapacity The number of matches to make room for up front.
+     */
+    public MatchOffsets(CharSequence text, int groupCount, int initialCapacity) {
+        this.text = text;
+        this.groupCount = groupCount;
+        this.stride = 2 * (groupCount + 1);
+        this.offsets = new int[Math.max(1, initialCapacity) * stride];
+    }
+
+    /**
+     * Records the current match of a matcher, including its stored groups.
+     *
+     * @param match The match to record, for example a Matcher positioned on a match.
+     */
+    public void add(MatchResult match) {
+        int base = reserve();
+        offsets[base] = match.start();
+        offsets[base + 1] = match.end();
+        for (int g = 1; g <= groupCount; g++) {
+            offsets[base + 2 * g] = match.start(g);
+            offsets[base + 2 * g + 1] = match.end(g);
+        }
+    }
+
+    /**
+     * Records a match by its offsets. Stored groups are marked as not participating.
+     *
+     * @param start The start offset of the match.
+     * @param end   The end offset of the match.
+     */
+    public void add(int start, int end) {
+        int base = reserve();
+        offsets[base] = start;
+        offsets[base + 1] = end;
+        Arrays.fill(offsets, base + 2, base + stride, -1);
+    }
+
+    /**
+     * Gets the number of matches recorded.
+     *
+     * @return The number of matches.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether no match was recorded.
+     *
+     * @return true if there are no matches, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the text the offsets refer to.
+     *
+     * @return The original text.
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * Gets the number of capturing groups stored per match.
+     *
+     * @return The stored group count.
+     */
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Gets the start offset of a match.
+     *
+     * @param index The index of the match.
+     * @return The start offset.
+     */
+    public int start(int index) {
+        return offsets[checkIndex(index) * stride];
+    }
+
+    /**
+     * Gets the end offset of a match.
+     *
+     * @param index The index of the match.
+     * @return The end offset (exclusive).
+     */
+    public int end(int index) {
+        return offsets[checkIndex(index) * stride + 1];
+    }
+
+    /**
+     * Gets the start offset of a capturing group of a match.
+     *
+     * @param index The index of the match.
+     * @param group The group number; 0 is the whole match.
+     * @return The start offset, or -1 if the group did not take part in the match.
+     */
+    public int start(int index, int group) {
+        return offsets[checkIndex(index) * stride + 2 * checkGroup(group)];
+    }
+
+    /**
+     * Gets the end offset of a capturing group of a match.
+     *
+     * @param index The index of the match.
+     * @param group The group number; 0 is the whole match.
+     * @return The end offset, or -1 if the group did not take part in the match.
+     */
+    public int end(int index, int group) {
+        return offsets[checkIndex(index) * stride + 2 * checkGroup(group) + 1];
+    }
+
+    /**
+     * Creates the matched text of a match.
+     *
+     * @param index The index of the match.
+     * @return The matched text.
+     */
+    public String group(int index) {
+        return text.subSequence(start(index), end(index)).toString();
+    }
+
+    /**
+     * Creates the text of a capturing group of a match.
+     *
+     * @param index The index of the match.
+     * @param group The group number; 0 is the whole match.
+     * @return The group's text, or null if the group did not take part in the match.
+     */
+    public String group(int index, int group) {
+        int start = start(index, group);
+        return start < 0 ? null : text.subSequence(start, end(index, group)).toString();
+    }
+
+    /**
+     * Returns a read-only list view of the matched texts. Each element is created when it is read.
+     *
+     * @return A list of matched strings backed by these offsets.
+     */
+    public List<String> asList() {
+        return new MatchList();
+    }
+
+    private int reserve() {
+        int base = size * stride;
+        if (base + stride > offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, base + stride));
+        }
+        size++;
+        return base;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Match " + index + " out of " + size);
+        }
+        return index;
+    }
+
+    private int checkGroup(int group) {
+        if (group < 0 || group > groupCount) {
+            throw new IndexOutOfBoundsException("No stored group " + group);
+        }
+        return group;
+    }
+
+    /**
+     * List view creating each matched string on demand.
+     */
+    private class MatchList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            return group(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.textprocessingtool;
+
+import javafx.collections.ObservableListBase;
+
+import java.io.IOException;
+
+/**
+ * The MatchResultList class is a read-only ObservableList of matched strings, backed by MatchOffsets.
+ * Only offsets are stored; a ListView asks for the rows it actually shows, and each string
+ * is created when it is read. Millions of matches therefore cost two ints each rather than one String each.
+ * The list must only be used from the JavaFX application thread.
+ */
+public class MatchResultList extends ObservableListBase<String> {
+
+    private MatchOffsets offsets = new MatchOffsets("", 0, 1);
+
+    /**
+     * Constructor to initialize an empty list.
+     */
+    public MatchResultList() {
+    }
+
+    /**
+     * Removes all matches and starts a new result over the given text.
+     *
+     * @param text The text the following matches will refer to.
+     */
+    public void reset(CharSequence text) {
+        MatchOffsets removed = offsets;
+        offsets = new MatchOffsets(text, 0);
+        if (!removed.isEmpty()) {
+            beginChange();
+            nextRemove(0, removed.asList());
+            endChange();
+        }
+    }
+
+    /**
+     * Appends a batch of matches, firing a single change for the whole batch.
+     * The batch must refer to the text passed to the last reset.
+     *
+     * @param batch The matches to append.
+     */
+    public void append(MatchOffsets batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int from = size();
+        for (int i = 0; i < batch.size(); i++) {
+            offsets.add(batch.start(i), batch.end(i));
+        }
+        beginChange();
+        nextAdd(from, size());
+        endChange();
+    }
+
+    @Override
+    public String get(int index) {
+        return offsets.group(index);
+    }
+
+    @Override
+    public int size() {
+        return offsets.size();
+    }
+
+    /**
+     * Removes all matches, keeping the current text.
+     */
+    @Override
+    public void clear() {
+        reset(offsets.getText());
+    }
+
+    /**
+     * Computes the number of characters writeTo produces, without creating any string.
+     *
+     * @param separator The separator written between matches.
+     * @return The total length of all matches and separators.
+     */
+    public long textLength(String separator) {
+        long length = size() == 0 ? 0 : (long) (size() - 1) * separator.length();
+        for (int i = 0; i < size(); i++) {
+            length += offsets.end(i) - offsets.start(i);
+        }
+        return length;
+    }
+
+    /**
+     * Joins all matches into one string, using a single buffer sized up front and filled straight from the offsets.
+     *
+     * @param separator The separator placed between matches.
+     * @return The joined matches.
+     * @throws IllegalStateException If the result is too large for one string.
+     */
+    public String join(String separator) {
+        long length = textLength(separator);
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("The result has " + length + " characters, too many for one string");
+        }
+        StringBuilder builder = new StringBuilder((int) length);
+        CharSequence text = offsets.getText();
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                builder.append(separator);
+            }
+            builder.append(text, offsets.start(i), offsets.end(i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes all matches to the output, separated by the separator, copying each match
+     * straight from the original text instead of creating a String for it.
+     *
+     * @param out       The destination, for example a buffered file writer.
+     * @param separator The separator written between matches.
+     * @throws IOException If writing to the output fails.
+     */
+    public void writeTo(Appendable out, String separator) throws IOException {
+        CharSequence text = offsets.getText();
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                out.append(separator);
+            }
+            out.append(text, offsets.start(i), offsets.end(i));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.textprocessingtool;
+
+/**
+ * The MatchTooLongException class signals that a streaming search or replace met a match that may be
+ * longer than its maxMatchLength. The window cannot hold such a match whole, and reporting only the part
+ * that fits would search or rewrite the wrong text, so the operation is aborted instead.
+ * It is unchecked so it can leave the lazy match streams of StreamingSearcher unchanged.
+ */
+public class MatchTooLongException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long charOffset;
+    private final int maxMatchLength;
+
+    /**
+     * Constructor to initialize the exception with the position of the match that did not fit.
+     *
+     * @param charOffset     The offset of the first character of the match from the start of the input.
+     * @param maxMatchLength The longest match, in characters, the search could hold.
+     */
+    public MatchTooLongException(long charOffset, int maxMatchLength) {
+        super("A match starting at character " + charOffset + " may be longer than the limit of "
+                + maxMatchLength + " characters");
+        this.charOffset = charOffset;
+        this.maxMatchLength = maxMatchLength;
+    }
+
+    /**
+     * Gets the offset of the first character of the match that did not fit.
+     *
+     * @return The character offset from the start of the input.
+     */
+    public long getCharOffset() {
+        return charOffset;
+    }
+
+    /**
+     * Gets the longest match, in characters, the search could hold.
+     *
+     * @return The maximum match length.
+     */
+    public int getMaxMatchLength() {
+        return maxMatchLength;
+    }
+}
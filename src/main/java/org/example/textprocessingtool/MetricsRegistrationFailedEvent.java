@@ -0,0 +1,40 @@
+package org.example.textprocessingtool;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The MetricsRegistrationFailedEvent class is the Flight Recorder event for metrics
+ * that could not be published over JMX, so no JMX client will see them.
+ */
+@Name("org.example.textprocessingtool.MetricsRegistrationFailed")
+@Label("Metrics Registration Failed")
+@Category({"Text Processing Tool", "Metrics"})
+@Description("An MXBean that could not be registered on the platform MBean server")
+@StackTrace(false)
+class MetricsRegistrationFailedEvent extends jdk.jfr.Event {
+
+    @Label("Object Name")
+    String objectName;
+
+    @Label("Reason")
+    String reason;
+
+    /**
+     * Commits a failed registration, if the event is enabled.
+     *
+     * @param objectName The object name the MXBean was to be registered under.
+     * @param reason     Why the registration failed.
+     */
+    static void emit(String objectName, String reason) {
+        MetricsRegistrationFailedEvent event = new MetricsRegistrationFailedEvent();
+        if (event.isEnabled()) {
+            event.objectName = objectName;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+}
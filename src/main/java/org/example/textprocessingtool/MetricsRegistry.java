@@ -0,0 +1,77 @@
+package org.example.textprocessingtool;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The MetricsRegistry class publishes metrics as MXBeans on the platform MBean server,
+ * under the domain "org.example.textprocessingtool", where JConsole, VisualVM or any JMX client can read them.
+ * Registration failures are recorded, both in the registry and as a MetricsRegistrationFailed Flight Recorder event,
+ * and otherwise ignored: the application runs the same without JMX.
+ */
+public class MetricsRegistry implements AutoCloseable {
+
+    /** JMX domain of every registered MXBean. */
+    public static final String DOMAIN = "org.example.textprocessingtool";
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+
+    /**
+     * Constructor to initialize a registry using the platform MBean server.
+     */
+    public MetricsRegistry() {
+    }
+
+    /**
+     * Registers an MXBean under DOMAIN:type=TYPE, with ",name=NAME" added if a name is given.
+     *
+     * @param type   The type key, such as "RegexMetrics".
+     * @param name   The name key, to tell apart several beans of one type, or null.
+     * @param mxbean The object implementing an MXBean interface.
+     * @return true if the MXBean was registered, false if the failure was recorded instead.
+     */
+    public boolean register(String type, String name, Object mxbean) {
+        String objectName = DOMAIN + ":type=" + type + (name != null ? ",name=" + name : "");
+        try {
+            ObjectName registeredName = new ObjectName(objectName);
+            server.registerMBean(mxbean, registeredName);
+            registered.add(registeredName);
+            return true;
+        } catch (JMException e) {
+            failures.add(objectName + ": " + e);
+            MetricsRegistrationFailedEvent.emit(objectName, e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Gets the registrations that failed, each as the object name followed by the reason.
+     *
+     * @return The failed registrations, in the order they were attempted.
+     */
+    public List<String> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Unregisters every MXBean registered through this registry.
+     */
+    @Override
+    public void close() {
+        for (ObjectName objectName : registered) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // Already gone; nothing to clean up
+            }
+        }
+        registered.clear();
+    }
+}
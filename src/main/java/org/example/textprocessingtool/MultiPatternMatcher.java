@@ -0,0 +1,162 @@
+package org.example.textprocessingtool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The MultiPatternMatcher class reports the matches of many named patterns in one pass over the text.
+ * Every pattern whose possible first characters are known is put in a dispatch table indexed by character,
+ * so at each position only the patterns that can start there are tried.
+ * Patterns that could start anywhere, or match the empty string, are run with their own find() loop.
+ * Each pattern's matches are exactly those Matcher.find() would report for it alone.
+ */
+public class MultiPatternMatcher {
+
+    private static final int NON_ASCII = 128;
+
+    private final String[] names;
+    private final Pattern[] patterns;
+    private final int[][] candidates;   // Dispatchable pattern indices per ASCII char, plus one row for non-ASCII
+    private final int[] findPatterns;   // Pattern indices that need a regular find() loop
+
+    /**
+     * Constructor to initialize a MultiPatternMatcher using the shared PatternCache.
+     *
+     * @param namedPatterns The patterns to match, keyed by name, in reporting order.
+     */
+    public MultiPatternMatcher(Map<String, String> namedPatterns) {
+        this(PatternCache.shared(), namedPatterns);
+    }
+
+    /**
+     * Constructor to initialize a MultiPatternMatcher compiling through the given PatternCache.
+     *
+     * @param patternCache  The cache used to look up compiled patterns.
+     * @param namedPatterns The patterns to match, keyed by name, in reporting order.
+     */
+    public MultiPatternMatcher(PatternCache patternCache, Map<String, String> namedPatterns) {
+        int count = namedPatterns.size();
+        names = new String[count];
+        patterns = new Pattern[count];
+
+        List<List<Integer>> table = new ArrayList<>();
+        for (int c = 0; c <= NON_ASCII; c++) {
+            table.add(new ArrayList<>());
+        }
+        List<Integer> fallback = new ArrayList<>();
+
+        int index = 0;
+        for (Map.Entry<String, String> entry : namedPatterns.entrySet()) {
+            names[index] = entry.getKey();
+            patterns[index] = patternCache.compile(entry.getValue());
+            boolean[] first = PatternAnalyzer.firstChars(entry.getValue());
+            if (first == null) {
+                fallback.add(index);
+            } else {
+                for (int c = 0; c <= NON_ASCII; c++) {
+                    if (first[c]) {
+                        table.get(c).add(index);
+                    }
+                }
+            }
+            index++;
+        }
+
+        candidates = new int[NON_ASCII + 1][];
+        for (int c = 0; c <= NON_ASCII; c++) {
+            candidates[c] = table.get(c).stream().mapToInt(Integer::intValue).toArray();
+        }
+        findPatterns = fallback.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Gets the pattern names, in reporting order.
+     *
+     * @return The list of names.
+     */
+    public List<String> getNames() {
+        return List.of(names);
+    }
+
+    /**
+     * Finds the matches of every pattern in the text.
+     *
+     * @param text The text to scan.
+     * @return A map from pattern name to that pattern's matched strings, in the constructor's order.
+     */
+    public Map<String, List<String>> matchAll(CharSequence text) {
+        List<List<String>> perPattern = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            perPattern.add(new ArrayList<>());
+        }
+        scan(text, (pattern, start, end) -> perPattern.get(pattern).add(text.subSequence(start, end).toString()));
+
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], perPattern.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Scans the text once and reports every match of every pattern to the listener.
+     * Matches of one pattern arrive in text order; matches of different patterns may interleave.
+     *
+     * @param text     The text to scan.
+     * @param listener The callback receiving each match.
+     */
+    public void scan(CharSequence text, MatchListener listener) {
+        int length = text.length();
+        Matcher[] matchers = new Matcher[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            matchers[i] = patterns[i].matcher(text);
+            matchers[i].useTransparentBounds(true);
+            matchers[i].useAnchoringBounds(false);
+        }
+
+        // Dispatched patterns: try only the ones that can start with the current character
+        int[] nextAllowed = new int[patterns.length];
+        for (int pos = 0; pos < length; pos++) {
+            char c = text.charAt(pos);
+            for (int pattern : candidates[Math.min(c, NON_ASCII)]) {
+                if (nextAllowed[pattern] > pos) {
+                    continue;
+                }
+                Matcher matcher = matchers[pattern];
+                matcher.region(pos, length);
+                if (matcher.lookingAt()) {
+                    // Dispatched patterns always consume their first character, so end > pos
+                    nextAllowed[pattern] = matcher.end();
+                    listener.onMatch(pattern, pos, matcher.end());
+                }
+            }
+        }
+
+        for (int pattern : findPatterns) {
+            Matcher matcher = matchers[pattern];
+            matcher.reset();
+            while (matcher.find()) {
+                listener.onMatch(pattern, matcher.start(), matcher.end());
+            }
+        }
+    }
+
+    /**
+     * Receives matches found by {@link #scan(CharSequence, MatchListener)}.
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+        /**
+         * Called for each match.
+         *
+         * @param pattern The index of the pattern, in the constructor's order.
+         * @param start   The start offset of the match.
+         * @param end     The end offset of the match.
+         */
+        void onMatch(int pattern, int start, int end);
+    }
+}
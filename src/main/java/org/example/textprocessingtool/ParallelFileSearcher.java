@@ -0,0 +1,272 @@
+package org.example.textprocessingtool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The ParallelFileSearcher class searches large UTF-8 files on several cores at once.
+ * The file is memory-mapped and cut at line boundaries into segments, each segment is scanned
+ * on a ForkJoinPool, and the matches are merged back in file order.
+ * Patterns that may match across lines are searched sequentially with a StreamingSearcher instead.
+ */
+public class ParallelFileSearcher implements AutoCloseable {
+
+    // Segment size bounds in bytes; each segment is decoded on its own, so this also caps per-task memory
+    private static final long MIN_SEGMENT_SIZE = 1L << 20;
+    private static final long MAX_SEGMENT_SIZE = 64L << 20;
+
+    // Number of segments handed to each worker, so uneven segments still balance out
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    private static final int NEWLINE_SCAN_BUFFER = 8 * 1024;
+
+    private final PatternCache patternCache;
+    private final ForkJoinPool pool;
+    private final long minSegmentSize;
+    private final StreamingSearcher sequentialSearcher;
+
+    /**
+     * Constructor to initialize a ParallelFileSearcher using one thread per available processor.
+     */
+    public ParallelFileSearcher() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor to initialize a ParallelFileSearcher with the given parallelism level.
+     *
+     * @param parallelism The number of worker threads used to scan segments.
+     */
+    public ParallelFileSearcher(int parallelism) {
+        this(PatternCache.shared(), parallelism);
+    }
+
+    /**
+     * Constructor to initialize a ParallelFileSearcher with the given cache and parallelism level.
+     *
+     * @param patternCache The cache used to look up compiled patterns.
+     * @param parallelism  The number of worker threads used to scan segments.
+     */
+    public ParallelFileSearcher(PatternCache patternCache, int parallelism) {
+        this(patternCache, parallelism, MIN_SEGMENT_SIZE);
+    }
+
+    // Lets tests cut small files into many segments
+    ParallelFileSearcher(PatternCache patternCache, int parallelism, long minSegmentSize) {
+        this.patternCache = patternCache;
+        this.pool = new ForkJoinPool(parallelism);
+        this.minSegmentSize = minSegmentSize;
+        this.sequentialSearcher = new StreamingSearcher(patternCache,
+                StreamingSearcher.DEFAULT_CHUNK_SIZE, StreamingSearcher.DEFAULT_MAX_MATCH_LENGTH);
+    }
+
+    /**
+     * Gets the number of worker threads used to scan segments.
+     *
+     * @return The parallelism level.
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Searches a UTF-8 file for all matches of the pattern.
+     * Line-oriented patterns are searched in parallel; other patterns fall back to a sequential scan.
+     *
+     * @param file    The file to search.
+     * @param pattern The regex pattern to match.
+     * @return The matches, in file order.
+     * @throws IOException If the file cannot be read.
+     */
+    public List<StreamingSearcher.Match> search(Path file, String pattern) throws IOException {
+        Pattern compiled = patternCache.compile(pattern);
+        if (!PatternAnalyzer.isLineOriented(pattern)) {
+            List<StreamingSearcher.Match> matches = new ArrayList<>();
+            sequentialSearcher.search(file, pattern, matches::add);
+            return matches;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<SegmentTask> tasks = new ArrayList<>();
+            long[] bounds = splitAtLines(channel);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                tasks.add(new SegmentTask(channel, compiled, bounds[i], bounds[i + 1], i + 2 == bounds.length));
+            }
+            try {
+                pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return merge(tasks);
+        }
+    }
+
+    /**
+     * Shuts down the worker threads.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // Cuts the file into segments that each start right after a '\n'
+    private long[] splitAtLines(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = size / ((long) pool.getParallelism() * SEGMENTS_PER_THREAD);
+        long segmentSize = Math.max(minSegmentSize, Math.min(MAX_SEGMENT_SIZE, target));
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer scan = ByteBuffer.allocate(NEWLINE_SCAN_BUFFER);
+        long start = 0;
+        while (start < size) {
+            long end = nextLineStart(channel, Math.min(size, start + segmentSize), size, scan);
+            bounds.add(end);
+            start = end;
+        }
+        if (bounds.size() == 1) {
+            bounds.add(0L); // Empty file: one empty segment
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Returns the position just after the first '\n' at or after from, or size if there is none
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    // Turns segment-relative results into file-wide offsets and line numbers
+    private static List<StreamingSearcher.Match> merge(List<SegmentTask> tasks) {
+        int total = 0;
+        for (SegmentTask task : tasks) {
+            total += task.getRawResult().size();
+        }
+        List<StreamingSearcher.Match> matches = new ArrayList<>(total);
+        long charBase = 0;
+        long lineBase = 0;
+        for (SegmentTask task : tasks) {
+            for (StreamingSearcher.Match local : task.getRawResult()) {
+                matches.add(new StreamingSearcher.Match(local.text(), charBase + local.charOffset(),
+                        task.start + local.byteOffset(), lineBase + local.lineNumber()));
+            }
+            charBase += task.charCount;
+            lineBase += task.lineCount;
+        }
+        return matches;
+    }
+
+    /**
+     * Scans one line-aligned segment of the mapped file.
+     * Offsets and line numbers in the result are relative to the segment until merged.
+     */
+    private static class SegmentTask extends RecursiveTask<List<StreamingSearcher.Match>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel; // Tasks are never serialized
+        private final Pattern pattern;
+        private final long start;
+        private final long end;
+        private final boolean last;
+
+        private long charCount;
+        private long lineCount;
+
+        SegmentTask(FileChannel channel, Pattern pattern, long start, long end, boolean last) {
+            this.channel = channel;
+            this.pattern = pattern;
+            this.start = start;
+            this.end = end;
+            this.last = last;
+        }
+
+        @Override
+        protected List<StreamingSearcher.Match> compute() {
+            CharBuffer chars;
+            try {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                chars = decoder.decode(mapped);
+            } catch (CharacterCodingException e) {
+                throw new IllegalStateException("Decoder failed despite REPLACE actions", e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            List<StreamingSearcher.Match> matches = new ArrayList<>();
+            Matcher matcher = pattern.matcher(chars);
+            int length = chars.length();
+            int counted = 0;
+            long bytes = 0;
+            long line = 1;
+            while (matcher.find()) {
+                int matchStart = matcher.start();
+                if (matchStart == length && !last) {
+                    // An empty match at the segment end belongs to the next segment
+                    break;
+                }
+                for (; counted < matchStart; counted++) {
+                    char c = chars.get(counted);
+                    if (c == '\n') {
+                        line++;
+                    }
+                    bytes += utf8Length(c);
+                }
+                matches.add(new StreamingSearcher.Match(matcher.group(), matchStart, bytes, line));
+            }
+            for (; counted < length; counted++) {
+                if (chars.get(counted) == '\n') {
+                    line++;
+                }
+            }
+            charCount = length;
+            lineCount = line - 1;
+            return matches;
+        }
+
+        private static int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            } else if (c < 0x800) {
+                return 2;
+            } else if (Character.isHighSurrogate(c)) {
+                return 4;
+            } else if (Character.isLowSurrogate(c)) {
+                return 0;
+            }
+            return 3;
+        }
+    }
+}
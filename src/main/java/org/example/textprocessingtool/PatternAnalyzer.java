@@ -0,0 +1,870 @@
+package org.example.textprocessingtool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The PatternAnalyzer class inspects regex pattern strings without compiling them,
+ * so search engines can decide which execution strategy is safe for a pattern.
+ * The checks are conservative: when in doubt, a pattern is reported as unsafe.
+ */
+public class PatternAnalyzer {
+
+    // Utility class, no instances
+    private PatternAnalyzer() {
+    }
+
+    /**
+     * Checks whether every match of the pattern is guaranteed to lie within a single line,
+     * and whether the pattern behaves the same when the input is cut at line starts.
+     * Such patterns can be evaluated on line-aligned segments independently.
+     *
+     * @param pattern The regex pattern to inspect.
+     * @return true if the pattern can never match or look across a '\n', false otherwise.
+     */
+    public static boolean isLineOriented(String pattern) {
+        boolean multiline = startsWithFlag(pattern, 'm');
+        int classDepth = 0;  // Nesting depth of character classes at i
+        int classLow = -1;   // The single character before i in a class, -2 after an escape, -1 otherwise
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\n') {
+                return false;
+            }
+            if (c == '\\') {
+                if (i + 1 >= pattern.length()) {
+                    return false;
+                }
+                char next = pattern.charAt(++i);
+                classLow = -2;
+                if (next == 'Q') {
+                    // Quoted literal: only a literal newline inside it can match across lines
+                    int end = pattern.indexOf("\\E", i + 1);
+                    String quoted = end < 0 ? pattern.substring(i + 1) : pattern.substring(i + 1, end);
+                    if (quoted.indexOf('\n') >= 0) {
+                        return false;
+                    }
+                    i = end < 0 ? pattern.length() : end + 1;
+                    continue;
+                }
+                // Escapes that can match a line terminator or anchor to the whole input
+                if ("nsRvWDHxu0cpPXNAZzG".indexOf(next) >= 0) {
+                    return false;
+                }
+                continue;
+            }
+            if (classDepth > 0) {
+                if (c == '-' && classLow != -1 && i + 1 < pattern.length() && pattern.charAt(i + 1) != ']') {
+                    // A range such as [\t-~] matches '\n' if it lies between the ends; escaped ends are not evaluated
+                    char high = pattern.charAt(i + 1);
+                    if (classLow == -2 || high == '\\' || high == '[' || (classLow <= '\n' && high >= '\n')) {
+                        return false;
+                    }
+                    i++;
+                    classLow = -1;
+                    continue;
+                }
+                classLow = c;
+                if (c == '[') {
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '^') {
+                        return false;
+                    }
+                    classDepth++;
+                    classLow = -1;
+                } else if (c == ']') {
+                    classDepth--;
+                    classLow = -1;
+                }
+                continue;
+            }
+            switch (c) {
+                case '[' -> {
+                    // A negated class such as [^a] also matches '\n'
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '^') {
+                        return false;
+                    }
+                    classDepth = 1;
+                    classLow = -1;
+                    // A ']' right after '[' is a literal, not the end of the class
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == ']') {
+                        i++;
+                        classLow = ']';
+                    }
+                }
+                case '(' -> {
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '?' && hasInlineFlag(pattern, i + 2, 's')) {
+                        return false;
+                    }
+                }
+                case '^', '$' -> {
+                    if (!multiline) {
+                        return false;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the set of characters a match of the pattern can start with.
+     * The result has 129 entries: one per ASCII character, and a last entry that stands for
+     * every non-ASCII character. Patterns whose first character cannot be determined,
+     * for example because they may match the empty string, yield null.
+     *
+     * @param pattern The regex pattern to inspect.
+     * @return The possible first characters, or null if unknown.
+     */
+    public static boolean[] firstChars(String pattern) {
+        if (hasMeaningChangingFlag(pattern)) {
+            return null;
+        }
+        FirstCharParser parser = new FirstCharParser(pattern);
+        boolean[] set = parser.alternation();
+        return parser.pos == pattern.length() ? set : null;
+    }
+
+    /**
+     * Finds a literal that every match of the pattern must start with, such as "ERROR" in "ERROR\\s+\\d+".
+     * Leading zero-width assertions like \\b are allowed before the literal.
+     *
+     * @param pattern The regex pattern to inspect.
+     * @return The required prefix, or null if the pattern has none.
+     */
+    public static String requiredPrefix(String pattern) {
+        List<String> runs = literalRuns(pattern);
+        return runs == null ? null : runs.get(0);
+    }
+
+    /**
+     * Finds the longest literal that every match of the pattern must contain somewhere,
+     * such as "customer_id=" in "\\w+ customer_id=\\w+".
+     *
+     * @param pattern The regex pattern to inspect.
+     * @return The longest required literal, or null if the pattern has none.
+     */
+    public static String longestRequiredLiteral(String pattern) {
+        List<String> runs = literalRuns(pattern);
+        if (runs == null) {
+            return null;
+        }
+        String longest = null;
+        for (String run : runs) {
+            if (run != null && (longest == null || run.length() > longest.length())) {
+                longest = run;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Checks whether the pattern repeats a group that itself contains an unbounded quantifier,
+     * as in (a+)+ or (\\w*\\s?)*. Such patterns can take exponential time on input that almost matches.
+     * Possessive quantifiers and atomic groups cannot backtrack, so they are not reported.
+     *
+     * @param pattern The regex pattern to inspect.
+     * @return true if the pattern has a nested unbounded quantifier, false otherwise.
+     */
+    public static boolean hasNestedQuantifier(String pattern) {
+        // One entry per open group: whether it contains an unbounded quantifier, and whether it is atomic
+        List<boolean[]> groups = new ArrayList<>();
+        groups.add(new boolean[2]);
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            boolean[] closed = null;
+            if (c == '\\') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == 'Q') {
+                    int quoteEnd = pattern.indexOf("\\E", i + 2);
+                    i = quoteEnd < 0 ? pattern.length() : quoteEnd + 2;
+                } else {
+                    i += 2;
+                }
+            } else if (c == '[') {
+                i = skipClass(pattern, i);
+                if (i < 0) {
+                    return false;
+                }
+            } else if (c == '(') {
+                groups.add(new boolean[]{false, pattern.startsWith("(?>", i)});
+                i++;
+                continue;
+            } else if (c == ')' && groups.size() > 1) {
+                closed = groups.remove(groups.size() - 1);
+                i++;
+            } else {
+                i++;
+            }
+
+            // i is now just past an atom; look at the quantifier following it
+            int end = quantifierEnd(pattern, i);
+            boolean unbounded = isBacktrackingUnbounded(pattern, i, end);
+            boolean[] current = groups.get(groups.size() - 1);
+            if (closed != null) {
+                if (unbounded && closed[0] && !closed[1]) {
+                    return true;
+                }
+                current[0] |= closed[0];
+            }
+            current[0] |= unbounded;
+            i = end;
+        }
+        return false;
+    }
+
+    /**
+     * Rewrites the pattern so that \\G, the end of the previous match, can never match.
+     * A search that resumes anywhere but the end of the previous match uses this form,
+     * because java.util.regex puts \\G at the start of the search region after a reset.
+     *
+     * @param pattern The regex pattern to rewrite.
+     * @return The pattern with every \\G replaced by a failing assertion, or null if it has no \\G.
+     */
+    public static String withoutPreviousMatchAnchor(String pattern) {
+        StringBuilder rewritten = new StringBuilder(pattern.length());
+        boolean found = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c != '\\' || i + 1 >= pattern.length()) {
+                rewritten.append(c);
+                i++;
+                continue;
+            }
+            char next = pattern.charAt(i + 1);
+            if (next == 'Q') {
+                // Quoted text is copied unchanged, \G inside it is a literal
+                int quoteEnd = pattern.indexOf("\\E", i + 2);
+                int end = quoteEnd < 0 ? pattern.length() : quoteEnd + 2;
+                rewritten.append(pattern, i, end);
+                i = end;
+            } else if (next == 'G') {
+                rewritten.append("(?!)");
+                found = true;
+                i += 2;
+            } else {
+                rewritten.append(c).append(next);
+                i += 2;
+            }
+        }
+        return found ? rewritten.toString() : null;
+    }
+
+    // Returns the index past the quantifier at index, including a lazy or possessive suffix, or index if there is none
+    private static int quantifierEnd(String pattern, int index) {
+        if (index >= pattern.length()) {
+            return index;
+        }
+        int end;
+        char c = pattern.charAt(index);
+        if (c == '*' || c == '+' || c == '?') {
+            end = index + 1;
+        } else if (c == '{') {
+            int close = pattern.indexOf('}', index);
+            if (close < 0 || !pattern.substring(index + 1, close).matches("\\d+(,\\d*)?")) {
+                return index;
+            }
+            end = close + 1;
+        } else {
+            return index;
+        }
+        if (end < pattern.length() && (pattern.charAt(end) == '?' || pattern.charAt(end) == '+')) {
+            end++;
+        }
+        return end;
+    }
+
+    // Checks whether the quantifier between index and end is *, + or {n,} and not possessive
+    private static boolean isBacktrackingUnbounded(String pattern, int index, int end) {
+        if (end == index) {
+            return false;
+        }
+        char c = pattern.charAt(index);
+        boolean possessive = end - index >= 2 && pattern.charAt(end - 1) == '+';
+        boolean unbounded = c == '*' || c == '+' || (c == '{' && pattern.charAt(pattern.indexOf('}', index) - 1) == ',');
+        return unbounded && !possessive;
+    }
+
+    // Collects the runs of literal characters in the top-level sequence of the pattern.
+    // The first element is the run at the very start of the match, or null if the match starts otherwise.
+    // Returns null when the pattern has a top-level alternation or flags that change literal meaning.
+    private static List<String> literalRuns(String pattern) {
+        if (hasMeaningChangingFlag(pattern)) {
+            return null;
+        }
+        List<String> runs = new ArrayList<>();
+        runs.add(null);
+        StringBuilder run = new StringBuilder();
+        boolean atStart = true;     // No consuming atom seen yet
+        boolean runAtStart = false; // The current run began with the first consuming atom
+
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            int literal = -1;     // The literal character of this atom, or -1 for any other atom
+            boolean zeroWidth = false;
+
+            switch (c) {
+                case '|' -> {
+                    return null;
+                }
+                case '^', '$' -> {
+                    zeroWidth = true;
+                    i++;
+                }
+                case '.' -> i++;
+                case '[' -> {
+                    i = skipClass(pattern, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                }
+                case '(' -> {
+                    zeroWidth = pattern.startsWith("(?=", i) || pattern.startsWith("(?!", i)
+                            || pattern.startsWith("(?<=", i) || pattern.startsWith("(?<!", i);
+                    int start = i;
+                    i = skipGroup(pattern, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    // An inline flag group such as (?m) consumes nothing either
+                    zeroWidth |= pattern.startsWith("(?", start)
+                            && pattern.substring(start + 2, i - 1).chars().allMatch(f -> Character.isLetter(f) || f == '-');
+                }
+                case '\\' -> {
+                    if (i + 1 >= pattern.length()) {
+                        return null;
+                    }
+                    char next = pattern.charAt(i + 1);
+                    i += 2;
+                    if (next == 'b' || next == 'B' || next == 'A' || next == 'G' || next == 'Z' || next == 'z') {
+                        zeroWidth = true;
+                    } else if (next == 'Q') {
+                        // Quoted section: all but its last character are plain literals
+                        int end = pattern.indexOf("\\E", i);
+                        String quoted = end < 0 ? pattern.substring(i) : pattern.substring(i, end);
+                        i = end < 0 ? pattern.length() : end + 2;
+                        if (quoted.isEmpty()) {
+                            continue;
+                        }
+                        if (run.isEmpty()) {
+                            runAtStart = atStart;
+                        }
+                        run.append(quoted, 0, quoted.length() - 1);
+                        atStart = false;
+                        literal = quoted.charAt(quoted.length() - 1);
+                    } else if (!Character.isLetterOrDigit(next)) {
+                        literal = next;
+                    } else if (Character.isDigit(next) || "kxucNpP".indexOf(next) >= 0) {
+                        // Back-references, code points and properties take an argument that is not literal text
+                        return null;
+                    } else {
+                        literal = switch (next) {
+                            case 't' -> '\t';
+                            case 'n' -> '\n';
+                            case 'r' -> '\r';
+                            case 'f' -> '\f';
+                            case 'e' -> '\u001B';
+                            case 'a' -> '\u0007';
+                            default -> -1; // Character classes such as \d or \R
+                        };
+                    }
+                }
+                case '*', '+', '?', '{' -> {
+                    return null; // Dangling quantifier
+                }
+                default -> {
+                    literal = c;
+                    i++;
+                }
+            }
+
+            // Look at the quantifier that follows the atom
+            int min = 1;
+            boolean repeated = false;
+            if (!zeroWidth && i < pattern.length()) {
+                char q = pattern.charAt(i);
+                if (q == '?' || q == '*' || q == '+') {
+                    min = q == '+' ? 1 : 0;
+                    repeated = true;
+                    i++;
+                } else if (q == '{') {
+                    int close = pattern.indexOf('}', i);
+                    if (close < 0) {
+                        return null;
+                    }
+                    String bounds = pattern.substring(i + 1, close);
+                    int comma = bounds.indexOf(',');
+                    try {
+                        min = Integer.parseInt(comma < 0 ? bounds : bounds.substring(0, comma));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    repeated = true;
+                    i = close + 1;
+                }
+                // Lazy or possessive modifier
+                if (repeated && i < pattern.length() && (pattern.charAt(i) == '?' || pattern.charAt(i) == '+')) {
+                    i++;
+                }
+            }
+
+            if (zeroWidth) {
+                // Assertions do not consume, but characters on both sides are not known to be adjacent
+                endRun(runs, run, runAtStart);
+                continue;
+            }
+            if (literal >= 0 && min >= 1) {
+                if (run.isEmpty()) {
+                    runAtStart = atStart;
+                }
+                run.append((char) literal);
+                if (repeated) {
+                    endRun(runs, run, runAtStart);
+                }
+            } else {
+                endRun(runs, run, runAtStart);
+            }
+            atStart = false;
+        }
+        endRun(runs, run, runAtStart);
+        return runs;
+    }
+
+    private static void endRun(List<String> runs, StringBuilder run, boolean runAtStart) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (runAtStart && runs.get(0) == null && runs.size() == 1) {
+            runs.set(0, run.toString());
+        } else {
+            runs.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    // Returns the index just past the character class starting at index, or -1 if it is unterminated
+    private static int skipClass(String pattern, int index) {
+        int depth = 0;
+        int i = index + 1;
+        if (i < pattern.length() && pattern.charAt(i) == '^') {
+            i++;
+        }
+        if (i < pattern.length() && pattern.charAt(i) == ']') {
+            i++;
+        }
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                if (depth == 0) {
+                    return i + 1;
+                }
+                depth--;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    // Returns the index just past the group starting at index, or -1 if it is unbalanced
+    private static int skipGroup(String pattern, int index) {
+        int depth = 0;
+        int i = index;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(pattern, i);
+                if (i < 0) {
+                    return -1;
+                }
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    // Flags such as (?i) or (?x) change what a character in the pattern means
+    private static boolean hasMeaningChangingFlag(String pattern) {
+        for (int i = pattern.indexOf("(?"); i >= 0; i = pattern.indexOf("(?", i + 1)) {
+            if (hasInlineFlag(pattern, i + 2, 'i') || hasInlineFlag(pattern, i + 2, 'x')
+                    || hasInlineFlag(pattern, i + 2, 'u') || hasInlineFlag(pattern, i + 2, 'U')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Checks whether the pattern starts with a global inline flag group such as (?m) or (?im)
+    private static boolean startsWithFlag(String pattern, char flag) {
+        if (!pattern.startsWith("(?")) {
+            return false;
+        }
+        int close = pattern.indexOf(')');
+        if (close < 0) {
+            return false;
+        }
+        String flags = pattern.substring(2, close);
+        int minus = flags.indexOf('-');
+        String enabled = minus < 0 ? flags : flags.substring(0, minus);
+        return enabled.chars().allMatch(Character::isLetter) && enabled.indexOf(flag) >= 0;
+    }
+
+    // Checks whether the inline flag group starting at index turns the given flag on
+    private static boolean hasInlineFlag(String pattern, int index, char flag) {
+        for (int i = index; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == flag) {
+                return true;
+            }
+            if (c == '-' || c == ')' || c == ':' || !Character.isLetter(c)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recursive-descent reader that looks only at the first atom of each alternative.
+     */
+    private static class FirstCharParser {
+        private static final int NON_ASCII = 128;
+
+        private final String pattern;
+        private int pos;
+
+        FirstCharParser(String pattern) {
+            this.pattern = pattern;
+        }
+
+        // alternation := sequence ('|' sequence)*
+        boolean[] alternation() {
+            boolean[] result = sequence();
+            while (result != null && peek() == '|') {
+                pos++;
+                boolean[] next = sequence();
+                if (next == null) {
+                    return null;
+                }
+                for (int i = 0; i < result.length; i++) {
+                    result[i] |= next[i];
+                }
+            }
+            return result;
+        }
+
+        // Reads the first atom of a sequence, then skips to the end of the sequence
+        private boolean[] sequence() {
+            // Zero-width assertions that do not consume the first character
+            while (true) {
+                if (pattern.startsWith("\\b", pos) || pattern.startsWith("\\B", pos)) {
+                    pos += 2;
+                } else if (peek() == '^') {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (pos >= pattern.length() || peek() == '|' || peek() == ')') {
+                return null; // Empty alternative
+            }
+            boolean[] first = atom();
+            if (first == null) {
+                return null;
+            }
+            char q = peek();
+            if (q == '?' || q == '*' || pattern.startsWith("{0", pos)) {
+                return null; // The first atom may be skipped
+            }
+            return skipToSequenceEnd() ? first : null;
+        }
+
+        private boolean[] atom() {
+            char c = pattern.charAt(pos);
+            switch (c) {
+                case '(' -> {
+                    if (pattern.startsWith("(?:", pos)) {
+                        pos += 3;
+                    } else if (pattern.startsWith("(?<", pos) && pos + 3 < pattern.length()
+                            && Character.isLetter(pattern.charAt(pos + 3))) {
+                        int close = pattern.indexOf('>', pos);
+                        if (close < 0) {
+                            return null;
+                        }
+                        pos = close + 1;
+                    } else if (pattern.startsWith("(?", pos)) {
+                        return null; // Lookaround or flag group
+                    } else {
+                        pos++;
+                    }
+                    boolean[] inner = alternation();
+                    if (inner == null || peek() != ')') {
+                        return null;
+                    }
+                    pos++;
+                    return inner;
+                }
+                case '[' -> {
+                    return charClass();
+                }
+                case '\\' -> {
+                    boolean[] set = new boolean[NON_ASCII + 1];
+                    pos++;
+                    return escape(set) ? set : null;
+                }
+                case '.' -> {
+                    pos++;
+                    boolean[] set = new boolean[NON_ASCII + 1];
+                    Arrays.fill(set, true);
+                    set['\n'] = false;
+                    set['\r'] = false;
+                    return set;
+                }
+                case '*', '+', '?', '{', '$', '|', ')' -> {
+                    return null;
+                }
+                default -> {
+                    pos++;
+                    boolean[] set = new boolean[NON_ASCII + 1];
+                    set[Math.min(c, NON_ASCII)] = true;
+                    return set;
+                }
+            }
+        }
+
+        // Reads an escape after the backslash and adds its characters to the set
+        private boolean escape(boolean[] set) {
+            if (pos >= pattern.length()) {
+                return false;
+            }
+            char c = pattern.charAt(pos++);
+            switch (c) {
+                case 'd', 'w', 's' -> addShorthand(set, c);
+                case 'D', 'W', 'S' -> {
+                    boolean[] positive = new boolean[NON_ASCII + 1];
+                    addShorthand(positive, Character.toLowerCase(c));
+                    for (int i = 0; i < NON_ASCII; i++) {
+                        set[i] |= !positive[i];
+                    }
+                    set[NON_ASCII] = true;
+                }
+                case 't' -> set['\t'] = true;
+                case 'n' -> set['\n'] = true;
+                case 'r' -> set['\r'] = true;
+                case 'f' -> set['\f'] = true;
+                case 'e' -> set['\u001B'] = true;
+                case 'a' -> set['\u0007'] = true;
+                default -> {
+                    if (Character.isLetterOrDigit(c)) {
+                        return false; // \p, \x, back-references and the like
+                    }
+                    set[Math.min(c, NON_ASCII)] = true;
+                }
+            }
+            return true;
+        }
+
+        private boolean[] charClass() {
+            pos++; // '['
+            boolean negate = peek() == '^';
+            if (negate) {
+                pos++;
+            }
+            boolean[] set = new boolean[NON_ASCII + 1];
+            boolean firstInClass = true;
+            while (pos < pattern.length()) {
+                char c = pattern.charAt(pos);
+                if (c == ']' && !firstInClass) {
+                    break;
+                }
+                firstInClass = false;
+                if (c == '[' || pattern.startsWith("&&", pos)) {
+                    return null; // Nested classes and intersections
+                }
+                int low;
+                if (c == '\\') {
+                    pos++;
+                    if (pos < pattern.length() && "dDwWsS".indexOf(pattern.charAt(pos)) >= 0) {
+                        if (!escape(set)) {
+                            return null;
+                        }
+                        continue;
+                    }
+                    boolean[] single = new boolean[NON_ASCII + 1];
+                    char escaped = pos < pattern.length() ? pattern.charAt(pos) : 0;
+                    if (!escape(single)) {
+                        return null;
+                    }
+                    low = escapedChar(escaped);
+                } else {
+                    low = c;
+                    pos++;
+                }
+                if (peek() == '-' && pos + 1 < pattern.length() && pattern.charAt(pos + 1) != ']') {
+                    pos++;
+                    char hc = pattern.charAt(pos);
+                    int high;
+                    if (hc == '\\') {
+                        pos++;
+                        boolean[] single = new boolean[NON_ASCII + 1];
+                        char escaped = pos < pattern.length() ? pattern.charAt(pos) : 0;
+                        if ("dDwWsS".indexOf(escaped) >= 0 || !escape(single)) {
+                            return null;
+                        }
+                        high = escapedChar(escaped);
+                    } else {
+                        high = hc;
+                        pos++;
+                    }
+                    if (high < low) {
+                        return null;
+                    }
+                    addRange(set, low, high);
+                } else {
+                    addRange(set, low, low);
+                }
+            }
+            if (peek() != ']') {
+                return null;
+            }
+            pos++;
+            if (negate) {
+                for (int i = 0; i < NON_ASCII; i++) {
+                    set[i] = !set[i];
+                }
+                set[NON_ASCII] = true;
+            }
+            return set;
+        }
+
+        // Adds the ASCII characters of \d, \w or \s
+        private static void addShorthand(boolean[] set, char shorthand) {
+            switch (shorthand) {
+                case 'd' -> addRange(set, '0', '9');
+                case 'w' -> {
+                    addRange(set, 'a', 'z');
+                    addRange(set, 'A', 'Z');
+                    addRange(set, '0', '9');
+                    set['_'] = true;
+                }
+                default -> {
+                    for (char w : new char[]{' ', '\t', '\n', '\u000B', '\f', '\r'}) {
+                        set[w] = true;
+                    }
+                }
+            }
+        }
+
+        // The character a simple escape such as \t or \. stands for
+        private static int escapedChar(char escaped) {
+            return switch (escaped) {
+                case 't' -> '\t';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 'f' -> '\f';
+                case 'e' -> '\u001B';
+                case 'a' -> '\u0007';
+                default -> escaped;
+            };
+        }
+
+        private static void addRange(boolean[] set, int low, int high) {
+            for (int i = low; i <= Math.min(high, NON_ASCII - 1); i++) {
+                set[i] = true;
+            }
+            if (high >= NON_ASCII) {
+                set[NON_ASCII] = true;
+            }
+        }
+
+        // Skips the rest of the current alternative, stopping at a top-level '|' or ')'
+        private boolean skipToSequenceEnd() {
+            int depth = 0;
+            while (pos < pattern.length()) {
+                char c = pattern.charAt(pos);
+                if (c == '\\') {
+                    if (pattern.startsWith("Q", pos + 1)) {
+                        int end = pattern.indexOf("\\E", pos + 2);
+                        pos = end < 0 ? pattern.length() : end + 2;
+                    } else {
+                        pos += 2;
+                    }
+                    continue;
+                }
+                if (c == '[') {
+                    if (!skipClass()) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    if (depth == 0) {
+                        return true;
+                    }
+                    depth--;
+                } else if (c == '|' && depth == 0) {
+                    return true;
+                }
+                pos++;
+            }
+            return depth == 0;
+        }
+
+        private boolean skipClass() {
+            int depth = 0;
+            pos++;
+            if (peek() == '^') {
+                pos++;
+            }
+            if (peek() == ']') {
+                pos++;
+            }
+            while (pos < pattern.length()) {
+                char c = pattern.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                    continue;
+                }
+                if (c == '[') {
+                    depth++;
+                } else if (c == ']') {
+                    if (depth == 0) {
+                        pos++;
+                        return true;
+                    }
+                    depth--;
+                }
+                pos++;
+            }
+            return false;
+        }
+
+        private char peek() {
+            return pos < pattern.length() ? pattern.charAt(pos) : 0;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package org.example.textprocessingtool;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The PatternCache class keeps a size-bounded, least-recently-used cache of compiled
+ * regex patterns keyed by pattern string and flags.
+ * Invalid patterns are cached as well, so a bad pattern is only parsed once.
+ * All methods are thread-safe.
+ */
+public class PatternCache {
+
+    /** Default number of patterns kept by the shared cache. */
+    public static final int DEFAULT_MAX_SIZE = 512;
+
+    private static final PatternCache SHARED = new PatternCache(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final Map<Key, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor to initialize a cache holding at most the given number of patterns.
+     *
+     * @param maxSize The maximum number of patterns (valid or invalid) to keep.
+     */
+    public PatternCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        // Access-ordered map so the eldest entry is always the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > PatternCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache shared by every RegexProcessor and TextProcessor by default.
+     *
+     * @return The shared PatternCache instance.
+     */
+    public static PatternCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the compiled form of the given regex without flags.
+     *
+     * @param regex The regex pattern to compile.
+     * @return The compiled Pattern.
+     * @throws PatternSyntaxException If the pattern is invalid.
+     */
+    public Pattern compile(String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Returns the compiled form of the given regex and flags, compiling it on a cache miss.
+     *
+     * @param regex The regex pattern to compile.
+     * @param flags The match flags, as accepted by {@link Pattern#compile(String, int)}.
+     * @return The compiled Pattern.
+     * @throws PatternSyntaxException If the pattern is invalid.
+     */
+    public Pattern compile(String regex, int flags) {
+        Entry entry = lookup(regex, flags, true);
+        if (entry.error != null) {
+            // Throw a fresh exception so callers never share a stack trace
+            throw new PatternSyntaxException(entry.error.getDescription(), regex, entry.error.getIndex());
+        }
+        return entry.pattern;
+    }
+
+    /**
+     * Returns the literal prefilter for the given regex, analysing the pattern once per cache entry.
+     * Looking up the prefilter does not change the hit and miss counters.
+     *
+     * @param regex The regex pattern.
+     * @return The prefilter, or null if the pattern has no usable required literal.
+     * @throws PatternSyntaxException If the pattern is invalid.
+     */
+    public LiteralPrefilter prefilter(String regex) {
+        Entry entry = lookup(regex, 0, false);
+        if (entry.error != null) {
+            throw new PatternSyntaxException(entry.error.getDescription(), regex, entry.error.getIndex());
+        }
+        if (!entry.analysed) {
+            // Racing threads compute the same immutable result, so no lock is needed
+            entry.prefilter = LiteralPrefilter.forPattern(regex);
+            entry.analysed = true;
+        }
+        return entry.prefilter;
+    }
+
+    /**
+     * Returns the lazy DFA for the given regex, compiling it once per cache entry.
+     * Looking up the automaton does not change the hit and miss counters.
+     *
+     * @param regex The regex pattern.
+     * @return The automaton, or null if the pattern is outside the subset it supports.
+     * @throws PatternSyntaxException If the pattern is invalid.
+     */
+    public LazyDfa dfa(String regex) {
+        Entry entry = lookup(regex, 0, false);
+        if (entry.error != null) {
+            throw new PatternSyntaxException(entry.error.getDescription(), regex, entry.error.getIndex());
+        }
+        if (!entry.dfaCompiled) {
+            entry.dfa = LazyDfa.forPattern(regex);
+            entry.dfaCompiled = true;
+        }
+        return entry.dfa;
+    }
+
+    /**
+     * Checks whether the given regex compiles, using the cached result when available.
+     *
+     * @param regex The regex pattern to validate.
+     * @return true if the pattern is valid, false otherwise.
+     */
+    public boolean isValid(String regex) {
+        return lookup(regex, 0, true).error == null;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to compile the pattern.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of entries dropped because the cache was full.
+     *
+     * @return The eviction count.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of patterns currently cached.
+     *
+     * @return The current size of the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the maximum number of patterns this cache keeps.
+     *
+     * @return The maximum size.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Removes every cached pattern. The hit, miss and eviction counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private Entry lookup(String regex, int flags, boolean record) {
+        Key key = new Key(regex, flags);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            if (record) {
+                hits.increment();
+            }
+            return entry;
+        }
+        if (record) {
+            misses.increment();
+        }
+
+        // Compile outside the lock so a slow pattern does not block other threads
+        try {
+            entry = new Entry(Pattern.compile(regex, flags), null);
+        } catch (PatternSyntaxException e) {
+            entry = new Entry(null, e);
+        }
+        synchronized (this) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            return existing != null ? existing : entry;
+        }
+    }
+
+    private record Key(String regex, int flags) {
+    }
+
+    private static final class Entry {
+        private final Pattern pattern;
+        private final PatternSyntaxException error;
+        private volatile LiteralPrefilter prefilter;
+        private volatile boolean analysed;
+        private volatile LazyDfa dfa;
+        private volatile boolean dfaCompiled;
+
+        Entry(Pattern pattern, PatternSyntaxException error) {
+            this.pattern = pattern;
+            this.error = error;
+        }
+    }
+}
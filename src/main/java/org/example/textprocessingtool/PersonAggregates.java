@@ -0,0 +1,384 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * The PersonAggregates class computes statistics over a snapshot of persons, taken by DataManager.aggregate().
+ * The snapshot is a pair of parallel arrays of names and ages, so every query is a parallel reduction
+ * over an index range, which the fork/join pool splits evenly, with int and long[] accumulators
+ * instead of boxed numbers. Each worker counts into its own table and the tables are merged at the end.
+ * Filters return a narrower snapshot, so they can be chained before any aggregate, for example
+ * dataManager.aggregate().filterByName("^A").ageHistogram(10).
+ * Name patterns go through RegexProcessor, so they are validated and compiled the same way as text searches.
+ */
+public class PersonAggregates {
+
+    // Below this many persons the work is done on the calling thread; forking would cost more than it saves
+    private static final int PARALLEL_THRESHOLD = 8192;
+    // Upper bound on histogram buckets, so a tiny bucket width over a huge age range cannot exhaust memory
+    private static final int MAX_BUCKETS = 1 << 20;
+
+    private final String[] names;
+    private final int[] ages;
+    private final RegexProcessor regexProcessor;
+
+    /**
+     * Constructor to initialize aggregates over the given snapshot. The arrays are not copied.
+     *
+     * @param names          The names of the persons.
+     * @param ages           The ages of the persons, at the same positions as their names.
+     * @param regexProcessor The processor used to validate and compile name patterns.
+     */
+    PersonAggregates(String[] names, int[] ages, RegexProcessor regexProcessor) {
+        this.names = names;
+        this.ages = ages;
+        this.regexProcessor = regexProcessor;
+    }
+
+    /**
+     * Gets the number of persons in the snapshot.
+     *
+     * @return The number of persons.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Computes the count, minimum, maximum, sum and average of the ages in one parallel pass.
+     *
+     * @return The age statistics; empty if there are no persons.
+     */
+    public IntSummaryStatistics ageStatistics() {
+        return rows().map(row -> ages[row]).collect(IntSummaryStatistics::new,
+                IntSummaryStatistics::accept, IntSummaryStatistics::combine);
+    }
+
+    /**
+     * Counts the persons per age bucket. Buckets are aligned to multiples of the width,
+     * so with a width of 10 the keys are 0, 10, 20 and so on.
+     *
+     * @param bucketWidth The number of ages per bucket.
+     * @return The number of persons per bucket start, for non-empty buckets only.
+     * @throws IllegalArgumentException If the width is not positive or would give too many buckets.
+     */
+    public TreeMap<Integer, Long> ageHistogram(int bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("bucketWidth must be positive: " + bucketWidth);
+        }
+        TreeMap<Integer, Long> histogram = new TreeMap<>();
+        IntSummaryStatistics statistics = ageStatistics();
+        if (statistics.getCount() == 0) {
+            return histogram;
+        }
+        long first = Math.floorDiv(statistics.getMin(), bucketWidth);
+        long bucketCount = Math.floorDiv(statistics.getMax(), bucketWidth) - first + 1;
+        if (bucketCount > MAX_BUCKETS) {
+            throw new IllegalArgumentException("A bucket width of " + bucketWidth + " gives " + bucketCount + " buckets");
+        }
+
+        long[] counts = rows().collect(() -> new long[(int) bucketCount],
+                (buckets, row) -> buckets[(int) (Math.floorDiv(ages[row], bucketWidth) - first)]++,
+                PersonAggregates::addCounts);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                histogram.put((int) ((first + i) * bucketWidth), counts[i]);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Counts the persons per name prefix, for example per initial with a length of 1.
+     * Names shorter than the length are counted under the whole name.
+     *
+     * @param length     The number of leading characters to group by.
+     * @param ignoreCase Whether prefixes differing only in case are counted together, under the upper-case prefix.
+     * @return The number of persons per prefix, ordered by prefix.
+     */
+    public TreeMap<String, Long> countByNamePrefix(int length, boolean ignoreCase) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("length must be positive: " + length);
+        }
+        return toSortedCounts(rows().collect(HashMap<String, long[]>::new, (counts, row) -> {
+            String name = names[row];
+            String prefix = name.length() <= length ? name : name.substring(0, length);
+            increment(counts, ignoreCase ? prefix.toUpperCase(Locale.ROOT) : prefix);
+        }, PersonAggregates::mergeCounts));
+    }
+
+    /**
+     * Counts the persons per match of a pattern in their name. A person is counted under the first match
+     * of the pattern, or under its first capturing group if it has one; persons whose name does not match
+     * are left out. For example "^(\\w+) " groups persons by first name.
+     *
+     * @param pattern The regex pattern to find in each name.
+     * @return The number of persons per matched text, ordered by text; empty if the pattern is invalid.
+     */
+    public TreeMap<String, Long> countByNamePattern(String pattern) {
+        if (!regexProcessor.isValidRegex(pattern)) {
+            return new TreeMap<>();
+        }
+        Pattern compiledPattern = regexProcessor.getPatternCache().compile(pattern);
+        return toSortedCounts(rows().collect(() -> new GroupCounter(compiledPattern), (counter, row) -> {
+            Matcher matcher = counter.matcher.reset(names[row]);
+            if (matcher.find()) {
+                increment(counter.counts, matcher.groupCount() > 0 && matcher.group(1) != null
+                        ? matcher.group(1)
+                        : matcher.group());
+            }
+        }, (left, right) -> mergeCounts(left.counts, right.counts)).counts);
+    }
+
+    /**
+     * Keeps only the persons whose name contains a match of the pattern.
+     *
+     * @param pattern The regex pattern to find in each name.
+     * @return The matching persons, in the same order; empty if the pattern is invalid.
+     */
+    public PersonAggregates filterByName(String pattern) {
+        if (!regexProcessor.isValidRegex(pattern)) {
+            return select(new int[0]);
+        }
+        Pattern compiledPattern = regexProcessor.getPatternCache().compile(pattern);
+        return select(rows().collect(() -> new RowCollector(compiledPattern), (collector, row) -> {
+            if (collector.matcher.reset(names[row]).find()) {
+                collector.add(row);
+            }
+        }, RowCollector::addAll).toArray());
+    }
+
+    /**
+     * Keeps only the persons whose age lies in the given range.
+     *
+     * @param minAge The lowest age to include.
+     * @param maxAge The highest age to include.
+     * @return The matching persons, in the same order.
+     */
+    public PersonAggregates filterByAge(int minAge, int maxAge) {
+        return select(rows().filter(row -> ages[row] >= minAge && ages[row] <= maxAge).toArray());
+    }
+
+    /**
+     * Finds the k oldest persons. Each worker keeps a heap of its k best rows, and the heaps are merged.
+     *
+     * @param k The number of persons to return.
+     * @return Copies of up to k persons, oldest first; persons of equal age keep their order.
+     */
+    public List<Person> oldest(int k) {
+        return top(k, true);
+    }
+
+    /**
+     * Finds the k youngest persons.
+     *
+     * @param k The number of persons to return.
+     * @return Copies of up to k persons, youngest first; persons of equal age keep their order.
+     */
+    public List<Person> youngest(int k) {
+        return top(k, false);
+    }
+
+    private List<Person> top(int k, boolean oldest) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        int limit = Math.min(k, names.length);
+        TopRows top = rows().collect(() -> new TopRows(limit, oldest),
+                TopRows::offer, TopRows::offerAll);
+        int[] best = top.sortedRows();
+        List<Person> result = new ArrayList<>(best.length);
+        for (int row : best) {
+            result.add(new Person(names[row], ages[row]));
+        }
+        return result;
+    }
+
+    private IntStream rows() {
+        IntStream rows = IntStream.range(0, names.length);
+        return names.length >= PARALLEL_THRESHOLD ? rows.parallel() : rows;
+    }
+
+    private PersonAggregates select(int[] rows) {
+        String[] selectedNames = new String[rows.length];
+        int[] selectedAges = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            selectedNames[i] = names[rows[i]];
+            selectedAges[i] = ages[rows[i]];
+        }
+        return new PersonAggregates(selectedNames, selectedAges, regexProcessor);
+    }
+
+    // Counters are long[1] cells, so counting never boxes
+    private static void increment(Map<String, long[]> counts, String key) {
+        long[] cell = counts.get(key);
+        if (cell == null) {
+            counts.put(key, new long[]{1});
+        } else {
+            cell[0]++;
+        }
+    }
+
+    private static void mergeCounts(Map<String, long[]> into, Map<String, long[]> from) {
+        from.forEach((key, cell) -> {
+            long[] existing = into.putIfAbsent(key, cell);
+            if (existing != null) {
+                existing[0] += cell[0];
+            }
+        });
+    }
+
+    private static void addCounts(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    private static TreeMap<String, Long> toSortedCounts(Map<String, long[]> counts) {
+        TreeMap<String, Long> result = new TreeMap<>();
+        counts.forEach((key, cell) -> result.put(key, cell[0]));
+        return result;
+    }
+
+    /**
+     * Per-worker group counts, with a matcher that is reset for each name instead of created.
+     */
+    private static final class GroupCounter {
+        final HashMap<String, long[]> counts = new HashMap<>();
+        final Matcher matcher;
+
+        GroupCounter(Pattern pattern) {
+            matcher = pattern.matcher("");
+        }
+    }
+
+    /**
+     * Per-worker growable list of row numbers.
+     */
+    private static final class RowCollector {
+        final Matcher matcher;
+        int[] rows = new int[16];
+        int size;
+
+        RowCollector(Pattern pattern) {
+            matcher = pattern.matcher("");
+        }
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        // The stream passes the later range as other, so rows stay in order
+        void addAll(RowCollector other) {
+            if (size + other.size > rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(rows.length * 2, size + other.size));
+            }
+            System.arraycopy(other.rows, 0, rows, size, other.size);
+            size += other.size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(rows, size);
+        }
+    }
+
+    /**
+     * Per-worker bounded heap of the best rows. The root is the worst row kept,
+     * so a new row only has to beat the root to get in.
+     */
+    private final class TopRows {
+        final int[] heap;
+        final boolean oldest;
+        int size;
+
+        TopRows(int capacity, boolean oldest) {
+            this.heap = new int[capacity];
+            this.oldest = oldest;
+        }
+
+        void offer(int row) {
+            if (heap.length == 0) {
+                return;
+            }
+            if (size < heap.length) {
+                heap[size] = row;
+                siftUp(size++);
+            } else if (better(row, heap[0])) {
+                heap[0] = row;
+                siftDown(0);
+            }
+        }
+
+        void offerAll(TopRows other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.heap[i]);
+            }
+        }
+
+        int[] sortedRows() {
+            // Rows are ordered by (-age or age, row); box once per kept row only, as k is small
+            return IntStream.of(Arrays.copyOf(heap, size)).boxed()
+                    .sorted((a, b) -> better(a, b) ? -1 : better(b, a) ? 1 : 0)
+                    .mapToInt(Integer::intValue).toArray();
+        }
+
+        // Whether row a ranks before row b: older (or younger) first, then earlier rows first
+        private boolean better(int a, int b) {
+            if (ages[a] != ages[b]) {
+                return oldest ? ages[a] > ages[b] : ages[a] < ages[b];
+            }
+            return a < b;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!better(heap[parent], heap[index])) {
+                    break;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int worst = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && better(heap[worst], heap[left])) {
+                    worst = left;
+                }
+                if (right < size && better(heap[worst], heap[right])) {
+                    worst = right;
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(worst, index);
+                index = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int row = heap[i];
+            heap[i] = heap[j];
+            heap[j] = row;
+        }
+    }
+}
@@ -0,0 +1,643 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * The PersonBulkLoader class imports persons from CSV or JSON Lines files and exports them again.
+ * Files are streamed: lines are read into one reusable byte buffer and parsed in place,
+ * so apart from the name itself nothing is allocated per line, and no regex or split is involved.
+ * Parsed persons are handed out in batches.
+ *
+ * CSV files hold one "name,age" record per line, optionally preceded by a "name,age" header.
+ * Names containing commas, quotes or line breaks are quoted, with embedded quotes doubled.
+ * JSON Lines files hold one object per line with a "name" string and an integer "age"; other fields are ignored.
+ */
+public class PersonBulkLoader {
+
+    /** Number of persons per batch unless another size is given. */
+    public static final int DEFAULT_BATCH_SIZE = 8192;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SAMPLE_SIZE = 64 * 1024; // Bytes read to estimate the number of lines in a file
+
+    /**
+     * The supported file formats.
+     */
+    public enum Format {
+        CSV, JSONL;
+
+        /**
+         * Picks the format from a file's extension: .jsonl, .ndjson and .json mean JSON Lines, anything else CSV.
+         *
+         * @param file The file.
+         * @return The format of the file.
+         */
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json") ? JSONL : CSV;
+        }
+    }
+
+    /**
+     * The outcome of a read or an import.
+     *
+     * @param persons        The number of persons read, or for an import the number added.
+     * @param malformedLines The number of non-blank lines skipped because they could not be parsed.
+     */
+    public record LoadResult(long persons, long malformedLines) {
+    }
+
+    private final int batchSize;
+
+    /**
+     * Constructor to initialize a loader with the default batch size.
+     */
+    public PersonBulkLoader() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor to initialize a loader with the given batch size.
+     *
+     * @param batchSize The number of persons per batch.
+     */
+    public PersonBulkLoader(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports every person from the file into the DataManager, in batches.
+     * The DataManager is pre-sized from an estimate of the number of lines, so it does not rehash while loading.
+     * Persons whose name already exists are skipped.
+     *
+     * @param file   The CSV or JSON Lines file to read; the format follows the file extension.
+     * @param target The DataManager to add the persons to.
+     * @return The number of persons added and of malformed lines skipped.
+     * @throws IOException If the file cannot be read.
+     */
+    public LoadResult importFile(Path file, DataManager target) throws IOException {
+        target.ensureCapacity(target.size() + (int) Math.min(estimateRows(file), Integer.MAX_VALUE - 8));
+        long[] added = {0};
+        LoadResult read = read(file, Format.forFile(file), batch -> added[0] += target.createPersons(batch));
+        return new LoadResult(added[0], read.malformedLines());
+    }
+
+    /**
+     * Imports every person from several files at once, one loader thread per file, into a ConcurrentDataManager.
+     * Persons whose name already exists are skipped. Where a name occurs in several files,
+     * whichever file reaches it first wins.
+     *
+     * @param files  The CSV or JSON Lines files to read; each one's format follows its extension.
+     * @param target The ConcurrentDataManager to add the persons to.
+     * @return The number of persons added and of malformed lines skipped, over all files.
+     * @throws IOException If a file cannot be read.
+     */
+    public LoadResult importFiles(List<Path> files, ConcurrentDataManager target) throws IOException {
+        try {
+            return files.parallelStream().map(file -> {
+                long[] added = {0};
+                LoadResult read;
+                try {
+                    read = read(file, Format.forFile(file), batch -> {
+                        for (Person person : batch) {
+                            if (target.createPerson(person.getName(), person.getAge())) {
+                                added[0]++;
+                            }
+                        }
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return new LoadResult(added[0], read.malformedLines());
+            }).reduce(new LoadResult(0, 0), (a, b) ->
+                    new LoadResult(a.persons() + b.persons(), a.malformedLines() + b.malformedLines()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Estimates the number of records in a file from the average line length in its first 64 KB.
+     *
+     * @param file The file to inspect.
+     * @return The estimated number of lines.
+     * @throws IOException If the file cannot be read.
+     */
+    public long estimateRows(Path file) throws IOException {
+        long size = Files.size(file);
+        if (size == 0) {
+            return 0;
+        }
+        byte[] sample = new byte[(int) Math.min(size, SAMPLE_SIZE)];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(sample, 0, sample.length);
+        }
+        int lines = 0;
+        for (int i = 0; i < read; i++) {
+            if (sample[i] == '\n') {
+                lines++;
+            }
+        }
+        return lines == 0 ? 1 : size * lines / read + 1;
+    }
+
+    /**
+     * Streams the persons of a file to the consumer in batches. Each batch is a new list the consumer may keep.
+     * Malformed lines are skipped and counted in the result.
+     *
+     * @param file     The file to read.
+     * @param format   The format of the file.
+     * @param consumer Receives the persons, at most batchSize at a time, in file order.
+     * @return The number of persons read and of malformed lines skipped.
+     * @throws IOException If the file cannot be read.
+     */
+    public LoadResult read(Path file, Format format, Consumer<List<Person>> consumer) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, format, consumer);
+        }
+    }
+
+    /**
+     * Streams the persons of UTF-8 input to the consumer in batches. The stream is not closed.
+     *
+     * @param in       The input to read.
+     * @param format   The format of the input.
+     * @param consumer Receives the persons, at most batchSize at a time, in input order.
+     * @return The number of persons read and of malformed lines skipped.
+     * @throws IOException If the input cannot be read.
+     */
+    public LoadResult read(InputStream in, Format format, Consumer<List<Person>> consumer) throws IOException {
+        LineParser parser = new LineParser(in);
+        List<Person> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        long malformed = 0;
+        boolean first = true;
+
+        while (parser.nextLine()) {
+            if (parser.isBlank()) {
+                continue;
+            }
+            if (first) {
+                first = false;
+                if (format == Format.CSV && parser.isCsvHeader()) {
+                    continue;
+                }
+            }
+            Person person = format == Format.CSV ? parser.parseCsv() : parser.parseJson();
+            if (person == null) {
+                malformed++;
+                continue;
+            }
+            batch.add(person);
+            count++;
+            if (batch.size() == batchSize) {
+                consumer.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+        return new LoadResult(count, malformed);
+    }
+
+    /**
+     * Exports every person of the DataManager, in creation order, to a file whose format follows its extension.
+     *
+     * @param source The DataManager to export.
+     * @param file   The file to write; it is created or truncated.
+     * @return The number of persons written.
+     * @throws IOException If the file cannot be written.
+     */
+    public long exportFile(DataManager source, Path file) throws IOException {
+        return write(source.getUniquePersons(), file, Format.forFile(file));
+    }
+
+    /**
+     * Streams persons to a file in the given format.
+     *
+     * @param persons The persons to write.
+     * @param file    The file to write; it is created or truncated.
+     * @param format  The format to write.
+     * @return The number of persons written.
+     * @throws IOException If the file cannot be written.
+     */
+    public long write(Iterable<Person> persons, Path file, Format format) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            return write(persons, writer, format);
+        }
+    }
+
+    /**
+     * Streams persons to a writer in the given format. The writer is not closed.
+     *
+     * @param persons The persons to write.
+     * @param out     The destination.
+     * @param format  The format to write.
+     * @return The number of persons written.
+     * @throws IOException If writing fails.
+     */
+    public long write(Iterable<Person> persons, Writer out, Format format) throws IOException {
+        long count = 0;
+        if (format == Format.CSV) {
+            out.write("name,age\n");
+        }
+        for (Person person : persons) {
+            if (format == Format.CSV) {
+                writeCsvName(out, person.getName());
+                out.write(',');
+            } else {
+                out.write("{\"name\":");
+                writeJsonString(out, person.getName());
+                out.write(",\"age\":");
+            }
+            out.write(Integer.toString(person.getAge()));
+            out.write(format == Format.CSV ? "\n" : "}\n");
+            count++;
+        }
+        return count;
+    }
+
+    private static void writeCsvName(Writer out, String name) throws IOException {
+        boolean quote = name.isEmpty() || name.charAt(0) == ' ' || name.charAt(name.length() - 1) == ' ';
+        for (int i = 0; i < name.length() && !quote; i++) {
+            char c = name.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(name);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Reads UTF-8 input line by line into a reusable buffer and parses records in place.
+     */
+    private static final class LineParser {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int bufferPos;
+        private int bufferLimit;
+        private boolean firstLine = true;
+
+        private byte[] line = new byte[256];
+        private int length; // Length of the current line, without its terminator
+        private int pos;    // Parse position within the current line
+
+        LineParser(InputStream in) {
+            this.in = in;
+        }
+
+        // Reads the next line into the line buffer; returns false at the end of the input
+        boolean nextLine() throws IOException {
+            length = 0;
+            pos = 0;
+            boolean any = readLine();
+            if (firstLine && length >= 3 && line[0] == (byte) 0xEF && line[1] == (byte) 0xBB && line[2] == (byte) 0xBF) {
+                pos = 3; // Skip the UTF-8 byte order mark
+            }
+            firstLine = false;
+            return any;
+        }
+
+        // Appends a newline and the next line to the current one, for quoted CSV names spanning lines
+        private boolean continueLine() throws IOException {
+            appendNewline();
+            return readLine();
+        }
+
+        // Appends the bytes up to the next '\n' to the line buffer, dropping a trailing '\r'
+        private boolean readLine() throws IOException {
+            int lineStart = length;
+            boolean any = false;
+            while (true) {
+                if (bufferPos == bufferLimit) {
+                    bufferLimit = in.read(buffer, 0, buffer.length);
+                    bufferPos = 0;
+                    if (bufferLimit <= 0) {
+                        bufferLimit = 0;
+                        break;
+                    }
+                }
+                any = true;
+                int start = bufferPos;
+                while (bufferPos < bufferLimit && buffer[bufferPos] != '\n') {
+                    bufferPos++;
+                }
+                append(start, bufferPos);
+                if (bufferPos < bufferLimit) {
+                    bufferPos++; // Skip the '\n'
+                    break;
+                }
+            }
+            if (length > lineStart && line[length - 1] == '\r') {
+                length--;
+            }
+            return any;
+        }
+
+        private void appendNewline() {
+            if (length == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[length++] = '\n';
+        }
+
+        private void append(int from, int to) {
+            int count = to - from;
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+            }
+            System.arraycopy(buffer, from, line, length, count);
+            length += count;
+        }
+
+        boolean isBlank() {
+            for (int i = pos; i < length; i++) {
+                if (!isSpace(line[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isCsvHeader() {
+            String header = "name,age";
+            int start = pos;
+            int end = length;
+            while (start < end && isSpace(line[start])) {
+                start++;
+            }
+            while (end > start && isSpace(line[end - 1])) {
+                end--;
+            }
+            if (end - start != header.length()) {
+                return false;
+            }
+            for (int i = 0; i < header.length(); i++) {
+                if (Character.toLowerCase(line[start + i]) != header.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Parses a name,age record; returns null if the line is malformed
+        Person parseCsv() throws IOException {
+            String name;
+            if (pos < length && line[pos] == '"') {
+                pos++;
+                int start = pos;
+                boolean doubled = false;
+                while (true) {
+                    if (pos >= length && !continueLine()) {
+                        return null; // Quote still open at the end of the input
+                    }
+                    if (line[pos] == '"') {
+                        if (pos + 1 < length && line[pos + 1] == '"') {
+                            doubled = true;
+                            pos += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    pos++;
+                }
+                name = new String(line, start, pos - start, StandardCharsets.UTF_8);
+                if (doubled) {
+                    name = name.replace("\"\"", "\"");
+                }
+                pos++; // Closing quote
+            } else {
+                int start = pos;
+                while (pos < length && line[pos] != ',') {
+                    pos++;
+                }
+                name = new String(line, start, pos - start, StandardCharsets.UTF_8);
+            }
+            if (pos >= length || line[pos] != ',') {
+                return null;
+            }
+            pos++;
+            skipSpaces();
+            long age = parseInt();
+            skipSpaces();
+            return age == Long.MIN_VALUE || pos != length ? null : new Person(name, (int) age);
+        }
+
+        // Parses a JSON object with "name" and "age" members; returns null if the line is malformed
+        Person parseJson() {
+            skipSpaces();
+            if (!consume('{')) {
+                return null;
+            }
+            String name = null;
+            long age = Long.MIN_VALUE;
+            skipSpaces();
+            if (consume('}')) {
+                return null;
+            }
+            while (true) {
+                skipSpaces();
+                String key = parseJsonString();
+                skipSpaces();
+                if (key == null || !consume(':')) {
+                    return null;
+                }
+                skipSpaces();
+                if (key.equals("name")) {
+                    name = parseJsonString();
+                    if (name == null) {
+                        return null;
+                    }
+                } else if (key.equals("age")) {
+                    age = parseInt();
+                    if (age == Long.MIN_VALUE) {
+                        return null;
+                    }
+                } else if (!skipJsonValue()) {
+                    return null;
+                }
+                skipSpaces();
+                if (consume('}')) {
+                    break;
+                }
+                if (!consume(',')) {
+                    return null;
+                }
+            }
+            skipSpaces();
+            return name == null || age == Long.MIN_VALUE || pos != length ? null : new Person(name, (int) age);
+        }
+
+        // Parses a JSON string at pos, returning null if there is none; escapes are resolved
+        private String parseJsonString() {
+            if (!consume('"')) {
+                return null;
+            }
+            int start = pos;
+            boolean escaped = false;
+            while (pos < length && line[pos] != '"') {
+                if (line[pos] == '\\') {
+                    escaped = true;
+                    pos++;
+                }
+                pos++;
+            }
+            if (pos >= length) {
+                return null;
+            }
+            String raw = new String(line, start, pos - start, StandardCharsets.UTF_8);
+            pos++; // Closing quote
+            return escaped ? unescape(raw) : raw;
+        }
+
+        // Escapes are plain ASCII, so they can be resolved after decoding the UTF-8 bytes
+        private static String unescape(String raw) {
+            StringBuilder result = new StringBuilder(raw.length());
+            for (int i = 0; i < raw.length(); i++) {
+                char c = raw.charAt(i);
+                if (c != '\\' || i + 1 >= raw.length()) {
+                    result.append(c);
+                    continue;
+                }
+                char next = raw.charAt(++i);
+                switch (next) {
+                    case 'n' -> result.append('\n');
+                    case 'r' -> result.append('\r');
+                    case 't' -> result.append('\t');
+                    case 'b' -> result.append('\b');
+                    case 'f' -> result.append('\f');
+                    case 'u' -> {
+                        if (i + 4 >= raw.length()) {
+                            return null;
+                        }
+                        try {
+                            result.append((char) Integer.parseInt(raw, i + 1, i + 5, 16));
+                        } catch (NumberFormatException e) {
+                            return null;
+                        }
+                        i += 4;
+                    }
+                    default -> result.append(next); // \" \\ \/
+                }
+            }
+            return result.toString();
+        }
+
+        // Skips a JSON value other than the ones we read: a string, number, literal, object or array
+        private boolean skipJsonValue() {
+            if (pos < length && line[pos] == '"') {
+                return parseJsonString() != null;
+            }
+            int depth = 0;
+            while (pos < length) {
+                byte b = line[pos];
+                if (b == '"') {
+                    if (parseJsonString() == null) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (depth == 0) {
+                        return true;
+                    }
+                    depth--;
+                } else if (b == ',' && depth == 0) {
+                    return true;
+                }
+                pos++;
+            }
+            return false;
+        }
+
+        // Parses an optionally signed int at pos; returns Long.MIN_VALUE if there is none or it overflows
+        private long parseInt() {
+            boolean negative = consume('-');
+            int start = pos;
+            long value = 0;
+            while (pos < length && line[pos] >= '0' && line[pos] <= '9') {
+                value = value * 10 + (line[pos] - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    return Long.MIN_VALUE;
+                }
+                pos++;
+            }
+            if (pos == start) {
+                return Long.MIN_VALUE;
+            }
+            value = negative ? -value : value;
+            return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+        }
+
+        private boolean consume(char expected) {
+            if (pos < length && line[pos] == expected) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (pos < length && isSpace(line[pos])) {
+                pos++;
+            }
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+    }
+}
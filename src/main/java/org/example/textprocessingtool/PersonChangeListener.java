@@ -0,0 +1,35 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+
+import java.util.List;
+
+/**
+ * The PersonChangeListener interface receives every change made to the persons of a DataManager,
+ * right after it happened and on the thread that made it.
+ * Persons are kept in creation order, so added persons are always at the end of the list.
+ */
+public interface PersonChangeListener {
+
+    /**
+     * Called after persons were appended, by a single create or a bulk load.
+     *
+     * @param added The new persons, in creation order.
+     */
+    void personsAdded(List<Person> added);
+
+    /**
+     * Called after the age of a person changed.
+     *
+     * @param person The person, already holding the new age.
+     * @param oldAge The age before the change.
+     */
+    void personUpdated(Person person, int oldAge);
+
+    /**
+     * Called after a person was deleted.
+     *
+     * @param person The deleted person.
+     */
+    void personRemoved(Person person);
+}
@@ -0,0 +1,372 @@
+package org.example.textprocessingtool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The PersonColumnStore class is the storage behind DataManager: persons are kept column by column
+ * instead of as one object each.
+ * Every person is a row: its age sits in an int array, its name is packed as UTF-8 into one shared byte arena,
+ * and an open-addressing hash table of row ids maps names to rows. No object is kept per person,
+ * so a row costs about 28 bytes plus the name's bytes, against well over 100 bytes for an object
+ * referenced from hash-based collections.
+ * Rows keep their creation order. Deleting a person only marks its row, which keeps its name and age;
+ * compact() reclaims the space and renumbers the rows, keeping their order.
+ * Each row also carries an id that is never reused, so a Person view can find its row again after compact().
+ * This class is not thread-safe.
+ */
+class PersonColumnStore {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Columns, indexed by row id
+    private int[] ages;
+    private int[] nameStarts;
+    private int[] nameLengths;
+    private int[] hashes;
+    private int[] ids; // Negated in deleted rows
+    private int rowCount;     // Rows in use, including deleted ones
+    private int deletedCount;
+    private int nextId = 1;
+
+    private byte[] arena; // UTF-8 bytes of every name, back to back
+    private int arenaSize;
+
+    // Open-addressing table with linear probing; each slot holds row id + 1, or 0 when empty
+    private int[] table;
+    private int generation; // Bumped by compact(), which renumbers rows
+
+    /**
+     * Constructor to initialize an empty store.
+     */
+    PersonColumnStore() {
+        ages = new int[DEFAULT_CAPACITY];
+        nameStarts = new int[DEFAULT_CAPACITY];
+        nameLengths = new int[DEFAULT_CAPACITY];
+        hashes = new int[DEFAULT_CAPACITY];
+        ids = new int[DEFAULT_CAPACITY];
+        arena = new byte[DEFAULT_CAPACITY * 8];
+        table = new int[tableSizeFor(DEFAULT_CAPACITY)];
+    }
+
+    /**
+     * Adds a row for a new person unless a person with the same name already exists.
+     *
+     * @param name The name of the person.
+     * @param age  The age of the person.
+     * @return The row of the new person, or -1 if the name was taken.
+     */
+    int create(String name, int age) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(utf8);
+        int slot = findSlot(utf8, hash);
+        if (table[slot] != 0) {
+            return -1;
+        }
+
+        int row = rowCount;
+        ensureRowCapacity(row + 1);
+        ensureArenaCapacity((long) arenaSize + utf8.length);
+        System.arraycopy(utf8, 0, arena, arenaSize, utf8.length);
+        ages[row] = age;
+        nameStarts[row] = arenaSize;
+        nameLengths[row] = utf8.length;
+        hashes[row] = hash;
+        ids[row] = nextId++;
+        arenaSize += utf8.length;
+        rowCount++;
+
+        table[slot] = row + 1;
+        if (size() > table.length / 3 * 2) {
+            rebuildTable(tableSizeFor(size()));
+        }
+        return row;
+    }
+
+    /**
+     * Marks a row as deleted and removes its name from the hash table.
+     *
+     * @param row A live row.
+     */
+    void delete(int row) {
+        byte[] utf8 = Arrays.copyOfRange(arena, nameStarts[row], nameStarts[row] + nameLengths[row]);
+        removeSlot(findSlot(utf8, hashes[row]));
+        ids[row] = -ids[row];
+        deletedCount++;
+    }
+
+    /**
+     * Finds the row of the person with the given name.
+     *
+     * @param name The name to look up.
+     * @return The row, or -1 if no live person has that name.
+     */
+    int rowOf(String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        return table[findSlot(utf8, hash(utf8))] - 1;
+    }
+
+    /**
+     * Checks whether a row holds a person that was not deleted.
+     *
+     * @param row The row, below getRowCount().
+     * @return true if the row is live.
+     */
+    boolean isLive(int row) {
+        return ids[row] > 0;
+    }
+
+    /**
+     * Gets the age in a row. A deleted row keeps the last age it had until compact().
+     *
+     * @param row The row.
+     * @return The age.
+     */
+    int ageAt(int row) {
+        return ages[row];
+    }
+
+    /**
+     * Sets the age in a live row.
+     *
+     * @param row The row.
+     * @param age The new age.
+     */
+    void setAge(int row, int age) {
+        ages[row] = age;
+    }
+
+    /**
+     * Gets the id of the person in a row, which stays the same across compact() and is never reused.
+     *
+     * @param row The row.
+     * @return The id.
+     */
+    int idAt(int row) {
+        return Math.abs(ids[row]);
+    }
+
+    /**
+     * Decodes the name in a row, which a deleted row keeps until compact().
+     *
+     * @param row The row.
+     * @return The name.
+     */
+    String nameAt(int row) {
+        return new String(arena, nameStarts[row], nameLengths[row], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the names in two rows the way String.CASE_INSENSITIVE_ORDER compares them as strings.
+     * Names are compared on their bytes up to the first difference; only a difference in a non-ASCII
+     * character needs both names decoded.
+     *
+     * @param a The first row.
+     * @param b The second row.
+     * @return A negative number, zero or a positive number as the first name sorts before, with or after the second.
+     */
+    int compareNamesIgnoreCase(int a, int b) {
+        int startA = nameStarts[a];
+        int startB = nameStarts[b];
+        int common = Math.min(nameLengths[a], nameLengths[b]);
+        for (int i = 0; i < common; i++) {
+            byte x = arena[startA + i];
+            byte y = arena[startB + i];
+            if (x == y) {
+                continue;
+            }
+            if (x < 0 || y < 0) {
+                return String.CASE_INSENSITIVE_ORDER.compare(nameAt(a), nameAt(b));
+            }
+            int lowerX = x >= 'A' && x <= 'Z' ? x + ('a' - 'A') : x;
+            int lowerY = y >= 'A' && y <= 'Z' ? y + ('a' - 'A') : y;
+            if (lowerX != lowerY) {
+                return lowerX - lowerY;
+            }
+        }
+        // Equal so far, and the shorter name ends on a whole character, so the longer one sorts after it
+        return nameLengths[a] - nameLengths[b];
+    }
+
+    /**
+     * Gets the number of persons.
+     *
+     * @return The number of persons, not counting deleted rows.
+     */
+    int size() {
+        return rowCount - deletedCount;
+    }
+
+    /**
+     * Gets the number of rows, including deleted ones; every row below it is either live or deleted.
+     *
+     * @return The number of rows.
+     */
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the number of deleted rows that compact() would reclaim.
+     *
+     * @return The number of deleted rows.
+     */
+    int getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * Gets a number that changes whenever compact() renumbers the rows.
+     *
+     * @return The current generation.
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Makes room for the given number of persons, so adding up to that many never resizes the columns or the table.
+     *
+     * @param expectedSize The number of persons to make room for.
+     */
+    void ensureCapacity(int expectedSize) {
+        ensureRowCapacity(deletedCount + expectedSize);
+        if (tableSizeFor(expectedSize) > table.length) {
+            rebuildTable(tableSizeFor(expectedSize));
+        }
+    }
+
+    /**
+     * Estimates the heap used by the columns, the name arena and the hash table.
+     *
+     * @return The allocated size in bytes.
+     */
+    long getMemoryUsage() {
+        return 4L * (ages.length + nameStarts.length + nameLengths.length + hashes.length + ids.length + table.length)
+                + arena.length;
+    }
+
+    /**
+     * Drops deleted rows and their name bytes, renumbering the remaining rows in creation order.
+     *
+     * @return For each old row, its new row, or -1 if it was deleted.
+     */
+    int[] compact() {
+        int[] moved = new int[rowCount];
+        int target = 0;
+        int arenaTarget = 0;
+        for (int row = 0; row < rowCount; row++) {
+            int length = nameLengths[row];
+            if (ids[row] < 0) {
+                moved[row] = -1;
+                continue;
+            }
+            System.arraycopy(arena, nameStarts[row], arena, arenaTarget, length);
+            ages[target] = ages[row];
+            nameStarts[target] = arenaTarget;
+            nameLengths[target] = length;
+            hashes[target] = hashes[row];
+            ids[target] = ids[row];
+            arenaTarget += length;
+            moved[row] = target++;
+        }
+        rowCount = target;
+        deletedCount = 0;
+        arenaSize = arenaTarget;
+        generation++;
+        rebuildTable(tableSizeFor(rowCount));
+        return moved;
+    }
+
+    // Returns the slot holding the name, or the empty slot where it would be inserted
+    private int findSlot(byte[] utf8, int hash) {
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return slot;
+            }
+            int row = entry - 1;
+            if (hashes[row] == hash && nameEquals(row, utf8)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // Empties a slot and shifts later entries of the same probe run back, so no tombstones are needed
+    private void removeSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (table[next] != 0) {
+            int home = mix(hashes[table[next] - 1]) & mask;
+            // Move the entry into the hole unless its home slot lies cyclically after the hole
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    private void rebuildTable(int size) {
+        table = new int[size];
+        int mask = size - 1;
+        for (int row = 0; row < rowCount; row++) {
+            if (ids[row] < 0) {
+                continue;
+            }
+            int slot = mix(hashes[row]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = row + 1;
+        }
+    }
+
+    private boolean nameEquals(int row, byte[] utf8) {
+        int start = nameStarts[row];
+        return nameLengths[row] == utf8.length
+                && Arrays.equals(arena, start, start + utf8.length, utf8, 0, utf8.length);
+    }
+
+    private void ensureRowCapacity(int rows) {
+        if (rows > ages.length) {
+            int capacity = Math.max(rows, ages.length + (ages.length >> 1));
+            ages = Arrays.copyOf(ages, capacity);
+            nameStarts = Arrays.copyOf(nameStarts, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+    }
+
+    private void ensureArenaCapacity(long bytes) {
+        if (bytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Name arena exceeds 2 GB");
+        }
+        if (bytes > arena.length) {
+            long capacity = Math.max(bytes, arena.length + ((long) arena.length >> 1));
+            arena = Arrays.copyOf(arena, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+    }
+
+    // Smallest power of two that keeps the table at most two thirds full
+    private static int tableSizeFor(int entries) {
+        int needed = Math.max(DEFAULT_CAPACITY, (int) Math.min((long) entries * 3 / 2 + 1, 1 << 30));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private static int hash(byte[] utf8) {
+        return Arrays.hashCode(utf8);
+    }
+
+    // Spreads the bits so similar names do not cluster in the table
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
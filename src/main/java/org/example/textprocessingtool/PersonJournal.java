@@ -0,0 +1,585 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The PersonJournal class makes the persons of a DataManager survive a restart.
+ * Every create, update and delete is appended to a write-ahead log. Appending only copies the record
+ * into a memory buffer; a background thread writes the buffer out and fsyncs it every few milliseconds,
+ * so many changes share one fsync (group commit) and the caller never waits for the disk.
+ * A change is therefore durable at most one flush interval after it was made; sync() waits for it.
+ *
+ * Once the log has grown larger than the last snapshot, the persons are written to a new binary snapshot
+ * and a new log file is started, after which the older log files are deleted.
+ * On startup the snapshot is memory-mapped and decoded, and the log files written since are replayed.
+ * A record torn by a crash ends the replay; the log is cut back to the last complete record.
+ * Failures to write in the background are handed to the failure handler and thrown again by sync and close.
+ *
+ * Changes must come from one thread at a time, as DataManager is not thread-safe anyway;
+ * a snapshot copies the persons on that thread.
+ *
+ * Files in the data directory:
+ * persons.snapshot holds a header (magic, version, log generation, count), one (age, name length, UTF-8 name)
+ * record per person in creation order, and a CRC32C of everything before it.
+ * persons-N.wal holds the changes made after the snapshot of generation N, each as
+ * (payload length, CRC32C of the payload, operation, age, UTF-8 name).
+ */
+public class PersonJournal implements Closeable {
+
+    private static final String SNAPSHOT_FILE = "persons.snapshot";
+    private static final String LOCK_FILE = "persons.lock";
+    private static final String LOG_PREFIX = "persons-";
+    private static final String LOG_SUFFIX = ".wal";
+
+    private static final int SNAPSHOT_MAGIC = 0x50534E50; // "PSNP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_SIZE = 20;
+    private static final int RECORD_HEADER_SIZE = 8; // Payload length and CRC
+    private static final int PAYLOAD_HEADER_SIZE = 5; // Operation and age
+
+    private static final byte CREATE = 1;
+    private static final byte UPDATE = 2;
+    private static final byte DELETE = 3;
+
+    private static final long FLUSH_INTERVAL_MILLIS = 10;
+    // The log is never compacted below this size, so small data sets do not rewrite the snapshot constantly
+    private static final long MIN_COMPACTION_BYTES = 4L << 20;
+
+    private final Path directory;
+    private final DataManager target;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    // Single thread that writes and fsyncs the log and writes snapshots, so file writes never overlap
+    private final ScheduledExecutorService writer;
+    private final CRC32C crc = new CRC32C(); // Guarded by this
+
+    // Records appended since the last flush; swapped with flushBuffer by the writer thread
+    private byte[] pending = new byte[64 * 1024]; // Guarded by this
+    private int pendingSize;                      // Guarded by this
+    private byte[] flushBuffer = new byte[64 * 1024]; // Owned by the writer thread
+
+    private FileChannel log;          // Guarded by this
+    private long generation;          // Guarded by this
+    private FileChannel retiredLog;   // Log replaced by a newer generation, still to be completed; guarded by this
+    private byte[] retiredTail;       // Last records of the retired log; guarded by this
+    private long logBytes;            // Bytes in the log files since the last snapshot; guarded by this
+    private long snapshotBytes;       // Guarded by this
+    private boolean snapshotRunning;  // Guarded by this
+    private volatile IOException failure; // First background write failure, reported by sync and close
+    private Consumer<IOException> failureHandler; // Told about that failure; guarded by this
+    private final long discardedBytes; // Bytes of torn records cut from the log on opening
+
+    private PersonJournal(Path directory, DataManager target, FileChannel lockChannel, FileLock lock,
+                          long generation, long logBytes, long snapshotBytes, long discardedBytes) throws IOException {
+        this.directory = directory;
+        this.target = target;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+        this.generation = generation;
+        this.logBytes = logBytes;
+        this.snapshotBytes = snapshotBytes;
+        this.discardedBytes = discardedBytes;
+        this.log = openLog(generation);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "person-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the journal in the given directory, restores the persons it holds into the DataManager,
+     * and attaches itself so every later change of the DataManager is recorded.
+     *
+     * @param directory The data directory; it is created if missing.
+     * @param target    The DataManager to restore into, normally still empty.
+     * @return The open journal.
+     * @throws IOException If the directory is used by another process, or the snapshot cannot be read.
+     */
+    public static PersonJournal open(Path directory, DataManager target) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // Already open in this JVM
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("The data directory " + directory + " is used by another process");
+        }
+
+        try {
+            Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+            Snapshot snapshot = Files.exists(snapshotFile)
+                    ? readSnapshot(snapshotFile)
+                    : new Snapshot(0, new LinkedHashMap<>());
+            LinkedHashMap<String, Person> restored = snapshot.persons();
+            long snapshotGeneration = snapshot.generation();
+            long snapshotBytes = Files.exists(snapshotFile) ? Files.size(snapshotFile) : 0;
+
+            long generation = snapshotGeneration;
+            long logBytes = 0;
+            long discardedBytes = 0;
+            List<Long> generations = listLogGenerations(directory);
+            for (int i = 0; i < generations.size(); i++) {
+                long logGeneration = generations.get(i);
+                Path file = logFile(directory, logGeneration);
+                if (logGeneration < snapshotGeneration) {
+                    Files.delete(file); // Already part of the snapshot
+                    continue;
+                }
+                generation = logGeneration;
+                long size = Files.size(file);
+                long valid = replayLog(file, restored);
+                logBytes += valid;
+                if (valid < size) {
+                    // Everything after a torn record, including later logs, was never acknowledged as durable
+                    discardedBytes = size - valid;
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(valid);
+                        channel.force(true);
+                    }
+                    for (int j = i + 1; j < generations.size(); j++) {
+                        Path later = logFile(directory, generations.get(j));
+                        discardedBytes += Files.size(later);
+                        Files.delete(later);
+                    }
+                    break;
+                }
+            }
+
+            target.ensureCapacity(restored.size());
+            target.createPersons(restored.values());
+            PersonJournal journal = new PersonJournal(directory, target, lockChannel, lock,
+                    generation, logBytes, snapshotBytes, discardedBytes);
+            target.setJournal(journal);
+            if (journal.needsSnapshot()) {
+                journal.snapshot();
+            }
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of bytes cut from the end of the log when the journal was opened,
+     * because a crash had torn the record there. They held the last changes before the crash,
+     * which had not been acknowledged as durable yet.
+     *
+     * @return The number of bytes discarded, or 0 if the log was complete.
+     */
+    public long getDiscardedBytes() {
+        return discardedBytes;
+    }
+
+    /**
+     * Sets the handler told about the first failure to write the log or a snapshot in the background.
+     * It runs on the thread that hit the failure, or right away if one has already happened, and must not block.
+     * Changes made after a failure are no longer saved.
+     *
+     * @param handler The handler, or null for none.
+     */
+    public void setFailureHandler(Consumer<IOException> handler) {
+        IOException failed;
+        synchronized (this) {
+            failureHandler = handler;
+            failed = failure;
+        }
+        if (handler != null && failed != null) {
+            handler.accept(failed);
+        }
+    }
+
+    /**
+     * Records that a person was created.
+     *
+     * @param name The name of the person.
+     * @param age  The age of the person.
+     */
+    public void logCreate(String name, int age) {
+        append(CREATE, name, age);
+    }
+
+    /**
+     * Records that the age of a person was changed.
+     *
+     * @param name   The name of the person.
+     * @param newAge The new age of the person.
+     */
+    public void logUpdate(String name, int newAge) {
+        append(UPDATE, name, newAge);
+    }
+
+    /**
+     * Records that a person was deleted.
+     *
+     * @param name The name of the person.
+     */
+    public void logDelete(String name) {
+        append(DELETE, name, 0);
+    }
+
+    /**
+     * Writes a snapshot of the current persons and starts a new log file, unless a snapshot is already being written.
+     * The persons are copied on the calling thread; encoding and writing the snapshot happens in the background.
+     * This runs automatically once the log has grown larger than the last snapshot.
+     */
+    public void snapshot() {
+        String[] names;
+        int[] ages;
+        long snapshotGeneration;
+        synchronized (this) {
+            if (snapshotRunning) {
+                return;
+            }
+            // Persons are mutable, so copy their state now. Copying under the same lock as the log rotation
+            // means every change is either in the copy or appended to the new log, never only to the retired one
+            ArrayList<Person> persons = target.getAllPersons();
+            names = new String[persons.size()];
+            ages = new int[persons.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = persons.get(i).getName();
+                ages[i] = persons.get(i).getAge();
+            }
+            // The records so far complete the current log; the next flush finishes it before anything else
+            FileChannel next;
+            try {
+                next = openLog(generation + 1);
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+            retiredLog = log;
+            retiredTail = Arrays.copyOf(pending, pendingSize);
+            pendingSize = 0;
+            log = next;
+            generation++;
+            snapshotGeneration = generation;
+            logBytes = 0;
+            snapshotRunning = true;
+        }
+
+        writer.execute(() -> {
+            try {
+                flush();
+                long size = writeSnapshot(names, ages, snapshotGeneration);
+                synchronized (this) {
+                    snapshotBytes = size;
+                }
+                for (long old : listLogGenerations(directory)) {
+                    if (old < snapshotGeneration) {
+                        Files.deleteIfExists(logFile(directory, old));
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            } finally {
+                synchronized (this) {
+                    snapshotRunning = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until every change recorded so far is written and fsynced.
+     *
+     * @throws IOException If writing the log failed.
+     */
+    public void sync() throws IOException {
+        try {
+            writer.submit(this::flushQuietly).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the journal", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Writes out every recorded change, waits for a snapshot in progress, detaches from the DataManager
+     * and releases the data directory.
+     *
+     * @throws IOException If writing the log failed at any point.
+     */
+    @Override
+    public void close() throws IOException {
+        target.setJournal(null);
+        try {
+            sync();
+        } finally {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                log.close();
+            }
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    // Encodes a record straight into the pending buffer; the CRC covers the operation, age and name
+    private void append(byte operation, String name, int age) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = PAYLOAD_HEADER_SIZE + utf8.length;
+        int recordLength = RECORD_HEADER_SIZE + payloadLength;
+        boolean compact;
+        synchronized (this) {
+            if (pendingSize + recordLength > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingSize + recordLength));
+            }
+            ByteBuffer record = ByteBuffer.wrap(pending, pendingSize, recordLength);
+            record.putInt(payloadLength).putInt(0).put(operation).putInt(age).put(utf8);
+            crc.reset();
+            crc.update(pending, pendingSize + RECORD_HEADER_SIZE, payloadLength);
+            ByteBuffer.wrap(pending).putInt(pendingSize + 4, (int) crc.getValue());
+            pendingSize += recordLength;
+            logBytes += recordLength;
+            compact = needsSnapshot();
+        }
+        if (compact) {
+            snapshot();
+        }
+    }
+
+    private synchronized boolean needsSnapshot() {
+        return !snapshotRunning && logBytes > Math.max(MIN_COMPACTION_BYTES, snapshotBytes);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // Runs on the writer thread: completes a retired log first, then writes and fsyncs the pending records
+    private void flush() throws IOException {
+        FileChannel retired;
+        byte[] tail;
+        FileChannel channel;
+        byte[] data;
+        int size;
+        synchronized (this) {
+            retired = retiredLog;
+            tail = retiredTail;
+            retiredLog = null;
+            retiredTail = null;
+            channel = log;
+            data = pending;
+            size = pendingSize;
+            pending = flushBuffer;
+            pendingSize = 0;
+        }
+        flushBuffer = data;
+
+        if (retired != null) {
+            writeFully(retired, tail, tail.length);
+            retired.force(false);
+            retired.close();
+        }
+        if (size > 0) {
+            writeFully(channel, data, size);
+            channel.force(false);
+        }
+    }
+
+    private long writeSnapshot(String[] names, int[] ages, long snapshotGeneration) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream stream = Channels.newOutputStream(channel);
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(stream, 1 << 16), checksum);
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(snapshotGeneration);
+            out.writeInt(names.length);
+            for (int i = 0; i < names.length; i++) {
+                byte[] utf8 = names[i].getBytes(StandardCharsets.UTF_8);
+                out.writeInt(ages[i]);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            out.flush();
+            // The checksum itself is not part of what it covers
+            new DataOutputStream(stream).writeInt((int) checksum.getValue());
+            channel.force(true);
+        }
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        return Files.size(snapshot);
+    }
+
+    // Makes the rename durable; not every platform can open a directory, which is then left to the OS
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort only
+        }
+    }
+
+    // Decodes a memory-mapped snapshot into a map sized for all of its persons
+    private static Snapshot readSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < SNAPSHOT_HEADER_SIZE + 4 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size " + size + " in " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.slice(0, (int) size - 4));
+            if (buffer.getInt((int) size - 4) != (int) checksum.getValue()) {
+                throw new IOException("The snapshot " + file + " is corrupt");
+            }
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot format in " + file);
+            }
+            long snapshotGeneration = buffer.getLong();
+            int count = buffer.getInt();
+            LinkedHashMap<String, Person> persons = LinkedHashMap.newLinkedHashMap(count);
+            byte[] name = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int age = buffer.getInt();
+                int length = buffer.getInt();
+                if (length > name.length) {
+                    name = new byte[Math.max(length, name.length * 2)];
+                }
+                buffer.get(name, 0, length);
+                String decoded = new String(name, 0, length, StandardCharsets.UTF_8);
+                persons.put(decoded, new Person(decoded, age));
+            }
+            return new Snapshot(snapshotGeneration, persons);
+        }
+    }
+
+    // Applies every complete record of a log file to the map; returns the length of the valid prefix
+    private static long replayLog(Path file, LinkedHashMap<String, Person> restored) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32C checksum = new CRC32C();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int start = buffer.position();
+            int payloadLength = buffer.getInt();
+            int expected = buffer.getInt();
+            if (payloadLength < PAYLOAD_HEADER_SIZE || payloadLength > buffer.remaining()) {
+                return start;
+            }
+            checksum.reset();
+            checksum.update(buffer.array(), buffer.position(), payloadLength);
+            if ((int) checksum.getValue() != expected) {
+                return start;
+            }
+            byte operation = buffer.get();
+            int age = buffer.getInt();
+            int nameLength = payloadLength - PAYLOAD_HEADER_SIZE;
+            String name = new String(buffer.array(), buffer.position(), nameLength, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + nameLength);
+            switch (operation) {
+                case CREATE -> restored.putIfAbsent(name, new Person(name, age));
+                case UPDATE -> restored.replace(name, new Person(name, age)); // Keeps the person's place
+                case DELETE -> restored.remove(name);
+                default -> {
+                    return start;
+                }
+            }
+        }
+        return buffer.position();
+    }
+
+    private static List<Long> listLogGenerations(Path directory) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, LOG_PREFIX + "*" + LOG_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    generations.add(Long.parseLong(name, LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length(), 10));
+                } catch (NumberFormatException e) {
+                    // Not one of our log files
+                }
+            }
+        }
+        generations.sort(null);
+        return generations;
+    }
+
+    private static Path logFile(Path directory, long generation) {
+        return directory.resolve(LOG_PREFIX + generation + LOG_SUFFIX);
+    }
+
+    private FileChannel openLog(long logGeneration) throws IOException {
+        return FileChannel.open(logFile(directory, logGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void writeFully(FileChannel channel, byte[] data, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data, 0, size);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private record Snapshot(long generation, LinkedHashMap<String, Person> persons) {
+    }
+
+    private void fail(IOException e) {
+        Consumer<IOException> handler;
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+            failure = e;
+            handler = failureHandler;
+        }
+        if (handler != null) {
+            handler.accept(e);
+        }
+    }
+}
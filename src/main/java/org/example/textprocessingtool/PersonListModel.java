@@ -0,0 +1,147 @@
+package org.example.textprocessingtool;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.example.textprocessingtool.DataManager.Person;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The PersonListModel class is a read-only ObservableList of person rows, such as "Ann (42 years)",
+ * kept in step with a DataManager through its change events.
+ * Changes are not applied one by one: they are queued, and a burst of them (a bulk import, or several
+ * edits in one event handler) is applied in the next FX pulse as a single list change.
+ * Only what changed is reported, so a ListView re-renders just the affected rows,
+ * and row strings are built only when a row is shown.
+ * The model must only be used from the JavaFX application thread.
+ * It is final because its constructor registers it with the DataManager, which must never see a half-built subclass.
+ */
+public final class PersonListModel extends ObservableListBase<String> implements PersonChangeListener {
+
+    private final ArrayList<Person> rows; // The persons shown, in creation order
+
+    // Changes not applied yet; persons are told apart by id, since a name may be deleted and created again
+    private final ArrayList<Person> pendingAdds = new ArrayList<>();
+    private final Map<Integer, Integer> pendingUpdates = new HashMap<>(); // Person id to its age before the pulse
+    private final Map<Integer, Integer> pendingRemovals = new HashMap<>(); // Person id to its age when shown
+    private boolean scheduled;
+    private final Consumer<Runnable> scheduler; // Runs the queued changes in the next pulse
+
+    /**
+     * Constructor to initialize the model with the current persons and follow every later change.
+     *
+     * @param dataManager The DataManager to show.
+     */
+    public PersonListModel(DataManager dataManager) {
+        this(dataManager, Platform::runLater);
+    }
+
+    /**
+     * Constructor to initialize the model with a custom way of running the queued changes later,
+     * so the model can be driven without a JavaFX toolkit.
+     *
+     * @param dataManager The DataManager to show.
+     * @param scheduler   Runs the given action later, on the thread that uses the model.
+     */
+    PersonListModel(DataManager dataManager, Consumer<Runnable> scheduler) {
+        this.scheduler = scheduler;
+        rows = dataManager.getAllPersons();
+        dataManager.addChangeListener(this);
+    }
+
+    /**
+     * Formats a person as shown in the list.
+     *
+     * @param name The name of the person.
+     * @param age  The age of the person.
+     * @return The row text.
+     */
+    public static String format(String name, int age) {
+        return name + " (" + age + " years)";
+    }
+
+    @Override
+    public String get(int index) {
+        Person person = rows.get(index);
+        return format(person.getName(), person.getAge());
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public void personsAdded(List<Person> added) {
+        pendingAdds.addAll(added);
+        schedule();
+    }
+
+    @Override
+    public void personUpdated(Person person, int oldAge) {
+        // Only the first age counts: it is what the list still shows
+        pendingUpdates.putIfAbsent(person.getId(), oldAge);
+        schedule();
+    }
+
+    @Override
+    public void personRemoved(Person person) {
+        Integer shownAge = pendingUpdates.remove(person.getId());
+        // A person added and removed within one pulse never reaches the list
+        if (!pendingAdds.isEmpty() && pendingAdds.removeIf(added -> added.getId() == person.getId())) {
+            return;
+        }
+        pendingRemovals.put(person.getId(), shownAge != null ? shownAge : person.getAge());
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            scheduler.accept(this::applyPending);
+        }
+    }
+
+    /**
+     * Applies every queued change as one list change: removals and updates in a single pass over the rows,
+     * then the appended persons as one added range.
+     */
+    void applyPending() {
+        scheduled = false;
+        if (pendingAdds.isEmpty() && pendingUpdates.isEmpty() && pendingRemovals.isEmpty()) {
+            return;
+        }
+        beginChange();
+        if (!pendingRemovals.isEmpty() || !pendingUpdates.isEmpty()) {
+            // Compact the rows in place; indices passed to the change are those after earlier removals
+            int target = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                Person person = rows.get(i);
+                Integer removedAge = pendingRemovals.remove(person.getId());
+                if (removedAge != null) {
+                    nextRemove(target, format(person.getName(), removedAge));
+                    continue;
+                }
+                Integer oldAge = pendingUpdates.remove(person.getId());
+                if (oldAge != null) {
+                    nextSet(target, format(person.getName(), oldAge));
+                }
+                rows.set(target++, person);
+            }
+            rows.subList(target, rows.size()).clear();
+            pendingRemovals.clear();
+            pendingUpdates.clear(); // Updates of persons still pending addition need no change of their own
+        }
+        if (!pendingAdds.isEmpty()) {
+            int from = rows.size();
+            rows.addAll(pendingAdds);
+            pendingAdds.clear();
+            nextAdd(from, rows.size());
+        }
+        endChange();
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.textprocessingtool;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The PersonMissEvent class is the Flight Recorder event for a DataManager change that did nothing:
+ * creating a name that already exists, or updating or deleting a name that does not.
+ */
+@Name("org.example.textprocessingtool.PersonMiss")
+@Label("Person Operation Missed")
+@Category({"Text Processing Tool", "Data Management"})
+@Description("A create of an existing name, or an update or delete of a missing one")
+@StackTrace(false)
+class PersonMissEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Name")
+    String name;
+
+    /**
+     * Commits a miss, if the event is enabled.
+     *
+     * @param operation The operation: "create", "update" or "delete".
+     * @param name      The name it was called with.
+     */
+    static void emit(String operation, String name) {
+        PersonMissEvent event = new PersonMissEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.name = name;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.textprocessingtool;
+
+import java.time.Duration;
+
+/**
+ * The RegexBudget record limits how much work a single regex evaluation may do.
+ * The work is bounded by wall-clock time, by the number of characters the matcher reads, or by both.
+ * A backtracking pattern such as (a+)+$ reads the same characters over and over,
+ * so either limit stops it long before it can pin a core.
+ *
+ * @param timeout  The maximum wall-clock time per evaluation, or null for no time limit.
+ * @param maxSteps The maximum number of character reads per evaluation; Long.MAX_VALUE for no limit.
+ */
+public record RegexBudget(Duration timeout, long maxSteps) {
+
+    /** A budget that never aborts an evaluation. */
+    public static final RegexBudget UNLIMITED = new RegexBudget(null, Long.MAX_VALUE);
+
+    /** The budget used by RegexProcessor unless another one is given: 30 seconds, no step limit. */
+    public static final RegexBudget DEFAULT = new RegexBudget(Duration.ofSeconds(30), Long.MAX_VALUE);
+
+    public RegexBudget {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("timeout must be positive: " + timeout);
+        }
+        if (maxSteps <= 0) {
+            throw new IllegalArgumentException("maxSteps must be positive: " + maxSteps);
+        }
+    }
+
+    /**
+     * Creates a budget limited by wall-clock time only.
+     *
+     * @param timeout The maximum time per evaluation.
+     * @return The budget.
+     */
+    public static RegexBudget ofTimeout(Duration timeout) {
+        return new RegexBudget(timeout, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a budget limited by character reads only, which makes the limit independent of machine speed.
+     *
+     * @param maxSteps The maximum number of character reads per evaluation.
+     * @return The budget.
+     */
+    public static RegexBudget ofSteps(long maxSteps) {
+        return new RegexBudget(null, maxSteps);
+    }
+
+    /**
+     * Checks whether this budget never aborts an evaluation.
+     *
+     * @return true if neither a timeout nor a step limit is set, false otherwise.
+     */
+    public boolean isUnlimited() {
+        return timeout == null && maxSteps == Long.MAX_VALUE;
+    }
+}
@@ -1,17 +1,27 @@
 package org.example.textprocessingtool;
 
 import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.stage.FileChooser;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Set;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.MatchResult;
 
 
 /**
@@ -22,8 +32,31 @@ import java.util.Set;
  */
 public class RegexController {
 
+    // Matches collected on the worker before they are handed to the result list
+    private static final int RESULT_BATCH_SIZE = 4096;
+
+    // Texts at least this long are indexed by their first search, so later searches skip most of the text
+    private static final int INDEX_MIN_LENGTH = 256 * 1024;
+
+    // Persons are kept here between runs
+    private static final Path DATA_DIRECTORY = Path.of(System.getProperty("user.home"), ".textprocessingtool");
+
     private TextProcessor textProcessor;
     private DataManager dataManager;
+    private PersonJournal personJournal; // Null if the data directory could not be opened
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry(); // JMX view of the metrics
+    private final TextStatistics textStatistics = new TextStatistics(); // Counts for the input text, kept up to date per edit
+    private TrigramIndex textIndex; // Index of the input text, or null until a search builds it
+    private long textVersion; // Incremented on every edit, so an index built for an older text is dropped
+
+    // Search and replace run here so a slow pattern never blocks the FX thread
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Task<?> currentTask;
+    private Task<?> importTask; // The running import; only the Cancel button stops it, search and replace wait
+
+    // Search results as offsets into the searched text; the list view creates strings only for visible rows
+    private final MatchResultList matchResults = new MatchResultList();
+    private final Label resultPlaceholder = new Label();
 
     // Text Processing
     @FXML private TextArea inputTextArea;
@@ -31,6 +64,8 @@ public class RegexController {
     @FXML private TextField replacementField;
     @FXML private Button searchButton;
     @FXML private Button replaceButton;
+    @FXML private Button cancelButton;
+    @FXML private ProgressBar progressBar;
     @FXML private Button clearInputButton;
     @FXML private Button copyResultButton;
     @FXML private Button saveResultButton;
@@ -40,6 +75,7 @@ public class RegexController {
     // Advanced Text Analysis
     @FXML private Label wordCountLabel;
     @FXML private Label charCountLabel;
+    @FXML private Label lineCountLabel;
 
     // Data Management
     @FXML private TextField nameField;
@@ -47,6 +83,9 @@ public class RegexController {
     @FXML private Button createPersonButton;
     @FXML private Button updatePersonButton;
     @FXML private Button deletePersonButton;
+    @FXML private Button importPersonsButton;
+    @FXML private Button exportPersonsButton;
+    @FXML private Button personStatisticsButton;
     @FXML private ListView<String> personListView;
 
     // Regex Examples
@@ -61,10 +100,33 @@ public class RegexController {
         // Initialize the controllers
         textProcessor = new TextProcessor();
         dataManager = new DataManager();
+        // Journal problems are shown once the window is up; the journal reports write failures from its own thread
+        try {
+            personJournal = PersonJournal.open(DATA_DIRECTORY, dataManager);
+            personJournal.setFailureHandler(e -> Platform.runLater(() ->
+                    showError("Failed to save the persons, later changes will not be saved: " + e.getMessage())));
+            long discarded = personJournal.getDiscardedBytes();
+            if (discarded > 0) {
+                Platform.runLater(() -> showError("The last changes to the persons before the application stopped"
+                        + " were incomplete and have been discarded (" + discarded + " bytes)."));
+            }
+        } catch (IOException e) {
+            Platform.runLater(() ->
+                    showError("Failed to open the data directory, changes will not be saved: " + e.getMessage()));
+        }
+        metricsRegistry.register("RegexMetrics", null, RegexMetrics.shared());
+        metricsRegistry.register("DataManagerMetrics", "persons", dataManager.getMetrics());
 
         // Set up actions for text processing buttons
         searchButton.setOnAction(e -> performSearch());
         replaceButton.setOnAction(e -> performReplace());
+        cancelButton.setOnAction(e -> {
+            if (currentTask != null) {
+                currentTask.cancel();
+            }
+        });
+        resultListView.setItems(matchResults);
+        resultListView.setPlaceholder(resultPlaceholder);
         clearInputButton.setOnAction(e -> clearInput());
         copyResultButton.setOnAction(e -> copyResultToClipboard());
         saveResultButton.setOnAction(e -> saveResultToFile());
@@ -73,18 +135,45 @@ public class RegexController {
         createPersonButton.setOnAction(e -> createPerson());
         updatePersonButton.setOnAction(e -> updatePerson());
         deletePersonButton.setOnAction(e -> deletePerson());
+        importPersonsButton.setOnAction(e -> importPersons());
+        exportPersonsButton.setOnAction(e -> exportPersons());
+        personStatisticsButton.setOnAction(e -> showPersonStatistics());
 
         // Set up action for displaying regex examples
         displayRegexExamplesButton.setOnAction(e -> displayRegexExamples());
 
-        // Populate person list on initialization
-        refreshPersonList();
+        // Show the persons; the list follows every change of the data manager from now on
+        personListView.setItems(new PersonListModel(dataManager));
 
         // Update text statistics initially
         updateTextStatistics();
 
-        // Add listener to update stats as user types
-        inputTextArea.textProperty().addListener((observable, oldValue, newValue) -> updateTextStatistics());
+        // Add listener to update stats as user types, rescanning only the edited range
+        inputTextArea.textProperty().addListener((observable, oldValue, newValue) -> {
+            textStatistics.update(oldValue, newValue);
+            showTextStatistics();
+            textIndex = null;
+            textVersion++;
+        });
+    }
+
+    /**
+     * Stops running tasks and writes out every pending change to the persons.
+     * Called by the application when the window is closed.
+     */
+    public void shutdown() {
+        if (currentTask != null) {
+            currentTask.cancel();
+        }
+        executor.shutdownNow();
+        metricsRegistry.close();
+        if (personJournal != null) {
+            try {
+                personJournal.close();
+            } catch (IOException e) {
+                showError("Failed to save the persons: " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -103,7 +192,9 @@ public class RegexController {
 
     /**
      * Searches for matches of the regex pattern in the input text area and displays the results in the result list view.
-     * If no matches are found, an error message is shown.
+     * The search runs in the background; matches are added to the list in batches as they are found.
+     * The first search over a long text also indexes it, and later searches over the same text use the index.
+     * If no matches are found, a message is shown instead.
      */
     private void performSearch() {
         String text = inputTextArea.getText();
@@ -114,19 +205,60 @@ public class RegexController {
             return;
         }
 
-        var searchResults = textProcessor.searchText(text, pattern);
-        resultListView.getItems().clear();
-
-        if (searchResults.isEmpty()) {
-            resultListView.getItems().add("No matches found.");
-        } else {
-            resultListView.getItems().addAll(searchResults);
-        }
+        cancelCurrentTask();
+        matchResults.reset(text);
+        resultPlaceholder.setText("Searching...");
+
+        long version = textVersion;
+        TrigramIndex[] index = {textIndex};
+
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() {
+                if (index[0] == null && text.length() >= INDEX_MIN_LENGTH) {
+                    index[0] = textProcessor.indexText(text);
+                }
+                int length = text.length();
+                CharSequence input = new InterruptibleCharSequence(text, index -> updateProgress(index, length));
+                BatchPublisher<MatchOffsets> publisher = new BatchPublisher<>(1, batches -> {
+                    // Drop batches that arrive after the user cancelled
+                    if (!isCancelled()) {
+                        batches.forEach(matchResults::append);
+                    }
+                });
+
+                // Matches are collected as offsets and handed over a whole batch at a time
+                MatchOffsets[] batch = {new MatchOffsets(text, 0, RESULT_BATCH_SIZE)};
+                Consumer<MatchResult> collector = match -> {
+                    batch[0].add(match);
+                    if (batch[0].size() == RESULT_BATCH_SIZE) {
+                        publisher.add(batch[0]);
+                        batch[0] = new MatchOffsets(text, 0, RESULT_BATCH_SIZE);
+                    }
+                };
+                int count = index[0] != null
+                        ? textProcessor.scanText(input, index[0], pattern, collector)
+                        : textProcessor.scanText(input, pattern, collector);
+                publisher.add(batch[0]);
+                publisher.flush();
+                updateProgress(length, length);
+                return count;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            resultPlaceholder.setText(task.getValue() == 0 ? "No matches found." : "");
+            // Keep a newly built index unless the text was edited while the search ran
+            if (textVersion == version) {
+                textIndex = index[0];
+            }
+            finishTask(task);
+        });
+        runInBackground(task);
     }
 
     /**
      * Replaces occurrences of the regex pattern in the input text area with the replacement text.
-     * The replaced text is displayed in the result text area.
+     * The replacement runs in the background and the replaced text is displayed in the result text area.
      */
     private void performReplace() {
         String text = inputTextArea.getText();
@@ -138,8 +270,210 @@ public class RegexController {
             return;
         }
 
-        String replacedText = textProcessor.replaceText(text, pattern, replacement);
-        resultTextArea.setText(replacedText);
+        cancelCurrentTask();
+
+        Task<String> task = new Task<>() {
+            @Override
+            protected String call() {
+                int length = text.length();
+                CharSequence input = new InterruptibleCharSequence(text, index -> updateProgress(index, length));
+                String replacedText = textProcessor.replaceText(input, pattern, replacement);
+                updateProgress(length, length);
+                return replacedText;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            resultTextArea.setText(task.getValue());
+            finishTask(task);
+        });
+        runInBackground(task);
+    }
+
+    /**
+     * Imports persons from a CSV or JSON Lines file selected by the user.
+     * The file is parsed in the background; the parsed batches are added to the data manager
+     * on the FX thread, one batch per pulse, so the window stays responsive during large imports.
+     * Batches added are kept even if the import is cancelled or fails, so the user is told how many there were.
+     * Search and replace are disabled while the import runs, so they cannot cancel it halfway.
+     */
+    private void importPersons() {
+        File file = personFileChooser("Import Persons").showOpenDialog(null);
+        if (file == null) {
+            return;
+        }
+
+        cancelCurrentTask();
+        PersonBulkLoader loader = new PersonBulkLoader();
+        long estimate;
+        try {
+            estimate = loader.estimateRows(file.toPath());
+        } catch (IOException e) {
+            showError("Failed to read file: " + e.getMessage());
+            return;
+        }
+        // Size the map for the whole file up front so it does not rehash while loading
+        dataManager.ensureCapacity(dataManager.size() + (int) Math.min(estimate, Integer.MAX_VALUE - 8));
+        PersonBulkLoader.Format format = PersonBulkLoader.Format.forFile(file.toPath());
+        long[] added = {0};
+
+        Task<PersonBulkLoader.LoadResult> task = new Task<>() {
+            @Override
+            protected PersonBulkLoader.LoadResult call() throws IOException {
+                BatchPublisher<List<DataManager.Person>> publisher = new BatchPublisher<>(1, batches -> {
+                    if (!isCancelled()) {
+                        batches.forEach(batch -> added[0] += dataManager.createPersons(batch));
+                    }
+                });
+                long[] read = {0};
+                PersonBulkLoader.LoadResult result = loader.read(file.toPath(), format, batch -> {
+                    if (isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    publisher.add(batch);
+                    read[0] += batch.size();
+                    updateProgress(Math.min(read[0], estimate), estimate);
+                });
+                publisher.flush();
+                return result;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            // The last batches were queued on the FX thread before this handler, so they are already added
+            finishTask(task);
+            PersonBulkLoader.LoadResult result = task.getValue();
+            showInfo("Imported " + added[0] + " of " + result.persons() + " persons."
+                    + (result.malformedLines() > 0 ? " Skipped " + result.malformedLines() + " malformed lines." : ""));
+        });
+        task.setOnCancelled(e -> {
+            finishTask(task);
+            showInfo("Import cancelled. " + added[0] + " persons had already been imported and are kept.");
+        });
+        task.setOnFailed(e -> {
+            finishTask(task);
+            showError("Import failed: " + task.getException().getMessage()
+                    + "\n" + added[0] + " persons had already been imported and are kept.");
+        });
+        importTask = task;
+        setImportRunning(true);
+        runInBackground(task);
+    }
+
+    // Search, replace and a second import would each interfere with a running import
+    private void setImportRunning(boolean running) {
+        searchButton.setDisable(running);
+        replaceButton.setDisable(running);
+        importPersonsButton.setDisable(running);
+    }
+
+    /**
+     * Exports all persons, in creation order, to a CSV or JSON Lines file selected by the user.
+     * The format follows the chosen file extension and the persons are streamed to the file.
+     */
+    private void exportPersons() {
+        File file = personFileChooser("Export Persons").showSaveDialog(null);
+        if (file == null) {
+            return;
+        }
+        try {
+            long count = new PersonBulkLoader().exportFile(dataManager, file.toPath());
+            showInfo("Exported " + count + " persons.");
+        } catch (IOException e) {
+            showError("Failed to save file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Shows the age statistics, the number of persons per decade of age and per initial, and the oldest persons.
+     */
+    private void showPersonStatistics() {
+        PersonAggregates aggregates = dataManager.aggregate();
+        if (aggregates.size() == 0) {
+            showInfo("There are no persons yet.");
+            return;
+        }
+        IntSummaryStatistics ages = aggregates.ageStatistics();
+        StringBuilder message = new StringBuilder()
+                .append("Persons: ").append(ages.getCount())
+                .append("\nAge: min ").append(ages.getMin())
+                .append(", max ").append(ages.getMax())
+                .append(", average ").append(String.format("%.1f", ages.getAverage()))
+                .append("\n\nPersons per age:");
+        aggregates.ageHistogram(10).forEach((start, count) ->
+                message.append("\n  ").append(start).append("-").append(start + 9).append(": ").append(count));
+        message.append("\n\nPersons per initial: ").append(aggregates.countByNamePrefix(1, true));
+        message.append("\n\nOldest:");
+        for (DataManager.Person person : aggregates.oldest(3)) {
+            message.append("\n  ").append(person.getName()).append(" (").append(person.getAge()).append(" years)");
+        }
+        showInfo(message.toString());
+    }
+
+    private FileChooser personFileChooser(String title) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(title);
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON Lines Files", "*.jsonl", "*.ndjson")
+        );
+        return fileChooser;
+    }
+
+    /**
+     * Starts a task on the background executor and ties the progress bar and the Cancel button to it.
+     * The caller sets the task's success handler; failure and cancellation handlers default to
+     * reporting the error and resetting the controls, unless the caller has set its own.
+     *
+     * @param task The task to run.
+     */
+    private void runInBackground(Task<?> task) {
+        if (task.getOnFailed() == null) {
+            task.setOnFailed(e -> {
+                finishTask(task);
+                showError("Operation failed: " + task.getException().getMessage());
+            });
+        }
+        if (task.getOnCancelled() == null) {
+            task.setOnCancelled(e -> finishTask(task));
+        }
+
+        currentTask = task;
+        progressBar.progressProperty().bind(task.progressProperty());
+        cancelButton.setDisable(false);
+        executor.execute(task);
+    }
+
+    /**
+     * Cancels the running search or replace, if any. Cancelling interrupts the worker thread,
+     * which stops the matcher at its next read from the InterruptibleCharSequence.
+     * A running import is left alone; only the Cancel button stops it.
+     */
+    private void cancelCurrentTask() {
+        if (currentTask != null && currentTask != importTask) {
+            currentTask.cancel();
+        }
+    }
+
+    /**
+     * Resets the progress bar and the Cancel button once the given task is done,
+     * unless a newer task has already taken over.
+     *
+     * @param task The task that finished.
+     */
+    private void finishTask(Task<?> task) {
+        if (task == importTask) {
+            importTask = null;
+            setImportRunning(false);
+        }
+        if (currentTask != task) {
+            return;
+        }
+        currentTask = null;
+        if (task.getState() != Worker.State.SUCCEEDED) {
+            resultPlaceholder.setText("");
+        }
+        progressBar.progressProperty().unbind();
+        progressBar.setProgress(task.getState() == Worker.State.SUCCEEDED ? 1 : 0);
+        cancelButton.setDisable(true);
     }
 
     /**
@@ -150,18 +484,26 @@ public class RegexController {
         regexPatternField.clear();
         replacementField.clear();
         resultTextArea.clear();
-        resultListView.getItems().clear();
+        cancelCurrentTask();
+        matchResults.reset("");
         updateTextStatistics();  // Update stats when input is cleared
     }
 
     /**
      * Copies the result from the result text area or list view to the system clipboard.
-     * If the result text area is empty, the content from the result list view is copied instead.
+     * If the result text area is empty, the matches from the result list view are copied instead,
+     * joined straight from their offsets into a single buffer.
      */
     private void copyResultToClipboard() {
-        String resultText = resultTextArea.getText().isEmpty()
-                ? String.join("\n", resultListView.getItems())
-                : resultTextArea.getText();
+        String resultText;
+        try {
+            resultText = resultTextArea.getText().isEmpty()
+                    ? matchResults.join("\n")
+                    : resultTextArea.getText();
+        } catch (IllegalStateException e) {
+            showError(e.getMessage() + ". Please save the result to a file instead.");
+            return;
+        }
 
         if (!resultText.isEmpty()) {
             final Clipboard clipboard = Clipboard.getSystemClipboard();
@@ -175,7 +517,7 @@ public class RegexController {
 
     /**
      * Saves the result from the result text area or list view to a file selected by the user.
-     * The file is saved with a .txt extension.
+     * The file is saved with a .txt extension; matches from the list view are written in a stream.
      */
     private void saveResultToFile() {
         FileChooser fileChooser = new FileChooser();
@@ -187,11 +529,14 @@ public class RegexController {
 
         if (file != null) {
             try {
-                String resultText = resultTextArea.getText().isEmpty()
-                        ? String.join("\n", resultListView.getItems())
-                        : resultTextArea.getText();
-
-                Files.writeString(file.toPath(), resultText);
+                if (resultTextArea.getText().isEmpty()) {
+                    // Stream the matches from their offsets instead of joining them into one string first
+                    try (BufferedWriter writer = Files.newBufferedWriter(file.toPath())) {
+                        matchResults.writeTo(writer, "\n");
+                    }
+                } else {
+                    Files.writeString(file.toPath(), resultTextArea.getText());
+                }
                 showInfo("Result saved successfully!");
             } catch (IOException e) {
                 showError("Failed to save file: " + e.getMessage());
@@ -201,7 +546,7 @@ public class RegexController {
 
     /**
      * Creates a new person with the given name and age, and adds them to the data manager.
-     * Displays a success message and refreshes the person list.
+     * Displays a success message; the person list picks up the change by itself.
      */
     private void createPerson() {
         String name = nameField.getText();
@@ -212,14 +557,17 @@ public class RegexController {
             return;
         }
 
+        if (dataManager.searchPersonByName(name) != null) {
+            showError("A person named " + name + " already exists.");
+            return;
+        }
+
         try {
             int age = Integer.parseInt(ageText);
             dataManager.createPerson(name, age);
             showInfo("Person created: " + name);
             nameField.clear();
             ageField.clear();
-            refreshPersonList();
-            displayUniquePersons(); // Refresh unique persons display
         } catch (NumberFormatException e) {
             showError("Age must be a valid number.");
         }
@@ -228,7 +576,7 @@ public class RegexController {
 
     /**
      * Updates an existing person's information (name and age) in the data manager.
-     * Displays a success message and refreshes the person list.
+     * Displays a success message; the person list picks up the change by itself.
      */
     private void updatePerson() {
         String name = nameField.getText();
@@ -245,8 +593,6 @@ public class RegexController {
             showInfo("Person updated: " + name);
             nameField.clear();
             ageField.clear();
-            refreshPersonList();
-            displayUniquePersons(); // Refresh unique persons display
         } catch (NumberFormatException e) {
             showError("Age must be a valid number.");
         }
@@ -254,7 +600,7 @@ public class RegexController {
 
 
     /**
-     * Deletes a person by name from the data manager and updates the person list.
+     * Deletes a person by name from the data manager; the person list picks up the change by itself.
      */
     private void deletePerson() {
         String name = nameField.getText();
@@ -267,70 +613,24 @@ public class RegexController {
         dataManager.deletePerson(name);
         showInfo("Person deleted: " + name);
         nameField.clear();
-        refreshPersonList();
-        displayUniquePersons(); // Refresh unique persons display
     }
 
 
     /**
-     * Refreshes the list of all persons in the ListView, displaying their names and ages.
-     */
-    private void refreshPersonList() {
-        Platform.runLater(() -> {
-            personListView.getItems().clear();
-            personListView.getItems().addAll(
-                    dataManager.getAllPersons().stream()
-                            .map(p -> p.getName() + " (" + p.getAge() + " years)")
-                            .toList()
-            );
-        });
-    }
-
-
-    /**
-     * Displays the list of unique person
-     */
-    public void displayUniquePersons() {
-        // Clear the current items in the ListView
-        Platform.runLater(() -> {
-            personListView.getItems().clear();
-
-            // Get the unique persons from the data manager
-            Set<DataManager.Person> uniquePersons = dataManager.getUniquePersons();
-
-            // Add each person's name and age to the ListView
-            for (DataManager.Person person : uniquePersons) {
-                personListView.getItems().add(person.getName() + " (" + person.getAge() + " years)");
-            }
-        });
-    }
-
-    /**
-     * Updates the word count and character count labels based on the current text in the input text area.
+     * Recounts the statistics of the current text in the input text area from scratch and updates the labels.
      */
     private void updateTextStatistics() {
-        String inputText = inputTextArea.getText();
-        int wordCount = countWords(inputText);
-        int charCount = inputText.length();
-
-        // Update the labels with the calculated statistics
-        wordCountLabel.setText("Word Count: " + wordCount);
-        charCountLabel.setText("Character Count: " + charCount);
+        textStatistics.recount(inputTextArea.getText());
+        showTextStatistics();
     }
 
     /**
-     * Helper method to count the number of words in the given text.
-     * A word is defined as a sequence of non-whitespace characters separated by spaces.
-     *
-     * @param text The text to analyze.
-     * @return The number of words in the text.
+     * Updates the word, character and line count labels from the current statistics.
      */
-    private int countWords(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            return 0;
-        }
-        String[] words = text.trim().split("\\s+");
-        return words.length;
+    private void showTextStatistics() {
+        wordCountLabel.setText("Word Count: " + textStatistics.getWordCount());
+        charCountLabel.setText("Character Count: " + textStatistics.getCharCount());
+        lineCountLabel.setText("Line Count: " + textStatistics.getLineCount());
     }
 
     private void showError(String message) {
@@ -0,0 +1,224 @@
+package org.example.textprocessingtool;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The RegexMetrics class counts the work done by RegexProcessor, StreamingSearcher and StreamingReplacer:
+ * latency histograms per operation, matches and input scanned, per-pattern counts, and rejected patterns.
+ * Recording never locks and allocates nothing once a pattern is known, so it is cheap enough to stay on.
+ * The figures are read through JMX, as the RegexMetricsMXBean registered by the application;
+ * slow operations and rejected patterns are also Flight Recorder events.
+ * At most MAX_TRACKED_PATTERNS patterns are counted one by one; later ones are counted together.
+ */
+public class RegexMetrics implements RegexMetricsMXBean {
+
+    /** The kinds of operation timed separately. */
+    public enum Operation { SEARCH, COUNT, REPLACE, STREAM_SEARCH, STREAM_REPLACE }
+
+    /** Number of distinct patterns counted one by one. */
+    public static final int MAX_TRACKED_PATTERNS = 256;
+
+    /** Key under which patterns beyond MAX_TRACKED_PATTERNS are counted. */
+    public static final String OTHER_PATTERNS = "(other patterns)";
+
+    private static final RegexMetrics SHARED = new RegexMetrics();
+
+    private final Map<Operation, ConcurrentHistogram> latencies = new EnumMap<>(Operation.class);
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder charsScanned = new LongAdder();
+    private final LongAdder bytesScanned = new LongAdder();
+    private final LongAdder invalidPatterns = new LongAdder();
+    private final LongAdder unsafePatterns = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final ConcurrentHashMap<String, PatternCounters> byPattern = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor to initialize empty metrics.
+     */
+    public RegexMetrics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram());
+        }
+    }
+
+    /**
+     * Returns the metrics shared by every RegexProcessor, StreamingSearcher and StreamingReplacer.
+     *
+     * @return The shared RegexMetrics instance.
+     */
+    public static RegexMetrics shared() {
+        return SHARED;
+    }
+
+    /**
+     * Records one completed operation.
+     *
+     * @param operation    The operation that ran.
+     * @param pattern      The regex pattern.
+     * @param charsScanned The number of characters searched, or 0 for a search run on the bytes without decoding.
+     * @param bytesScanned The number of bytes read from a stream, or the UTF-8 size of in-memory text.
+     * @param matchCount   The number of matches found.
+     * @param nanos        How long the operation took, in nanoseconds.
+     */
+    public void record(Operation operation, String pattern, long charsScanned, long bytesScanned,
+                       long matchCount, long nanos) {
+        latencies.get(operation).record(nanos);
+        matches.add(matchCount);
+        if (charsScanned != 0) {
+            this.charsScanned.add(charsScanned);
+        }
+        if (bytesScanned != 0) {
+            this.bytesScanned.add(bytesScanned);
+        }
+        PatternCounters counters = countersFor(pattern);
+        counters.operations.increment();
+        counters.matches.add(matchCount);
+    }
+
+    /**
+     * Computes the size in bytes a text would have in UTF-8, so searches of in-memory text report
+     * their input in the same unit as searches of files.
+     *
+     * @param text The text.
+     * @return The number of bytes.
+     */
+    static long utf8Length(CharSequence text) {
+        long bytes = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                // Surrogates come in pairs of 2 + 2 bytes, as a 4-byte character
+                bytes += c < 0x800 ? 1 : Character.isSurrogate(c) ? 1 : 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Counts a pattern that does not compile.
+     *
+     * @param pattern     The pattern.
+     * @param description The syntax error.
+     */
+    public void invalidPattern(String pattern, String description) {
+        invalidPatterns.increment();
+        RegexRejectedEvent.emit(pattern, "Invalid: " + description);
+    }
+
+    /**
+     * Counts a pattern rejected because it could backtrack catastrophically.
+     *
+     * @param pattern The pattern.
+     */
+    public void unsafePattern(String pattern) {
+        unsafePatterns.increment();
+        RegexRejectedEvent.emit(pattern, "Unsafe: nested quantifiers can cause catastrophic backtracking");
+    }
+
+    /**
+     * Counts an operation aborted by its execution budget.
+     */
+    public void timeout() {
+        timeouts.increment();
+    }
+
+    // The pattern's own counters, or the shared ones once enough patterns are tracked
+    private PatternCounters countersFor(String pattern) {
+        PatternCounters counters = byPattern.get(pattern);
+        if (counters != null) {
+            return counters;
+        }
+        String key = byPattern.size() < MAX_TRACKED_PATTERNS ? pattern : OTHER_PATTERNS;
+        return byPattern.computeIfAbsent(key, k -> new PatternCounters());
+    }
+
+    @Override
+    public ConcurrentHistogram.Snapshot getSearchLatency() {
+        return latencies.get(Operation.SEARCH).snapshot();
+    }
+
+    @Override
+    public ConcurrentHistogram.Snapshot getCountLatency() {
+        return latencies.get(Operation.COUNT).snapshot();
+    }
+
+    @Override
+    public ConcurrentHistogram.Snapshot getReplaceLatency() {
+        return latencies.get(Operation.REPLACE).snapshot();
+    }
+
+    @Override
+    public ConcurrentHistogram.Snapshot getStreamSearchLatency() {
+        return latencies.get(Operation.STREAM_SEARCH).snapshot();
+    }
+
+    @Override
+    public ConcurrentHistogram.Snapshot getStreamReplaceLatency() {
+        return latencies.get(Operation.STREAM_REPLACE).snapshot();
+    }
+
+    @Override
+    public long getMatchCount() {
+        return matches.sum();
+    }
+
+    @Override
+    public long getCharsScanned() {
+        return charsScanned.sum();
+    }
+
+    @Override
+    public long getBytesScanned() {
+        return bytesScanned.sum();
+    }
+
+    @Override
+    public long getInvalidPatternCount() {
+        return invalidPatterns.sum();
+    }
+
+    @Override
+    public long getUnsafePatternCount() {
+        return unsafePatterns.sum();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public Map<String, Long> getOperationsByPattern() {
+        Map<String, Long> result = new TreeMap<>();
+        byPattern.forEach((pattern, counters) -> result.put(pattern, counters.operations.sum()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMatchesByPattern() {
+        Map<String, Long> result = new TreeMap<>();
+        byPattern.forEach((pattern, counters) -> result.put(pattern, counters.matches.sum()));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        latencies.values().forEach(ConcurrentHistogram::reset);
+        matches.reset();
+        charsScanned.reset();
+        bytesScanned.reset();
+        invalidPatterns.reset();
+        unsafePatterns.reset();
+        timeouts.reset();
+        byPattern.clear();
+    }
+
+    private static class PatternCounters {
+        final LongAdder operations = new LongAdder();
+        final LongAdder matches = new LongAdder();
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.textprocessingtool;
+
+import java.util.Map;
+
+/**
+ * The RegexMetricsMXBean interface is the JMX view of RegexMetrics.
+ * Counters only grow until reset, so a monitoring client gets rates by sampling them twice.
+ * Latencies are in nanoseconds.
+ */
+public interface RegexMetricsMXBean {
+
+    /**
+     * @return The latency of in-memory searches, including scans and offset searches.
+     */
+    ConcurrentHistogram.Snapshot getSearchLatency();
+
+    /**
+     * @return The latency of in-memory counts.
+     */
+    ConcurrentHistogram.Snapshot getCountLatency();
+
+    /**
+     * @return The latency of in-memory replaces.
+     */
+    ConcurrentHistogram.Snapshot getReplaceLatency();
+
+    /**
+     * @return The latency of searches over files and streams.
+     */
+    ConcurrentHistogram.Snapshot getStreamSearchLatency();
+
+    /**
+     * @return The latency of replaces over files and streams.
+     */
+    ConcurrentHistogram.Snapshot getStreamReplaceLatency();
+
+    /**
+     * @return The number of matches found by every operation; in-memory replaces do not count theirs.
+     */
+    long getMatchCount();
+
+    /**
+     * @return The number of characters searched, in memory or decoded from files and streams.
+     *         Searches run on UTF-8 bytes without decoding them count no characters.
+     */
+    long getCharsScanned();
+
+    /**
+     * @return The number of bytes read from files and streams, plus the UTF-8 size of in-memory text searched.
+     */
+    long getBytesScanned();
+
+    /**
+     * @return The number of patterns rejected because they do not compile.
+     */
+    long getInvalidPatternCount();
+
+    /**
+     * @return The number of patterns rejected because they could backtrack catastrophically.
+     */
+    long getUnsafePatternCount();
+
+    /**
+     * @return The number of operations aborted by their execution budget.
+     */
+    long getTimeoutCount();
+
+    /**
+     * @return The number of operations run with each pattern.
+     */
+    Map<String, Long> getOperationsByPattern();
+
+    /**
+     * @return The number of matches found with each pattern.
+     */
+    Map<String, Long> getMatchesByPattern();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,67 @@
+package org.example.textprocessingtool;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The RegexOperationEvent class is the Flight Recorder event for one regex search, count or replace.
+ * Only operations slower than the threshold, 10 ms by default, are recorded, so a recording shows
+ * which patterns and inputs are slow without paying for the fast ones.
+ * When the event is disabled, begin and complete do nothing.
+ */
+@Name("org.example.textprocessingtool.RegexOperation")
+@Label("Regex Operation")
+@Category({"Text Processing Tool", "Regex"})
+@Description("A regex search, count or replace that took longer than the threshold")
+@Threshold("10 ms")
+@StackTrace(false)
+class RegexOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Pattern")
+    String pattern;
+
+    @Label("Characters Scanned")
+    long charsScanned;
+
+    @Label("Bytes Scanned")
+    @DataAmount
+    long bytesScanned;
+
+    @Label("Matches")
+    long matches;
+
+    @Label("Timed Out")
+    boolean timedOut;
+
+    /**
+     * Ends the event and commits it if it is enabled and took longer than the threshold.
+     *
+     * @param operation    The operation that ran.
+     * @param pattern      The regex pattern.
+     * @param charsScanned The number of characters searched, or 0 for a search run on the bytes without decoding.
+     * @param bytesScanned The number of bytes read from a stream, or the UTF-8 size of in-memory text.
+     * @param matches      The number of matches found.
+     * @param timedOut     Whether the operation was aborted by its budget.
+     */
+    void complete(RegexMetrics.Operation operation, String pattern, long charsScanned, long bytesScanned,
+                  long matches, boolean timedOut) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation.name();
+            this.pattern = pattern;
+            this.charsScanned = charsScanned;
+            this.bytesScanned = bytesScanned;
+            this.matches = matches;
+            this.timedOut = timedOut;
+            commit();
+        }
+    }
+}
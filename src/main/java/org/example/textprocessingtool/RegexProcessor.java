@@ -2,35 +2,315 @@ package org.example.textprocessingtool;
 
 import java.util.regex.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class RegexProcessor {
 
+    private final PatternCache patternCache; // Compiled patterns shared between calls
+    private final RegexBudget budget; // Limits on the work a single search or replace may do
+    private final MultiPatternMatcher featureExamples; // The feature example patterns, matched in one pass
+    private final RegexMetrics metrics = RegexMetrics.shared(); // Latencies, matches and rejected patterns
+
+    /**
+     * Constructor to initialize a RegexProcessor backed by the shared PatternCache and the default budget.
+     */
+    public RegexProcessor() {
+        this(PatternCache.shared());
+    }
+
+    /**
+     * Constructor to initialize a RegexProcessor backed by the given PatternCache and the default budget.
+     *
+     * @param patternCache The cache used to look up compiled patterns.
+     */
+    public RegexProcessor(PatternCache patternCache) {
+        this(patternCache, RegexBudget.DEFAULT);
+    }
+
+    /**
+     * Constructor to initialize a RegexProcessor with the given PatternCache and execution budget.
+     *
+     * @param patternCache The cache used to look up compiled patterns.
+     * @param budget The limits on time and character reads for each search or replace.
+     */
+    public RegexProcessor(PatternCache patternCache, RegexBudget budget) {
+        this.patternCache = patternCache;
+        this.budget = budget;
+
+        // Set and Range examples, then Quantifiers examples
+        Map<String, String> examples = new LinkedHashMap<>();
+        examples.put("Digits in the text", "\\d+");  // Match digits
+        examples.put("Lowercase letters in the text", "[a-z]+");  // Match lowercase letters
+        examples.put("Uppercase letters in the text", "[A-Z]+");  // Match uppercase letters
+        examples.put("Words with exactly 4 letters", "\\b[a-zA-Z]{4}\\b");  // Match exactly 4 letter words
+        examples.put("Words starting with 't'", "\\bt\\w+\\b");  // Match words starting with 't'
+        examples.put("Non-space characters", "\\S+");  // Match non-space characters
+        this.featureExamples = new MultiPatternMatcher(patternCache, examples);
+    }
+
+    /**
+     * Gets the cache this processor compiles its patterns through.
+     *
+     * @return The PatternCache in use.
+     */
+    public PatternCache getPatternCache() {
+        return patternCache;
+    }
+
+    /**
+     * Gets the execution budget applied to each search and replace.
+     *
+     * @return The RegexBudget in use.
+     */
+    public RegexBudget getBudget() {
+        return budget;
+    }
+
     /**
      * Searches for all matches of the given regex pattern in the provided text.
      *
      * @param text The text in which to search for matches.
      * @param pattern The regex pattern to match.
      * @return A list of matched strings.
+     * @throws RegexTimeoutException If the search exceeds the execution budget.
      */
     public ArrayList<String> search(String text, String pattern) {
         ArrayList<String> matches = new ArrayList<>();
 
         try {
+            forEachMatch(text, null, pattern, Integer.MAX_VALUE, RegexMetrics.Operation.SEARCH,
+                    matcher -> matches.add(matcher.group()));
+        } catch (PatternSyntaxException e) {
+            metrics.invalidPattern(pattern, e.getDescription());
+        }
+
+        return matches;
+    }
+
+    /**
+     * Searches for all matches of the given regex pattern and passes each matched string to the consumer
+     * as soon as it is found, so callers can show results before the search has finished.
+     *
+     * @param text The text in which to search for matches.
+     * @param pattern The regex pattern to match.
+     * @param consumer The callback receiving each matched string, in text order.
+     * @return The number of matches; 0 if the pattern is invalid.
+     * @throws RegexTimeoutException If the search exceeds the execution budget.
+     */
+    public int search(CharSequence text, String pattern, Consumer<String> consumer) {
+        try {
+            return forEachMatch(text, null, pattern, Integer.MAX_VALUE, RegexMetrics.Operation.SEARCH,
+                    matcher -> consumer.accept(matcher.group()));
+        } catch (PatternSyntaxException e) {
+            metrics.invalidPattern(pattern, e.getDescription());
+            return 0;
+        }
+    }
 
-            Pattern compiledPattern = Pattern.compile(pattern);
-            Matcher matcher = compiledPattern.matcher(text);
+    /**
+     * Searches for all matches of the given regex pattern and passes each match to the action as it is found,
+     * without creating a string for it. The MatchResult is only valid during the call and must not be kept.
+     *
+     * @param text The text in which to search for matches.
+     * @param pattern The regex pattern to match.
+     * @param action The callback receiving each match, in text order.
+     * @return The number of matches; 0 if the pattern is invalid.
+     * @throws RegexTimeoutException If the search exceeds the execution budget.
+     */
+    public int scan(CharSequence text, String pattern, Consumer<MatchResult> action) {
+        try {
+            return forEachMatch(text, null, pattern, Integer.MAX_VALUE, RegexMetrics.Operation.SEARCH, action);
+        } catch (PatternSyntaxException e) {
+            metrics.invalidPattern(pattern, e.getDescription());
+            return 0;
+        }
+    }
 
+    /**
+     * Finds all matches of the pattern and records them as offsets into the text, without creating substrings.
+     *
+     * @param text The text in which to search for matches.
+     * @param pattern The regex pattern to match.
+     * @param withGroups Whether the offsets of every capturing group are recorded as well.
+     * @return The match offsets; empty if the pattern is invalid.
+     * @throws RegexTimeoutException If the search exceeds the execution budget.
+     */
+    public MatchOffsets searchOffsets(CharSequence text, String pattern, boolean withGroups) {
+        return searchOffsets(text, pattern, withGroups, Integer.MAX_VALUE);
+    }
 
-            while (matcher.find()) {
-                matches.add(matcher.group());
-            }
+    /**
+     * Finds the first matches of the pattern, up to a limit, and records them as offsets into the text.
+     * Room for all matches is reserved up front, so nothing is allocated per match.
+     *
+     * @param text The text in which to search for matches.
+     * @param pattern The regex pattern to match.
+     * @param withGroups Whether the offsets of every capturing group are recorded as well.
+     * @param limit The maximum number of matches to record.
+     * @return The match offsets; empty if the pattern is invalid.
+     * @throws RegexTimeoutException If the search exceeds the execution budget.
+     */
+    public MatchOffsets searchOffsets(CharSequence text, String pattern, boolean withGroups, int limit) {
+        try {
+            Pattern compiledPattern = patternCache.compile(pattern);
+            int groupCount = withGroups ? compiledPattern.matcher("").groupCount() : 0;
+            MatchOffsets offsets = limit == Integer.MAX_VALUE
+                    ? new MatchOffsets(text, groupCount)
+                    : new MatchOffsets(text, groupCount, limit);
+            forEachMatch(text, null, pattern, limit, RegexMetrics.Operation.SEARCH, offsets::add);
+            return offsets;
         } catch (PatternSyntaxException e) {
-            System.out.println("Invalid regex pattern: " + e.getDescription());
+            metrics.invalidPattern(pattern, e.getDescription());
+            return new MatchOffsets(text, 0, 1);
+        }
+    }
+
+    /**
+     * Counts the matches of the pattern without creating any object per match.
+     *
+     * @param text The text in which to count matches.
+     * @param pattern The regex pattern to match.
+     * @return The number of matches; 0 if the pattern is invalid.
+     * @throws RegexTimeoutException If the search exceeds the execution budget.
+     */
+    public int count(CharSequence text, String pattern) {
+        try {
+            return forEachMatch(text, null, pattern, Integer.MAX_VALUE, RegexMetrics.Operation.COUNT, matcher -> { });
+        } catch (PatternSyntaxException e) {
+            metrics.invalidPattern(pattern, e.getDescription());
+            return 0;
+        }
+    }
+
+    /**
+     * Searches an indexed text for all matches of the given regex pattern.
+     * Patterns with a required literal of at least three characters are answered from the index,
+     * without reading the rest of the text; the others are searched as usual.
+     *
+     * @param index The index of the text in which to search.
+     * @param pattern The regex pattern to match.
+     * @return A list of matched strings.
+     * @throws RegexTimeoutException If the search exceeds the execution budget.
+     */
+    public ArrayList<String> search(TrigramIndex index, String pattern) {
+        ArrayList<String> matches = new ArrayList<>();
+
+        try {
+            forEachMatch(index.getText(), index, pattern, Integer.MAX_VALUE, RegexMetrics.Operation.SEARCH,
+                    matcher -> matches.add(matcher.group()));
+        } catch (PatternSyntaxException e) {
+            metrics.invalidPattern(pattern, e.getDescription());
         }
 
         return matches;
     }
 
+    /**
+     * Searches an indexed text for all matches of the given regex pattern and passes each match to the action
+     * as it is found, like scan, using the index where the pattern allows it.
+     *
+     * @param text The indexed text, or a wrapper of it such as an InterruptibleCharSequence, which is matched.
+     * @param index The index of the text.
+     * @param pattern The regex pattern to match.
+     * @param action The callback receiving each match, in text order.
+     * @return The number of matches; 0 if the pattern is invalid.
+     * @throws IllegalArgumentException If the index was built over another text.
+     * @throws RegexTimeoutException If the search exceeds the execution budget.
+     */
+    public int scan(CharSequence text, TrigramIndex index, String pattern, Consumer<MatchResult> action) {
+        CharSequence raw = text;
+        while (raw instanceof InterruptibleCharSequence wrapped) {
+            raw = wrapped.getDelegate();
+        }
+        if (raw != index.getText()) {
+            throw new IllegalArgumentException("The index was built over a different text");
+        }
+        try {
+            return forEachMatch(text, index, pattern, Integer.MAX_VALUE, RegexMetrics.Operation.SEARCH, action);
+        } catch (PatternSyntaxException e) {
+            metrics.invalidPattern(pattern, e.getDescription());
+            return 0;
+        }
+    }
+
+    /**
+     * Counts the matches of the pattern in an indexed text, using the index where the pattern allows it.
+     *
+     * @param index The index of the text in which to count matches.
+     * @param pattern The regex pattern to match.
+     * @return The number of matches; 0 if the pattern is invalid.
+     * @throws RegexTimeoutException If the search exceeds the execution budget.
+     */
+    public int count(TrigramIndex index, String pattern) {
+        try {
+            return forEachMatch(index.getText(), index, pattern, Integer.MAX_VALUE, RegexMetrics.Operation.COUNT,
+                    matcher -> { });
+        } catch (PatternSyntaxException e) {
+            metrics.invalidPattern(pattern, e.getDescription());
+            return 0;
+        }
+    }
+
+    // Runs the action on each match, in text order, and records the operation in the metrics
+    private int forEachMatch(CharSequence text, TrigramIndex index, String pattern, int limit,
+                             RegexMetrics.Operation operation, Consumer<MatchResult> action) {
+        Pattern compiledPattern = patternCache.compile(pattern);
+        RegexOperationEvent event = new RegexOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int count = 0;
+        boolean timedOut = false;
+        try {
+            count = findMatches(text, index, compiledPattern, pattern, limit, action);
+            return count;
+        } catch (RegexTimeoutException e) {
+            timedOut = true;
+            metrics.timeout();
+            throw e;
+        } finally {
+            long bytes = RegexMetrics.utf8Length(text);
+            metrics.record(operation, pattern, text.length(), bytes, count, System.nanoTime() - start);
+            event.complete(operation, pattern, text.length(), bytes, count, timedOut);
+        }
+    }
+
+    // Runs the action on each match, in text order, using the index, the literal prefilter or the lazy DFA
+    // when they apply, and a plain matcher otherwise
+    private int findMatches(CharSequence text, TrigramIndex index, Pattern compiledPattern, String pattern, int limit,
+                            Consumer<MatchResult> action) {
+        LiteralPrefilter prefilter = patternCache.prefilter(pattern);
+        text = withBudget(text);
+
+        if (index != null) {
+            int count = index.find(text, compiledPattern, pattern, limit, action::accept);
+            if (count >= 0) {
+                return count;
+            }
+        }
+
+        if (prefilter != null) {
+            // Only run the regex where its required literal occurs
+            return prefilter.find(text, compiledPattern, limit, action::accept);
+        }
+
+        LazyDfa dfa = patternCache.dfa(pattern);
+        if (dfa != null) {
+            // No backtracking, so the time taken grows only with the length of the text
+            return dfa.find(text, compiledPattern, limit, action);
+        }
+
+        Matcher matcher = compiledPattern.matcher(text);
+        int count = 0;
+        while (count < limit && matcher.find()) {
+            action.accept(matcher);
+            count++;
+        }
+        return count;
+    }
+
     /**
      * Replaces all occurrences of the regex pattern in the text with the replacement string.
      *
@@ -38,35 +318,62 @@ public class RegexProcessor {
      * @param pattern The regex pattern to match.
      * @param replacement The string to replace matches with.
      * @return The text with the replacements.
+     * @throws RegexTimeoutException If the replacement exceeds the execution budget.
      */
-    public String replace(String text, String pattern, String replacement) {
+    public String replace(CharSequence text, String pattern, String replacement) {
         try {
 
-            Pattern compiledPattern = Pattern.compile(pattern);
-            Matcher matcher = compiledPattern.matcher(text);
+            Pattern compiledPattern = patternCache.compile(pattern);
+            Matcher matcher = compiledPattern.matcher(withBudget(text));
 
             // Replace all matches
-            return matcher.replaceAll(replacement);  // Return the replaced text
+            RegexOperationEvent event = new RegexOperationEvent();
+            event.begin();
+            long start = System.nanoTime();
+            boolean timedOut = false;
+            try {
+                return matcher.replaceAll(replacement);  // Return the replaced text
+            } catch (RegexTimeoutException e) {
+                timedOut = true;
+                metrics.timeout();
+                throw e;
+            } finally {
+                long bytes = RegexMetrics.utf8Length(text);
+                metrics.record(RegexMetrics.Operation.REPLACE, pattern, text.length(), bytes, 0,
+                        System.nanoTime() - start);
+                event.complete(RegexMetrics.Operation.REPLACE, pattern, text.length(), bytes, 0, timedOut);
+            }
         } catch (PatternSyntaxException e) {
-            System.out.println("Invalid regex pattern: " + e.getDescription());
-            return text;  // If regex is invalid, return original text
+            metrics.invalidPattern(pattern, e.getDescription());
+            return text.toString();  // If regex is invalid, return original text
         }
     }
 
+    // Wraps the text so the matcher aborts with a RegexTimeoutException once the budget is used up
+    private CharSequence withBudget(CharSequence text) {
+        return budget.isUnlimited() ? text : new InterruptibleCharSequence(text, null, budget);
+    }
+
     /**
      * Validates if the provided regex pattern is correct.
+     * Patterns with nested unbounded quantifiers, such as (a+)+, are rejected as well,
+     * since they can backtrack catastrophically on input that almost matches.
      *
      * @param pattern The regex pattern to validate.
-     * @return true if the pattern is valid, false otherwise.
+     * @return true if the pattern is valid and safe, false otherwise.
      */
     public boolean isValidRegex(String pattern) {
         try {
-
-            Pattern.compile(pattern);
-            return true;
+            patternCache.compile(pattern);
         } catch (PatternSyntaxException e) {
+            metrics.invalidPattern(pattern, e.getDescription());
             return false;
         }
+        if (PatternAnalyzer.hasNestedQuantifier(pattern)) {
+            metrics.unsafePattern(pattern);
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -104,15 +411,10 @@ public class RegexProcessor {
     public ArrayList<String> regexFeaturesExamples(String text) {
         ArrayList<String> result = new ArrayList<>();
 
-        // Set and Range examples
-        result.add("Digits in the text: " + search(text, "\\d+"));  // Match digits
-        result.add("Lowercase letters in the text: " + search(text, "[a-z]+"));  // Match lowercase letters
-        result.add("Uppercase letters in the text: " + search(text, "[A-Z]+"));  // Match uppercase letters
-        result.add("Words with exactly 4 letters: " + search(text, "\\b[a-zA-Z]{4}\\b"));  // Match exactly 4 letter words
-
-        // Quantifiers examples
-        result.add("Words starting with 't': " + search(text, "\\bt\\w+\\b"));  // Match words starting with 't'
-        result.add("Non-space characters: " + search(text, "\\S+"));  // Match non-space characters
+        // All example patterns are matched in a single pass over the text
+        for (Map.Entry<String, List<String>> entry : featureExamples.matchAll(text).entrySet()) {
+            result.add(entry.getKey() + ": " + entry.getValue());
+        }
 
         return result;
     }
@@ -0,0 +1,40 @@
+package org.example.textprocessingtool;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The RegexRejectedEvent class is the Flight Recorder event for a pattern that could not be used,
+ * because it does not compile or because it could backtrack catastrophically.
+ */
+@Name("org.example.textprocessingtool.RegexRejected")
+@Label("Regex Rejected")
+@Category({"Text Processing Tool", "Regex"})
+@Description("A regex pattern rejected as invalid or unsafe")
+@StackTrace(false)
+class RegexRejectedEvent extends jdk.jfr.Event {
+
+    @Label("Pattern")
+    String pattern;
+
+    @Label("Reason")
+    String reason;
+
+    /**
+     * Commits a rejection, if the event is enabled.
+     *
+     * @param pattern The rejected pattern.
+     * @param reason  Why it was rejected.
+     */
+    static void emit(String pattern, String reason) {
+        RegexRejectedEvent event = new RegexRejectedEvent();
+        if (event.isEnabled()) {
+            event.pattern = pattern;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.textprocessingtool;
+
+import java.time.Duration;
+
+/**
+ * The RegexTimeoutException class signals that a regex evaluation was aborted because it used up its RegexBudget.
+ * It is unchecked so it can pass through java.util.regex, which reads the input via CharSequence.charAt.
+ */
+public class RegexTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long steps;
+    private final Duration elapsed;
+
+    /**
+     * Constructor to initialize the exception with the work done before the evaluation was aborted.
+     *
+     * @param message The detail message.
+     * @param steps   The number of characters the matcher had read.
+     * @param elapsed The time the evaluation had been running.
+     */
+    public RegexTimeoutException(String message, long steps, Duration elapsed) {
+        super(message);
+        this.steps = steps;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Gets the number of characters the matcher had read when it was aborted.
+     *
+     * @return The step count.
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Gets the time the evaluation had been running when it was aborted.
+     *
+     * @return The elapsed time.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+}
@@ -0,0 +1,276 @@
+package org.example.textprocessingtool;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * The RowIndex class is a sorted index of long keys, used by DataManager to index the rows of its store
+ * without an object per entry.
+ * Keys sit in one large sorted array plus a small sorted buffer of recent additions, which is merged
+ * into the large one once it holds about the square root of its size. Removing a key from the large array
+ * only marks it, and marked keys are dropped at the next merge. Adding or removing a key thus costs
+ * O(log n) plus an amortized O(sqrt n) copy, instead of shifting the whole array each time.
+ * The order must tell every two different keys apart. This class is not thread-safe.
+ */
+class RowIndex {
+
+    /**
+     * The order of the keys in a RowIndex.
+     */
+    interface KeyOrder {
+        /**
+         * Compares two keys.
+         *
+         * @param a The first key.
+         * @param b The second key.
+         * @return A negative number, zero or a positive number as the first key sorts before, with or after the second.
+         */
+        int compare(long a, long b);
+    }
+
+    private static final int MIN_BUFFER_SIZE = 256;
+
+    private final KeyOrder order;
+    private long[] keys = new long[0]; // Sorted
+    private int keyCount;
+    private final BitSet removed = new BitSet(); // Positions in keys whose key was removed
+    private int removedCount;
+    private long[] buffer = new long[16]; // Recent additions, sorted
+    private int bufferSize;
+
+    /**
+     * Constructor to initialize an empty index.
+     *
+     * @param order The order of the keys.
+     */
+    RowIndex(KeyOrder order) {
+        this.order = order;
+    }
+
+    /**
+     * Adds a key that is not in the index yet.
+     *
+     * @param key The key to add.
+     */
+    void add(long key) {
+        int position = position(buffer, bufferSize, key);
+        if (bufferSize == buffer.length) {
+            buffer = Arrays.copyOf(buffer, bufferSize * 2);
+        }
+        System.arraycopy(buffer, position, buffer, position + 1, bufferSize - position);
+        buffer[position] = key;
+        bufferSize++;
+        if (bufferSize > Math.max(MIN_BUFFER_SIZE, (int) Math.sqrt(keyCount))) {
+            merge();
+        }
+    }
+
+    /**
+     * Removes a key, if the index holds it.
+     *
+     * @param key The key to remove.
+     */
+    void remove(long key) {
+        int position = position(buffer, bufferSize, key);
+        if (position < bufferSize && order.compare(buffer[position], key) == 0) {
+            System.arraycopy(buffer, position + 1, buffer, position, bufferSize - position - 1);
+            bufferSize--;
+            return;
+        }
+        position = position(keys, keyCount, key);
+        if (position < keyCount && !removed.get(position) && order.compare(keys[position], key) == 0) {
+            removed.set(position);
+            removedCount++;
+            // Keep the scans from wading through more removed keys than live ones
+            if (removedCount > MIN_BUFFER_SIZE && removedCount * 2 > keyCount) {
+                merge();
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the index with the given keys, sorting them once.
+     *
+     * @param newKeys The keys, in any order; the array is taken over by the index.
+     * @param count   The number of keys at the start of the array.
+     */
+    void rebuild(long[] newKeys, int count) {
+        sort(newKeys, count);
+        keys = newKeys;
+        keyCount = count;
+        removed.clear();
+        removedCount = 0;
+        bufferSize = 0;
+    }
+
+    /**
+     * Visits the keys in order, starting at the first one that is not below the start.
+     *
+     * @param below Tells whether a key sorts before the start; it must hold for a prefix of the keys.
+     * @param visit Called with each key; returning false stops the scan.
+     */
+    void scan(LongPredicate below, LongPredicate visit) {
+        int i = firstNotBelow(keys, keyCount, below);
+        int j = firstNotBelow(buffer, bufferSize, below);
+        while (i < keyCount || j < bufferSize) {
+            long key;
+            if (j >= bufferSize || (i < keyCount && order.compare(keys[i], buffer[j]) < 0)) {
+                if (removed.get(i)) {
+                    i++;
+                    continue;
+                }
+                key = keys[i++];
+            } else {
+                key = buffer[j++];
+            }
+            if (!visit.test(key)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rewrites every key after the rows of the store were renumbered; the new keys must keep their order.
+     * No keys are compared, since the order may already read the renumbered store.
+     *
+     * @param rename Maps a key to its new key, or to -1 to drop it.
+     */
+    void renumber(LongUnaryOperator rename) {
+        int count = 0;
+        for (int i = 0; i < keyCount; i++) {
+            long renamed = removed.get(i) ? -1 : rename.applyAsLong(keys[i]);
+            if (renamed != -1) {
+                keys[count++] = renamed;
+            }
+        }
+        keyCount = count;
+        removed.clear();
+        removedCount = 0;
+        count = 0;
+        for (int j = 0; j < bufferSize; j++) {
+            long renamed = rename.applyAsLong(buffer[j]);
+            if (renamed != -1) {
+                buffer[count++] = renamed;
+            }
+        }
+        bufferSize = count;
+    }
+
+    /**
+     * Makes room for the given number of keys, so the sorted array is not copied before it holds that many.
+     *
+     * @param expectedSize The number of keys to make room for.
+     */
+    void ensureCapacity(int expectedSize) {
+        if (expectedSize > keys.length) {
+            keys = Arrays.copyOf(keys, expectedSize);
+        }
+    }
+
+    /**
+     * Gets the number of keys in the index.
+     *
+     * @return The number of keys.
+     */
+    int size() {
+        return keyCount - removedCount + bufferSize;
+    }
+
+    /**
+     * Estimates the heap used by the index.
+     *
+     * @return The allocated size in bytes.
+     */
+    long getMemoryUsage() {
+        return 8L * (keys.length + buffer.length) + removed.size() / 8;
+    }
+
+    // Merges the buffer into the sorted keys, dropping removed keys.
+    // Each buffered key is placed by a binary search, and the keys between them are moved in whole runs.
+    private void merge() {
+        if (removedCount > 0) {
+            dropRemoved();
+        }
+        if (keyCount + bufferSize > keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(keyCount + bufferSize, keys.length + (keys.length >> 1)));
+        }
+        // From the back, so every key moves at most once and the array needs no copy
+        int end = keyCount;
+        for (int j = bufferSize - 1; j >= 0; j--) {
+            int position = position(keys, end, buffer[j]);
+            System.arraycopy(keys, position, keys, position + j + 1, end - position);
+            keys[position + j] = buffer[j];
+            end = position;
+        }
+        keyCount += bufferSize;
+        bufferSize = 0;
+    }
+
+    private void dropRemoved() {
+        int count = 0;
+        for (int from = 0; from < keyCount; ) {
+            int to = removed.nextSetBit(from);
+            to = to < 0 || to > keyCount ? keyCount : to;
+            System.arraycopy(keys, from, keys, count, to - from);
+            count += to - from;
+            from = to + 1;
+        }
+        keyCount = count;
+        removed.clear();
+        removedCount = 0;
+    }
+
+    // Position of the key in a sorted array, or where it would be inserted
+    private int position(long[] array, int size, long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (order.compare(array[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int firstNotBelow(long[] array, int size, LongPredicate below) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (below.test(array[middle])) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Merge sort on the keys themselves, so sorting millions of them creates no objects
+    private void sort(long[] array, int count) {
+        long[] from = array;
+        long[] to = new long[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int left = 0; left < count; left += 2 * width) {
+                int middle = Math.min(left + width, count);
+                int right = Math.min(left + 2 * width, count);
+                int i = left;
+                int j = middle;
+                for (int k = left; k < right; k++) {
+                    to[k] = j >= right || (i < middle && order.compare(from[i], from[j]) <= 0) ? from[i++] : from[j++];
+                }
+            }
+            long[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != array) {
+            System.arraycopy(from, 0, array, 0, count);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package org.example.textprocessingtool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The SlidingMatcher class finds regex matches in a byte channel through a fixed-size character window.
+ * It is the shared engine behind StreamingSearcher and StreamingReplacer.
+ * After a successful {@link #find()}, the positions reported by {@link #matcher()} are indices into {@link #window()}.
+ * Once the window has moved past the start of the input, every search begins at least one character into it,
+ * so ^ and \A, which only match at window[0], cannot match at a chunk boundary.
+ * Lookbehind and \b see at most 64 characters before the search position; a lookbehind that needs
+ * to look further back may fail at a chunk boundary where Matcher.find() over the whole input would succeed.
+ */
+class SlidingMatcher {
+
+    // Characters kept before the search position so lookbehind and \b still see their context
+    private static final int LOOKBEHIND_CONTEXT = 64;
+
+    // Smallest chunk that can always hold one complete encoded character, in bytes and in chars
+    private static final int MIN_CHUNK_SIZE = 16;
+
+    /**
+     * Receives window content just before it is dropped from the window.
+     */
+    interface DiscardListener {
+        /**
+         * Called before window[0, upTo) is dropped.
+         *
+         * @param window      The window array.
+         * @param windowStart The absolute character offset of window[0].
+         * @param upTo        The window index up to which characters are dropped.
+         * @throws IOException If the listener fails to write the characters somewhere.
+         */
+        void discard(char[] window, long windowStart, int upTo) throws IOException;
+    }
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;
+    private final char[] window;
+    private final Matcher matcher;
+    private final Pattern pattern;
+    private final Pattern resumePattern; // The pattern with \G never matching, or null if it has no \G
+    private final boolean[] firstChars; // Characters a match can start with, non-ASCII last, or null if unknown
+    private final int maxMatchLength;
+    private final DiscardListener listener;
+    private final boolean trackPositions;
+    private final int byteWidth; // 1 = single byte charset, 0 = UTF-8, -1 = unknown
+
+    private int length;           // Number of valid characters in the window
+    private long windowStart;     // Absolute character offset of window[0]
+    private long nextSearch;      // Absolute character offset where the next find starts
+    private long previousEnd;     // Absolute character offset of the end of the last match, where \G matches
+    private boolean inputDone;    // Channel exhausted and decoder flushed
+
+    private long countedChars;    // Absolute character offset up to which lines and bytes were counted
+    private long countedBytes;
+    private long line = 1;
+
+    /**
+     * Constructor to initialize a SlidingMatcher over a channel.
+     *
+     * @param channel        The channel to read from.
+     * @param charset        The charset the input is encoded in.
+     * @param pattern        The compiled pattern to match.
+     * @param chunkSize      The number of characters decoded per read.
+     * @param maxMatchLength The longest match, in characters, that is guaranteed to be reported whole.
+     * @param trackPositions Whether line numbers and byte offsets are tracked.
+     * @param listener       Receives characters before they leave the window, or null.
+     */
+    SlidingMatcher(ReadableByteChannel channel, Charset charset, Pattern pattern, int chunkSize,
+                   int maxMatchLength, boolean trackPositions, DiscardListener listener) {
+        this.channel = channel;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        chunkSize = Math.max(chunkSize, MIN_CHUNK_SIZE);
+        this.bytes = ByteBuffer.allocate(chunkSize);
+        this.bytes.flip();
+        this.window = new char[chunkSize + maxMatchLength + LOOKBEHIND_CONTEXT];
+        this.pattern = pattern;
+        String resume = (pattern.flags() & Pattern.LITERAL) != 0 ? null
+                : PatternAnalyzer.withoutPreviousMatchAnchor(pattern.pattern());
+        this.resumePattern = resume == null ? null : Pattern.compile(resume, pattern.flags());
+        this.firstChars = pattern.flags() != 0 ? null : PatternAnalyzer.firstChars(pattern.pattern());
+        this.matcher = pattern.matcher("");
+        this.matcher.useTransparentBounds(true);
+        this.matcher.useAnchoringBounds(false);
+        this.maxMatchLength = maxMatchLength;
+        this.trackPositions = trackPositions;
+        this.listener = listener;
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            byteWidth = 0;
+        } else if (charset.newEncoder().maxBytesPerChar() == 1.0f) {
+            byteWidth = 1;
+        } else {
+            byteWidth = -1;
+        }
+    }
+
+    /**
+     * Finds the next match, reading and sliding the window as needed.
+     *
+     * @return true if a match was found, false once the input is exhausted.
+     * @throws IOException If the channel cannot be read.
+     * @throws MatchTooLongException If a match may be longer than maxMatchLength.
+     */
+    boolean find() throws IOException {
+        while (true) {
+            int from = (int) (nextSearch - windowStart);
+            if (from > length) {
+                // The previous match was empty and sat at the very end of the window
+                if (inputDone) {
+                    return false;
+                }
+                slideKeepingContext(length);
+                continue;
+            }
+
+            matcher.reset(CharBuffer.wrap(window, 0, length));
+            if (resumePattern != null) {
+                // After a reset \G matches at the region start, which is only right where the last match ended
+                matcher.usePattern(windowStart + from == previousEnd ? pattern : resumePattern);
+            }
+            matcher.region(from, length);
+            boolean found = matcher.find();
+            boolean needMore = !inputDone && matcher.hitEnd();
+
+            if (found && !needMore) {
+                return accept();
+            }
+            if (!found && !needMore) {
+                if (inputDone) {
+                    return false;
+                }
+                // No match can start anywhere in the window, even with more input
+                nextSearch = windowStart + length;
+                slideKeepingContext(length);
+                continue;
+            }
+
+            // More input could change the result: keep at most maxMatchLength pending characters
+            int pendingFrom = Math.max(from, length - maxMatchLength);
+            if (found && matcher.start() < pendingFrom) {
+                // The match may run on past what the window can hold; cutting it off would report the wrong text
+                throw new MatchTooLongException(windowStart + matcher.start(), maxMatchLength);
+            }
+            // A match attempt still running at the end of the window must not lose its start either
+            int unfinished = firstUnfinishedStart(from, pendingFrom);
+            if (unfinished >= 0) {
+                throw new MatchTooLongException(windowStart + unfinished, maxMatchLength);
+            }
+            nextSearch = windowStart + pendingFrom;
+            slideKeepingContext(pendingFrom);
+        }
+    }
+
+    /**
+     * Gets the matcher positioned on the last match. Its indices refer to {@link #window()}.
+     *
+     * @return The matcher.
+     */
+    Matcher matcher() {
+        return matcher;
+    }
+
+    /**
+     * Gets the character window the matcher runs over.
+     *
+     * @return The window array.
+     */
+    char[] window() {
+        return window;
+    }
+
+    /**
+     * Gets the number of valid characters in the window.
+     *
+     * @return The window length.
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Gets the absolute character offset of window[0].
+     *
+     * @return The window start offset.
+     */
+    long windowStart() {
+        return windowStart;
+    }
+
+    /**
+     * Gets the number of characters decoded from the channel so far.
+     *
+     * @return The character count.
+     */
+    long charsRead() {
+        return windowStart + length;
+    }
+
+    /**
+     * Gets the 1-based line number of the last match's start. Requires position tracking.
+     *
+     * @return The line number.
+     */
+    long line() {
+        countUpTo(matcher.start());
+        return line;
+    }
+
+    /**
+     * Gets the byte offset of the last match's start, or -1 if the charset has no cheap byte mapping.
+     * Requires position tracking.
+     *
+     * @return The byte offset.
+     */
+    long byteOffset() {
+        countUpTo(matcher.start());
+        return byteWidth < 0 ? -1 : countedBytes;
+    }
+
+    // Returns the first window index in [from, to) where a match attempt runs into the end of the window, or -1.
+    // A failed find() always reports hitEnd, so each start about to leave the window is tried on its own.
+    private int firstUnfinishedStart(int from, int to) {
+        for (int start = from; start < to; start++) {
+            if (firstChars != null && !firstChars[Math.min(window[start], 128)]) {
+                continue; // No match can start here, so the attempt fails on its first character
+            }
+            if (resumePattern != null) {
+                matcher.usePattern(windowStart + start == previousEnd ? pattern : resumePattern);
+            }
+            matcher.region(start, length);
+            matcher.lookingAt();
+            if (matcher.hitEnd()) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    private boolean accept() {
+        int start = matcher.start();
+        int end = matcher.end();
+        previousEnd = windowStart + end;
+        nextSearch = windowStart + (end == start ? end + 1 : end);
+        return true;
+    }
+
+    // Advances the line and byte counters to the given window index
+    private void countUpTo(int index) {
+        int i = (int) (countedChars - windowStart);
+        for (; i < index; i++) {
+            char c = window[i];
+            if (c == '\n') {
+                line++;
+            }
+            if (byteWidth == 1) {
+                countedBytes++;
+            } else if (byteWidth == 0) {
+                if (c < 0x80) {
+                    countedBytes++;
+                } else if (c < 0x800) {
+                    countedBytes += 2;
+                } else if (Character.isHighSurrogate(c)) {
+                    countedBytes += 4;
+                } else if (!Character.isLowSurrogate(c)) {
+                    countedBytes += 3;
+                }
+            }
+        }
+        countedChars = windowStart + Math.max(i, index);
+    }
+
+    // Slides the window so that it starts LOOKBEHIND_CONTEXT characters before index, or stays put if it is closer.
+    // Whenever the window has moved, the next search therefore starts at an index above 0.
+    private void slideKeepingContext(int index) throws IOException {
+        slide(Math.max(0, index - LOOKBEHIND_CONTEXT));
+    }
+
+    // Drops window[0, keepFrom), then decodes more input into the free space
+    private void slide(int keepFrom) throws IOException {
+        if (trackPositions && countedChars < windowStart + keepFrom) {
+            countUpTo(keepFrom);
+        }
+        if (listener != null && keepFrom > 0) {
+            listener.discard(window, windowStart, keepFrom);
+        }
+        System.arraycopy(window, keepFrom, window, 0, length - keepFrom);
+        windowStart += keepFrom;
+        length -= keepFrom;
+        fill();
+    }
+
+    private void fill() throws IOException {
+        CharBuffer out = CharBuffer.wrap(window, length, window.length - length);
+        boolean channelDone = false;
+        while (out.hasRemaining() && !inputDone) {
+            if (!bytes.hasRemaining() && !channelDone) {
+                bytes.clear();
+                channelDone = channel.read(bytes) < 0;
+                bytes.flip();
+            }
+            CoderResult result = decoder.decode(bytes, out, channelDone);
+            if (result.isOverflow()) {
+                break;
+            }
+            if (channelDone) {
+                if (decoder.flush(out).isOverflow()) {
+                    break;
+                }
+                inputDone = true;
+            } else {
+                bytes.compact();
+                if (channel.read(bytes) < 0) {
+                    channelDone = true;
+                }
+                bytes.flip();
+            }
+        }
+        length = out.position();
+    }
+}
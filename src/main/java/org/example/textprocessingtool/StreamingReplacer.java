@@ -0,0 +1,244 @@
+package org.example.textprocessingtool;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The StreamingReplacer class replaces regex matches in a file or channel and writes the result
+ * straight to a target channel, without ever holding the whole input or output in memory.
+ * Unmatched text is copied from the sliding input window through a reusable output buffer, and the
+ * replacement string supports the same $1, ${name} and backslash-escape syntax as Matcher.replaceAll.
+ * As with StreamingSearcher, lookbehind only sees the 64 characters before the search position,
+ * so a pattern whose lookbehind reaches further back may leave text at a chunk boundary unreplaced.
+ */
+public class StreamingReplacer {
+
+    // Size of the encoder's output buffer in bytes
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final PatternCache patternCache;
+    private final int chunkSize;
+    private final int maxMatchLength;
+    private final RegexMetrics metrics = RegexMetrics.shared();
+
+    /**
+     * Constructor to initialize a StreamingReplacer with the default chunk size and the shared PatternCache.
+     */
+    public StreamingReplacer() {
+        this(PatternCache.shared(), StreamingSearcher.DEFAULT_CHUNK_SIZE, StreamingSearcher.DEFAULT_MAX_MATCH_LENGTH);
+    }
+
+    /**
+     * Constructor to initialize a StreamingReplacer with explicit buffer sizes.
+     * A replace that meets a match longer than maxMatchLength fails with a MatchTooLongException,
+     * so a match is never replaced in part.
+     *
+     * @param patternCache   The cache used to look up compiled patterns.
+     * @param chunkSize      The number of characters decoded per read.
+     * @param maxMatchLength The longest match, in characters, that is guaranteed to be replaced whole.
+     */
+    public StreamingReplacer(PatternCache patternCache, int chunkSize, int maxMatchLength) {
+        if (chunkSize <= 0 || maxMatchLength <= 0) {
+            throw new IllegalArgumentException("chunkSize and maxMatchLength must be positive");
+        }
+        this.patternCache = patternCache;
+        this.chunkSize = chunkSize;
+        this.maxMatchLength = maxMatchLength;
+    }
+
+    /**
+     * Replaces every match of the pattern in a UTF-8 source file and writes the result to the target file.
+     * The target is created or truncated.
+     *
+     * @param source      The file to read.
+     * @param target      The file to write.
+     * @param pattern     The regex pattern to match.
+     * @param replacement The replacement string, with $n and ${name} group references.
+     * @return The number of replacements made.
+     * @throws IOException If either file cannot be accessed.
+     */
+    public long replace(Path source, Path target, String pattern, String replacement) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return replace(in, out, StandardCharsets.UTF_8, pattern, replacement);
+        }
+    }
+
+    /**
+     * Replaces every match of the pattern read from one channel and writes the result to another.
+     * Both channels are left open; all output is flushed before returning.
+     *
+     * @param in          The channel to read from.
+     * @param out         The channel to write to.
+     * @param charset     The charset of both input and output.
+     * @param pattern     The regex pattern to match.
+     * @param replacement The replacement string, with $n and ${name} group references.
+     * @return The number of replacements made.
+     * @throws IOException If either channel fails.
+     * @throws MatchTooLongException If a match may be longer than maxMatchLength; the output is then incomplete.
+     */
+    public long replace(ReadableByteChannel in, WritableByteChannel out, Charset charset,
+                        String pattern, String replacement) throws IOException {
+        Pattern compiled = patternCache.compile(pattern);
+        ReplacementTemplate template = ReplacementTemplate.parse(replacement, compiled);
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        Writer writer = Channels.newWriter(out, encoder, OUTPUT_BUFFER_SIZE);
+        CountingByteChannel counted = new CountingByteChannel(in);
+        RegexOperationEvent event = new RegexOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        // Absolute offset of the first input character not yet written out
+        long[] copied = {0};
+        SlidingMatcher sliding = new SlidingMatcher(counted, charset, compiled, chunkSize, maxMatchLength, false,
+                (window, windowStart, upTo) -> {
+                    int from = (int) (copied[0] - windowStart);
+                    if (from < upTo) {
+                        writer.write(window, from, upTo - from);
+                        copied[0] = windowStart + upTo;
+                    }
+                });
+
+        long count = 0;
+        try {
+            while (sliding.find()) {
+                Matcher matcher = sliding.matcher();
+                char[] window = sliding.window();
+                int from = (int) (copied[0] - sliding.windowStart());
+                writer.write(window, from, matcher.start() - from);
+                template.appendTo(writer, matcher, window);
+                copied[0] = sliding.windowStart() + matcher.end();
+                count++;
+            }
+            int from = (int) (copied[0] - sliding.windowStart());
+            writer.write(sliding.window(), from, sliding.length() - from);
+            writer.flush();
+            return count;
+        } finally {
+            metrics.record(RegexMetrics.Operation.STREAM_REPLACE, pattern, sliding.charsRead(), counted.count(), count,
+                    System.nanoTime() - start);
+            event.complete(RegexMetrics.Operation.STREAM_REPLACE, pattern, sliding.charsRead(), counted.count(),
+                    count, false);
+        }
+    }
+
+    /**
+     * A replacement string parsed once into literal text and group references,
+     * following the rules of Matcher.appendReplacement.
+     */
+    private static class ReplacementTemplate {
+        private final String[] literals; // literals[i] is written before groups[i]
+        private final int[] groups;      // Group numbers; the last literal has no group after it
+
+        private ReplacementTemplate(String[] literals, int[] groups) {
+            this.literals = literals;
+            this.groups = groups;
+        }
+
+        static ReplacementTemplate parse(String replacement, Pattern pattern) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> groups = new ArrayList<>();
+            int groupCount = pattern.matcher("").groupCount();
+            Map<String, Integer> namedGroups = pattern.namedGroups();
+            StringBuilder literal = new StringBuilder();
+
+            int cursor = 0;
+            while (cursor < replacement.length()) {
+                char c = replacement.charAt(cursor);
+                if (c == '\\') {
+                    cursor++;
+                    if (cursor == replacement.length()) {
+                        throw new IllegalArgumentException("character to be escaped is missing");
+                    }
+                    literal.append(replacement.charAt(cursor++));
+                } else if (c == '$') {
+                    cursor++;
+                    if (cursor == replacement.length()) {
+                        throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                    }
+                    int group;
+                    if (replacement.charAt(cursor) == '{') {
+                        int close = ++cursor;
+                        while (close < replacement.length() && isAsciiLetterOrDigit(replacement.charAt(close))) {
+                            close++;
+                        }
+                        String name = replacement.substring(cursor, close);
+                        if (name.isEmpty()) {
+                            throw new IllegalArgumentException("named capturing group has 0 length name");
+                        }
+                        if (close == replacement.length() || replacement.charAt(close) != '}') {
+                            throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                        }
+                        if (Character.isDigit(name.charAt(0))) {
+                            throw new IllegalArgumentException("capturing group name {" + name
+                                    + "} starts with digit character");
+                        }
+                        Integer index = namedGroups.get(name);
+                        if (index == null) {
+                            throw new IllegalArgumentException("No group with name {" + name + "}");
+                        }
+                        group = index;
+                        cursor = close + 1;
+                    } else {
+                        group = replacement.charAt(cursor) - '0';
+                        if (group < 0 || group > 9) {
+                            throw new IllegalArgumentException("Illegal group reference");
+                        }
+                        cursor++;
+                        // Take further digits only while they still name an existing group
+                        while (cursor < replacement.length()) {
+                            int digit = replacement.charAt(cursor) - '0';
+                            if (digit < 0 || digit > 9 || group * 10 + digit > groupCount) {
+                                break;
+                            }
+                            group = group * 10 + digit;
+                            cursor++;
+                        }
+                    }
+                    literals.add(literal.toString());
+                    groups.add(group);
+                    literal.setLength(0);
+                } else {
+                    literal.append(c);
+                    cursor++;
+                }
+            }
+            literals.add(literal.toString());
+            return new ReplacementTemplate(literals.toArray(new String[0]),
+                    groups.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        void appendTo(Writer writer, Matcher matcher, char[] window) throws IOException {
+            for (int i = 0; i < groups.length; i++) {
+                writer.write(literals[i]);
+                int start = matcher.start(groups[i]);
+                if (start != -1) {
+                    writer.write(window, start, matcher.end(groups[i]) - start);
+                }
+            }
+            writer.write(literals[groups.length]);
+        }
+
+        private static boolean isAsciiLetterOrDigit(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.example.textprocessingtool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The StreamingSearcher class searches files or channels of any size for a regex pattern
+ * without loading the whole input into memory.
+ * The input is decoded into a fixed-size character window that slides over the data, so heap use
+ * depends only on the chunk size and the maximum match length, never on the size of the input.
+ * Matches that cross a chunk boundary are found by re-reading the window whenever the matcher
+ * reports that more input could change the result.
+ * Lookbehind only sees the 64 characters before the search position once the window has slid,
+ * so patterns whose lookbehind reaches further back than that may miss matches at chunk boundaries.
+ */
+public class StreamingSearcher {
+
+    /** Default number of characters decoded per chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /** Default longest match, in characters, that is guaranteed to be reported whole. */
+    public static final int DEFAULT_MAX_MATCH_LENGTH = 8 * 1024;
+
+    private final PatternCache patternCache;
+    private final int chunkSize;
+    private final int maxMatchLength;
+    private final RegexMetrics metrics = RegexMetrics.shared();
+
+    /**
+     * Constructor to initialize a StreamingSearcher with the default chunk size and the shared PatternCache.
+     */
+    public StreamingSearcher() {
+        this(PatternCache.shared(), DEFAULT_CHUNK_SIZE, DEFAULT_MAX_MATCH_LENGTH);
+    }
+
+    /**
+     * Constructor to initialize a StreamingSearcher with explicit buffer sizes.
+     * A search that meets a match longer than maxMatchLength fails with a MatchTooLongException.
+     *
+     * @param patternCache   The cache used to look up compiled patterns.
+     * @param chunkSize      The number of characters decoded per read.
+     * @param maxMatchLength The longest match, in characters, that is guaranteed to be reported whole.
+     */
+    public StreamingSearcher(PatternCache patternCache, int chunkSize, int maxMatchLength) {
+        if (chunkSize <= 0 || maxMatchLength <= 0) {
+            throw new IllegalArgumentException("chunkSize and maxMatchLength must be positive");
+        }
+        this.patternCache = patternCache;
+        this.chunkSize = chunkSize;
+        this.maxMatchLength = maxMatchLength;
+    }
+
+    /**
+     * Searches a UTF-8 file for the pattern and passes every match to the consumer, in file order.
+     *
+     * @param file     The file to search.
+     * @param pattern  The regex pattern to match.
+     * @param consumer The callback receiving each match.
+     * @return The number of matches found.
+     * @throws IOException If the file cannot be read.
+     */
+    public long search(Path file, String pattern, Consumer<Match> consumer) throws IOException {
+        return search(file, StandardCharsets.UTF_8, pattern, consumer);
+    }
+
+    /**
+     * Searches a file in the given charset for the pattern and passes every match to the consumer, in file order.
+     *
+     * @param file     The file to search.
+     * @param charset  The charset the file is encoded in.
+     * @param pattern  The regex pattern to match.
+     * @param consumer The callback receiving each match.
+     * @return The number of matches found.
+     * @throws IOException If the file cannot be read.
+     */
+    public long search(Path file, Charset charset, String pattern, Consumer<Match> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return search(channel, charset, pattern, consumer);
+        }
+    }
+
+    /**
+     * Searches a channel for the pattern and passes every match to the consumer, in input order.
+     * The channel is read to the end but not closed.
+     *
+     * @param channel  The channel to read from.
+     * @param charset  The charset the input is encoded in.
+     * @param pattern  The regex pattern to match.
+     * @param consumer The callback receiving each match.
+     * @return The number of matches found.
+     * @throws IOException If the channel cannot be read.
+     * @throws MatchTooLongException If a match may be longer than maxMatchLength.
+     */
+    public long search(ReadableByteChannel channel, Charset charset, String pattern, Consumer<Match> consumer)
+            throws IOException {
+        CountingByteChannel counted = new CountingByteChannel(channel);
+        MatchReader reader = new MatchReader(counted, charset, pattern);
+        RegexOperationEvent event = new RegexOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long count = 0;
+        try {
+            Match match;
+            while ((match = reader.next()) != null) {
+                consumer.accept(match);
+                count++;
+            }
+            return count;
+        } finally {
+            metrics.record(RegexMetrics.Operation.STREAM_SEARCH, pattern, reader.charsRead(), counted.count(), count,
+                    System.nanoTime() - start);
+            event.complete(RegexMetrics.Operation.STREAM_SEARCH, pattern, reader.charsRead(), counted.count(),
+                    count, false);
+        }
+    }
+
+    /**
+     * Returns a lazy stream over the matches of the pattern in a UTF-8 file.
+     * The stream must be closed to release the file, for example with try-with-resources.
+     *
+     * @param file    The file to search.
+     * @param pattern The regex pattern to match.
+     * @return A sequential stream of matches in file order.
+     * @throws IOException If the file cannot be opened.
+     */
+    public Stream<Match> stream(Path file, String pattern) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return stream(channel, StandardCharsets.UTF_8, pattern).onClose(() -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a lazy stream over the matches of the pattern in a channel.
+     * Read errors are rethrown as UncheckedIOException. The channel is not closed by the stream.
+     *
+     * @param channel The channel to read from.
+     * @param charset The charset the input is encoded in.
+     * @param pattern The regex pattern to match.
+     * @return A sequential stream of matches in input order.
+     */
+    public Stream<Match> stream(ReadableByteChannel channel, Charset charset, String pattern) {
+        MatchReader reader = new MatchReader(channel, charset, pattern);
+        Iterator<Match> iterator = new Iterator<>() {
+            private Match pending;
+
+            @Override
+            public boolean hasNext() {
+                if (pending == null) {
+                    try {
+                        pending = reader.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return pending != null;
+            }
+
+            @Override
+            public Match next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Match match = pending;
+                pending = null;
+                return match;
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * A single match found in a stream.
+     *
+     * @param text       The matched text.
+     * @param charOffset The offset of the first matched character from the start of the input.
+     * @param byteOffset The offset of the first matched byte, or -1 if the charset has no cheap byte mapping.
+     * @param lineNumber The 1-based line (counted by '\n') the match starts on.
+     */
+    public record Match(String text, long charOffset, long byteOffset, long lineNumber) {
+    }
+
+    /**
+     * Pull-based reader producing one match at a time from a sliding character window.
+     */
+    private class MatchReader {
+        private final SlidingMatcher sliding;
+
+        MatchReader(ReadableByteChannel channel, Charset charset, String pattern) {
+            this.sliding = new SlidingMatcher(channel, charset, patternCache.compile(pattern),
+                    chunkSize, maxMatchLength, true, null);
+        }
+
+        Match next() throws IOException {
+            if (!sliding.find()) {
+                return null;
+            }
+            Matcher matcher = sliding.matcher();
+            int start = matcher.start();
+            return new Match(new String(sliding.window(), start, matcher.end() - start),
+                    sliding.windowStart() + start, sliding.byteOffset(), sliding.line());
+        }
+
+        long charsRead() {
+            return sliding.charsRead();
+        }
+    }
+}
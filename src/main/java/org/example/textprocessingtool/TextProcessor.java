@@ -1,14 +1,36 @@
 package org.example.textprocessingtool;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.regex.MatchResult;
 
 public class TextProcessor {
 
     private RegexProcessor regexProcessor; // The RegexProcessor instance to handle regex operations
+    private StreamingSearcher streamingSearcher; // Searches files without loading them into memory
+    private StreamingReplacer streamingReplacer; // Rewrites files without loading them into memory
+    private Utf8Searcher utf8Searcher; // Searches UTF-8 files on their bytes where the pattern allows it
 
     // Constructor to initialize RegexProcessor
     public TextProcessor() {
         this.regexProcessor = new RegexProcessor();
+        this.streamingSearcher = new StreamingSearcher(regexProcessor.getPatternCache(),
+                StreamingSearcher.DEFAULT_CHUNK_SIZE, StreamingSearcher.DEFAULT_MAX_MATCH_LENGTH);
+        this.streamingReplacer = new StreamingReplacer(regexProcessor.getPatternCache(),
+                StreamingSearcher.DEFAULT_CHUNK_SIZE, StreamingSearcher.DEFAULT_MAX_MATCH_LENGTH);
+        this.utf8Searcher = new Utf8Searcher(regexProcessor.getPatternCache());
+    }
+
+    /**
+     * Gets the pattern cache shared with the underlying RegexProcessor,
+     * so callers can read its hit, miss and eviction counters.
+     *
+     * @return The PatternCache in use.
+     */
+    public PatternCache getPatternCache() {
+        return regexProcessor.getPatternCache();
     }
 
     /**
@@ -23,6 +45,109 @@ public class TextProcessor {
         return regexProcessor.search(text, pattern);
     }
 
+    /**
+     * Searches for a pattern in the text and passes each match to the consumer as soon as it is found.
+     *
+     * @param text The text in which to search.
+     * @param pattern The regex pattern to match.
+     * @param consumer The callback receiving each matched string, in text order.
+     * @return The number of matches found.
+     */
+    public int searchText(CharSequence text, String pattern, Consumer<String> consumer) {
+        // Utilize RegexProcessor's incremental search
+        return regexProcessor.search(text, pattern, consumer);
+    }
+
+    /**
+     * Searches for a pattern in the text and passes each match's position to the action as soon as it is found,
+     * without creating a string per match.
+     *
+     * @param text The text in which to search.
+     * @param pattern The regex pattern to match.
+     * @param action The callback receiving each match, in text order; the MatchResult must not be kept.
+     * @return The number of matches found.
+     */
+    public int scanText(CharSequence text, String pattern, Consumer<MatchResult> action) {
+        // Utilize RegexProcessor's allocation-free scan
+        return regexProcessor.scan(text, pattern, action);
+    }
+
+    /**
+     * Builds an index of the text, to run many searches over the same text faster.
+     *
+     * @param text The text to index.
+     * @return The index, to pass to the searches taking one.
+     */
+    public TrigramIndex indexText(String text) {
+        return TrigramIndex.build(text);
+    }
+
+    /**
+     * Searches an indexed text for a pattern. Patterns with a literal of three or more characters
+     * that every match must contain are answered from the index without scanning the whole text.
+     *
+     * @param index The index of the text in which to search.
+     * @param pattern The regex pattern to match.
+     * @return A list of matches found in the text.
+     */
+    public ArrayList<String> searchText(TrigramIndex index, String pattern) {
+        // Utilize RegexProcessor's indexed search
+        return regexProcessor.search(index, pattern);
+    }
+
+    /**
+     * Searches an indexed text for a pattern and passes each match's position to the action as soon as it is found.
+     *
+     * @param text The indexed text, or a wrapper of it such as an InterruptibleCharSequence.
+     * @param index The index of the text.
+     * @param pattern The regex pattern to match.
+     * @param action The callback receiving each match, in text order; the MatchResult must not be kept.
+     * @return The number of matches found.
+     */
+    public int scanText(CharSequence text, TrigramIndex index, String pattern, Consumer<MatchResult> action) {
+        // Utilize RegexProcessor's indexed scan
+        return regexProcessor.scan(text, index, pattern, action);
+    }
+
+    /**
+     * Searches for a pattern in the text and returns the matches as offsets, creating substrings only on demand.
+     *
+     * @param text The text in which to search.
+     * @param pattern The regex pattern to match.
+     * @return The offsets of all matches.
+     */
+    public MatchOffsets searchTextOffsets(CharSequence text, String pattern) {
+        // Utilize RegexProcessor's offset-based search
+        return regexProcessor.searchOffsets(text, pattern, false);
+    }
+
+    /**
+     * Counts the matches of a pattern in the text without creating any object per match.
+     *
+     * @param text The text in which to count.
+     * @param pattern The regex pattern to match.
+     * @return The number of matches.
+     */
+    public int countMatches(CharSequence text, String pattern) {
+        // Utilize RegexProcessor's count-only mode
+        return regexProcessor.count(text, pattern);
+    }
+
+    /**
+     * Searches a UTF-8 file for a pattern without loading it into memory,
+     * passing each match with its offset and line number to the consumer.
+     *
+     * @param file The file in which to search.
+     * @param pattern The regex pattern to match.
+     * @param consumer The callback receiving each match, in file order.
+     * @return The number of matches found.
+     * @throws IOException If the file cannot be read.
+     */
+    public long searchFile(Path file, String pattern, Consumer<StreamingSearcher.Match> consumer) throws IOException {
+        // Utilize Utf8Searcher, which searches the mapped bytes or falls back to StreamingSearcher
+        return utf8Searcher.search(file, pattern, consumer);
+    }
+
 
 
 
@@ -34,11 +159,28 @@ public class TextProcessor {
      * @param replacement The string to replace the matches with.
      * @return The text with replacements.
      */
-    public String replaceText(String text, String pattern, String replacement) {
+    public String replaceText(CharSequence text, String pattern, String replacement) {
         // Utilize RegexProcessor's replace method
         return regexProcessor.replace(text, pattern, replacement);
     }
 
+    /**
+     * Replaces all occurrences of a pattern in a UTF-8 file and writes the result to another file,
+     * without loading either file into memory.
+     *
+     * @param source The file to read.
+     * @param target The file to write; it is created or truncated.
+     * @param pattern The regex pattern to match.
+     * @param replacement The string to replace the matches with, with $n group references.
+     * @return The number of replacements made.
+     * @throws IOException If either file cannot be accessed.
+     * @throws MatchTooLongException If a match is too long to replace whole; the target is then incomplete.
+     */
+    public long replaceFile(Path source, Path target, String pattern, String replacement) throws IOException {
+        // Utilize StreamingReplacer's chunked replace pipeline
+        return streamingReplacer.replace(source, target, pattern, replacement);
+    }
+
 
 
 
@@ -0,0 +1,325 @@
+package org.example.textprocessingtool;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The TextProcessorCli class is the headless entry point: it runs search, count, replace and stats
+ * over files or standard input, like grep, grep -c, sed and wc, without starting JavaFX.
+ * Files are streamed through StreamingSearcher and StreamingReplacer, so their size does not matter;
+ * search and count go through Utf8Searcher, which scans the file's bytes without decoding them when it can.
+ * Large files whose pattern needs decoding but never crosses a line are searched by ParallelFileSearcher on all cores.
+ * Only JDK classes are used, so it runs from the plain classpath with no JavaFX installed:
+ *
+ *   java -cp TextProcessingTool.jar org.example.textprocessingtool.TextProcessorCli search '\d+' log.txt
+ *
+ * The jar's Main-Class is this class, so "java -jar TextProcessingTool.jar ..." works too.
+ * For per-file invocations, startup can be cut further with an AppCDS archive:
+ * run once with -XX:ArchiveClassesAtExit=textproc.jsa, then always with -XX:SharedArchiveFile=textproc.jsa.
+ *
+ * Exit status follows grep: 0 if something matched, 1 if nothing did, 2 on an error.
+ */
+public class TextProcessorCli {
+
+    private static final String USAGE = """
+            Usage:
+              search [-n] PATTERN [FILE...]            Print every match, with -n prefixed by its line number
+              count PATTERN [FILE...]                  Print the number of matches
+              replace [-i] PATTERN REPLACEMENT [FILE...]
+                                                       Print the text with every match replaced;
+                                                       with -i rewrite the files in place instead
+              stats [FILE...]                          Print the line, word and character counts
+            Without FILE, or with -, standard input is read. Files are read and written as UTF-8.""";
+
+    private static final int EXIT_MATCH = 0;
+    private static final int EXIT_NO_MATCH = 1;
+    private static final int EXIT_ERROR = 2;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    // Files smaller than this are decoded faster on one thread than they are split and merged
+    private static final long PARALLEL_MIN_FILE_SIZE = 8L << 20;
+
+    private final PatternCache patternCache = new PatternCache(PatternCache.DEFAULT_MAX_SIZE);
+    private final StreamingSearcher searcher = new StreamingSearcher(patternCache,
+            StreamingSearcher.DEFAULT_CHUNK_SIZE, StreamingSearcher.DEFAULT_MAX_MATCH_LENGTH);
+    private final Utf8Searcher utf8Searcher = new Utf8Searcher(patternCache);
+    private final StreamingReplacer replacer = new StreamingReplacer(patternCache,
+            StreamingSearcher.DEFAULT_CHUNK_SIZE, StreamingSearcher.DEFAULT_MAX_MATCH_LENGTH);
+    private final Writer out;
+    private ParallelFileSearcher parallelSearcher; // Started on first use, shut down when the command ends
+
+    /**
+     * Constructor to initialize a command line runner writing its results to the given writer.
+     *
+     * @param out The destination of the results.
+     */
+    public TextProcessorCli(Writer out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+        int status;
+        try {
+            status = new TextProcessorCli(out).run(args);
+            out.flush();
+        } catch (IOException | UncheckedIOException | MatchTooLongException e) {
+            System.err.println("Error: " + e.getMessage());
+            status = EXIT_ERROR;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Runs one command.
+     *
+     * @param args The command and its arguments.
+     * @return The exit status: 0 if something matched, 1 if nothing did, 2 on a usage or pattern error.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public int run(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            return EXIT_ERROR;
+        }
+        List<String> arguments = new ArrayList<>(List.of(args).subList(1, args.length));
+        try {
+            return switch (args[0]) {
+                case "search" -> search(arguments, takeFlag(arguments, "-n"));
+                case "count" -> count(arguments);
+                case "replace" -> replace(arguments, takeFlag(arguments, "-i"));
+                case "stats" -> stats(arguments);
+                case "-h", "--help", "help" -> {
+                    System.out.println(USAGE);
+                    yield EXIT_MATCH;
+                }
+                default -> {
+                    System.err.println("Unknown command: " + args[0] + "\n" + USAGE);
+                    yield EXIT_ERROR;
+                }
+            };
+        } finally {
+            if (parallelSearcher != null) {
+                parallelSearcher.close();
+                parallelSearcher = null;
+            }
+        }
+    }
+
+    private int search(List<String> arguments, boolean lineNumbers) throws IOException {
+        String pattern = takePattern(arguments);
+        if (pattern == null) {
+            return EXIT_ERROR;
+        }
+        List<String> files = inputs(arguments);
+        boolean prefixFile = files.size() > 1;
+        long total = 0;
+        for (String file : files) {
+            Consumer<StreamingSearcher.Match> print = match -> {
+                try {
+                    if (prefixFile) {
+                        out.write(file);
+                        out.write(':');
+                    }
+                    if (lineNumbers) {
+                        out.write(Long.toString(match.lineNumber()));
+                        out.write(':');
+                    }
+                    out.write(match.text());
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            if (searchesInParallel(file, pattern)) {
+                List<StreamingSearcher.Match> matches = parallelSearcher().search(Path.of(file), pattern);
+                matches.forEach(print);
+                total += matches.size();
+                continue;
+            }
+            if (!file.equals("-")) {
+                total += utf8Searcher.search(Path.of(file), pattern, print);
+                continue;
+            }
+            try (ReadableByteChannel in = open(file)) {
+                total += searcher.search(in, StandardCharsets.UTF_8, pattern, print);
+            }
+        }
+        return total > 0 ? EXIT_MATCH : EXIT_NO_MATCH;
+    }
+
+    private int count(List<String> arguments) throws IOException {
+        String pattern = takePattern(arguments);
+        if (pattern == null) {
+            return EXIT_ERROR;
+        }
+        List<String> files = inputs(arguments);
+        long total = 0;
+        for (String file : files) {
+            long count;
+            if (searchesInParallel(file, pattern)) {
+                count = parallelSearcher().search(Path.of(file), pattern).size();
+            } else if (!file.equals("-")) {
+                count = utf8Searcher.count(Path.of(file), pattern);
+            } else {
+                try (ReadableByteChannel in = open(file)) {
+                    count = searcher.search(in, StandardCharsets.UTF_8, pattern, match -> { });
+                }
+            }
+            out.write((files.size() > 1 ? file + ":" : "") + count + "\n");
+            total += count;
+        }
+        return total > 0 ? EXIT_MATCH : EXIT_NO_MATCH;
+    }
+
+    private int replace(List<String> arguments, boolean inPlace) throws IOException {
+        String pattern = takePattern(arguments);
+        if (pattern == null) {
+            return EXIT_ERROR;
+        }
+        if (arguments.isEmpty()) {
+            System.err.println("Missing REPLACEMENT\n" + USAGE);
+            return EXIT_ERROR;
+        }
+        String replacement = arguments.remove(0);
+        List<String> files = inputs(arguments);
+        if (inPlace && files.contains("-")) {
+            System.err.println("-i needs files, not standard input");
+            return EXIT_ERROR;
+        }
+
+        long total = 0;
+        for (String file : files) {
+            if (inPlace) {
+                // Write next to the file and swap it in, so a failure never leaves it half rewritten
+                Path source = Path.of(file);
+                Path temporary = Files.createTempFile(source.toAbsolutePath().getParent(), ".textproc", ".tmp");
+                try {
+                    total += replacer.replace(source, temporary, pattern, replacement);
+                    copyPermissions(source, temporary);
+                    Files.move(temporary, source, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            } else {
+                out.flush(); // The replacer writes straight to standard output
+                WritableByteChannel stdout = Channels.newChannel(System.out);
+                try (ReadableByteChannel in = open(file)) {
+                    total += replacer.replace(in, stdout, StandardCharsets.UTF_8, pattern, replacement);
+                }
+                System.out.flush();
+            }
+        }
+        return total > 0 ? EXIT_MATCH : EXIT_NO_MATCH;
+    }
+
+    private int stats(List<String> arguments) throws IOException {
+        List<String> files = inputs(arguments);
+        for (String file : files) {
+            TextStatistics statistics;
+            try (ReadableByteChannel in = open(file);
+                 Reader reader = new InputStreamReader(Channels.newInputStream(in), StandardCharsets.UTF_8)) {
+                statistics = TextStatistics.of(reader);
+            }
+            out.write("lines " + statistics.getNewlineCount()
+                    + "  words " + statistics.getWordCount()
+                    + "  chars " + statistics.getCharCount()
+                    + (files.size() > 1 ? "  " + file : "") + "\n");
+        }
+        return EXIT_MATCH;
+    }
+
+    // Large files are split across cores when the pattern needs decoding and every match stays within a line
+    private boolean searchesInParallel(String file, String pattern) throws IOException {
+        return !file.equals("-") && !utf8Searcher.isByteLevel(pattern) && PatternAnalyzer.isLineOriented(pattern)
+                && Files.size(Path.of(file)) >= PARALLEL_MIN_FILE_SIZE;
+    }
+
+    private ParallelFileSearcher parallelSearcher() {
+        if (parallelSearcher == null) {
+            parallelSearcher = new ParallelFileSearcher(patternCache, Runtime.getRuntime().availableProcessors());
+        }
+        return parallelSearcher;
+    }
+
+    // Temporary files are created private to the user; the rewritten file keeps the source's access rights instead
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        if (view != null) {
+            Files.setPosixFilePermissions(target, view.readAttributes().permissions());
+        }
+    }
+
+    // Removes the flag from the arguments if it comes first
+    private static boolean takeFlag(List<String> arguments, String flag) {
+        if (!arguments.isEmpty() && arguments.get(0).equals(flag)) {
+            arguments.remove(0);
+            return true;
+        }
+        return false;
+    }
+
+    // Removes and validates the pattern; problems are reported on standard error, never mixed into the results
+    private String takePattern(List<String> arguments) {
+        if (arguments.isEmpty()) {
+            System.err.println("Missing PATTERN\n" + USAGE);
+            return null;
+        }
+        String pattern = arguments.remove(0);
+        if (!patternCache.isValid(pattern)) {
+            System.err.println("Invalid regex pattern: " + pattern);
+            return null;
+        }
+        if (PatternAnalyzer.hasNestedQuantifier(pattern)) {
+            System.err.println("Unsafe regex pattern: nested quantifiers can cause catastrophic backtracking");
+            return null;
+        }
+        return pattern;
+    }
+
+    private static List<String> inputs(List<String> arguments) {
+        return arguments.isEmpty() ? List.of("-") : arguments;
+    }
+
+    private static ReadableByteChannel open(String file) throws IOException {
+        if (file.equals("-")) {
+            // Closing this channel would close standard input for the next "-", so it is left open
+            ReadableByteChannel stdin = Channels.newChannel(System.in);
+            return new ReadableByteChannel() {
+                @Override
+                public int read(ByteBuffer buffer) throws IOException {
+                    return stdin.read(buffer);
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+        return FileChannel.open(Path.of(file), StandardOpenOption.READ);
+    }
+}
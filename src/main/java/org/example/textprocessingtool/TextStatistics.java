@@ -0,0 +1,212 @@
+package org.example.textprocessingtool;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * The TextStatistics class keeps the character, word and line counts of a text up to date.
+ * After an edit, only the changed range is rescanned instead of the whole document.
+ * A word is a maximal run of characters that are not regex whitespace (\s),
+ * which is what splitting the trimmed text on "\\s+" counts.
+ * Neither the full recount nor the incremental update allocates any memory.
+ */
+public class TextStatistics {
+
+    // Characters compared per String.regionMatches call when looking for the edited range
+    private static final int BLOCK_SIZE = 4096;
+    // Characters read at a time when counting a stream
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private int charCount;
+    private int wordCount;
+    private int newlineCount;
+
+    /**
+     * Constructor to initialize statistics of an empty text.
+     */
+    public TextStatistics() {
+    }
+
+    /**
+     * Creates statistics for the given text by scanning it once.
+     *
+     * @param text The text to count.
+     * @return The statistics of the text.
+     */
+    public static TextStatistics of(CharSequence text) {
+        TextStatistics statistics = new TextStatistics();
+        statistics.recount(text);
+        return statistics;
+    }
+
+    /**
+     * Creates statistics for a text read from the reader, one buffer at a time, so the text is never held in memory.
+     * The reader is read to the end but not closed.
+     *
+     * @param reader The text to count.
+     * @return The statistics of the text.
+     * @throws IOException If the reader fails.
+     */
+    public static TextStatistics of(Reader reader) throws IOException {
+        TextStatistics statistics = new TextStatistics();
+        char[] buffer = new char[BUFFER_SIZE];
+        boolean previousSpace = true; // A word can start at the very first character
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            statistics.charCount += read;
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                boolean space = isSpace(c);
+                if (previousSpace && !space) {
+                    statistics.wordCount++;
+                }
+                if (c == '\n') {
+                    statistics.newlineCount++;
+                }
+                previousSpace = space;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Recounts everything from scratch, for when the previous text is not known.
+     *
+     * @param text The current text.
+     */
+    public void recount(CharSequence text) {
+        charCount = text.length();
+        wordCount = countWordStarts(text, 0, text.length());
+        newlineCount = countNewlines(text, 0, text.length());
+    }
+
+    /**
+     * Updates the counts after the text changed from oldText to newText.
+     * The edited range is found by skipping the common prefix and suffix of both texts.
+     *
+     * @param oldText The text the current counts describe.
+     * @param newText The text after the edit.
+     */
+    public void update(CharSequence oldText, CharSequence newText) {
+        int start = commonPrefix(oldText, newText);
+        int suffix = commonSuffix(oldText, newText, Math.min(oldText.length(), newText.length()) - start);
+        update(oldText, newText, start, oldText.length() - suffix, newText.length() - suffix);
+    }
+
+    /**
+     * Updates the counts after the range [start, oldEnd) of oldText was replaced,
+     * giving the range [start, newEnd) of newText.
+     *
+     * @param oldText The text the current counts describe.
+     * @param newText The text after the edit.
+     * @param start   The start of the edited range in both texts.
+     * @param oldEnd  The end of the replaced range in oldText (exclusive).
+     * @param newEnd  The end of the inserted range in newText (exclusive).
+     */
+    public void update(CharSequence oldText, CharSequence newText, int start, int oldEnd, int newEnd) {
+        charCount += (newEnd - start) - (oldEnd - start);
+        newlineCount += countNewlines(newText, start, newEnd) - countNewlines(oldText, start, oldEnd);
+        // Whether a character starts a word also depends on the one before it,
+        // so the first unchanged character after the edit is rechecked too
+        wordCount += countWordStarts(newText, start, Math.min(newEnd + 1, newText.length()))
+                - countWordStarts(oldText, start, Math.min(oldEnd + 1, oldText.length()));
+    }
+
+    /**
+     * Gets the number of characters.
+     *
+     * @return The character count.
+     */
+    public int getCharCount() {
+        return charCount;
+    }
+
+    /**
+     * Gets the number of words.
+     *
+     * @return The word count.
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Gets the number of lines. An empty text has no lines; otherwise every '\n' starts a new one.
+     *
+     * @return The line count.
+     */
+    public int getLineCount() {
+        return charCount == 0 ? 0 : newlineCount + 1;
+    }
+
+    /**
+     * Gets the number of '\n' characters, which is what wc -l reports as the line count.
+     *
+     * @return The newline count.
+     */
+    public int getNewlineCount() {
+        return newlineCount;
+    }
+
+    // Counts the positions in [from, to) where a word starts
+    private static int countWordStarts(CharSequence text, int from, int to) {
+        int count = 0;
+        boolean previousSpace = from == 0 || isSpace(text.charAt(from - 1));
+        for (int i = from; i < to; i++) {
+            boolean space = isSpace(text.charAt(i));
+            if (previousSpace && !space) {
+                count++;
+            }
+            previousSpace = space;
+        }
+        return count;
+    }
+
+    private static int countNewlines(CharSequence text, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // The characters matched by \s
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Returns the length of the common prefix of both texts
+    private static int commonPrefix(CharSequence a, CharSequence b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        if (a instanceof String sa && b instanceof String sb) {
+            // Skip whole blocks with the vectorised comparison first
+            while (i + BLOCK_SIZE <= max && sa.regionMatches(i, sb, i, BLOCK_SIZE)) {
+                i += BLOCK_SIZE;
+            }
+        }
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    // Returns the length of the common suffix of both texts, at most max
+    private static int commonSuffix(CharSequence a, CharSequence b, int max) {
+        int aLength = a.length();
+        int bLength = b.length();
+        int n = 0;
+        if (a instanceof String sa && b instanceof String sb) {
+            while (n + BLOCK_SIZE <= max
+                    && sa.regionMatches(aLength - n - BLOCK_SIZE, sb, bLength - n - BLOCK_SIZE, BLOCK_SIZE)) {
+                n += BLOCK_SIZE;
+            }
+        }
+        while (n < max && a.charAt(aLength - n - 1) == b.charAt(bLength - n - 1)) {
+            n++;
+        }
+        return n;
+    }
+}
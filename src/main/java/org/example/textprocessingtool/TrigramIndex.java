@@ -0,0 +1,540 @@
+package org.example.textprocessingtool;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The TrigramIndex class is an inverted index over one text, for running many different searches on it.
+ * For every trigram (three consecutive characters) it keeps the sorted list of positions where the trigram
+ * occurs, delta-encoded as variable-length integers in one byte array, so the whole index is a handful of
+ * primitive arrays taking little more than one byte per character of text.
+ *
+ * A literal of three or more characters is located by intersecting the position lists of its trigrams,
+ * rarest first, and checking the few remaining candidates against the text, so the cost depends on
+ * how often the literal occurs rather than on the length of the text.
+ * Regex patterns are answered the same way when they have a required literal the way LiteralPrefilter
+ * uses one: at the start of every match, or anywhere in a pattern whose matches lie within one line.
+ * The regex then only runs at the candidate positions or lines, and the results are always identical
+ * to a plain Matcher.find() loop. Other patterns are left to a normal scan.
+ *
+ * The index can be saved to disk and loaded again for the same text, which is checked by length and hash.
+ * File layout: a header (magic, version, text length, text hash, trigram count, postings size),
+ * the sorted trigram keys, each trigram's posting count and start offset, the postings,
+ * and a CRC32C of everything before it.
+ */
+public class TrigramIndex {
+
+    /** Shortest literal the index can look up. */
+    public static final int MIN_LITERAL_LENGTH = 3;
+
+    private static final int MAGIC = 0x50545249; // "PTRI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final long KEY_MASK = (1L << 48) - 1; // Three 16-bit characters
+
+    // Once this few candidates remain, checking them against the text is cheaper than decoding more postings
+    private static final int VERIFY_THRESHOLD = 16;
+    // A posting list this many times longer than the candidates costs more to decode than it saves
+    private static final int MAX_INTERSECT_RATIO = 8;
+
+    private final String text;
+    private final long[] keys;   // Trigram keys, sorted
+    private final int[] counts;  // Number of positions of each trigram
+    private final int[] offsets; // Start of each trigram's postings; one extra entry marks the end
+    private final byte[] postings;
+
+    private TrigramIndex(String text, long[] keys, int[] counts, int[] offsets, byte[] postings) {
+        this.text = text;
+        this.keys = keys;
+        this.counts = counts;
+        this.offsets = offsets;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds the index of a text in two passes over it.
+     *
+     * @param text The text to index.
+     * @return The index.
+     */
+    public static TrigramIndex build(String text) {
+        int positions = Math.max(0, text.length() - 2);
+
+        // First pass: number the distinct trigrams and count their positions
+        TrigramTable table = new TrigramTable(Math.min(positions, 1 << 16));
+        int[] idAt = new int[positions];
+        long key = positions == 0 ? 0 : ((long) text.charAt(0) << 16) | text.charAt(1);
+        for (int p = 0; p < positions; p++) {
+            key = ((key << 16) | text.charAt(p + 2)) & KEY_MASK;
+            idAt[p] = table.increment(key);
+        }
+
+        // Second pass: group the positions by trigram; each group comes out sorted
+        int distinct = table.size();
+        int[] start = new int[distinct + 1];
+        for (int id = 0; id < distinct; id++) {
+            start[id + 1] = start[id] + table.count(id);
+        }
+        int[] grouped = new int[positions];
+        int[] cursor = Arrays.copyOf(start, distinct);
+        for (int p = 0; p < positions; p++) {
+            grouped[cursor[idAt[p]]++] = p;
+        }
+
+        // Lay the trigrams out in key order, with their gaps between positions as varints
+        long[] keys = new long[distinct];
+        for (int id = 0; id < distinct; id++) {
+            keys[id] = table.key(id);
+        }
+        Arrays.sort(keys);
+        int[] counts = new int[distinct];
+        int[] offsets = new int[distinct + 1];
+        PostingsWriter writer = new PostingsWriter(positions + distinct);
+        for (int i = 0; i < distinct; i++) {
+            int id = table.id(keys[i]);
+            counts[i] = table.count(id);
+            offsets[i] = writer.size();
+            int previous = 0;
+            for (int j = start[id]; j < start[id + 1]; j++) {
+                writer.writeVarint(grouped[j] - previous);
+                previous = grouped[j];
+            }
+        }
+        offsets[distinct] = writer.size();
+        return new TrigramIndex(text, keys, counts, offsets, writer.toArray());
+    }
+
+    /**
+     * Loads an index saved with save, for the text it was built from.
+     *
+     * @param file The index file.
+     * @param text The text the index was built from.
+     * @return The index.
+     * @throws IOException If the file cannot be read, is corrupt, or belongs to another text.
+     */
+    public static TrigramIndex load(Path file, String text) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + 4 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid index size " + size + " in " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.slice(0, (int) size - 4));
+            if (buffer.getInt((int) size - 4) != (int) checksum.getValue()) {
+                throw new IOException("The index " + file + " is corrupt");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported index format in " + file);
+            }
+            if (buffer.getInt() != text.length() || buffer.getInt() != text.hashCode()) {
+                throw new IOException("The index " + file + " was built from a different text");
+            }
+            int distinct = buffer.getInt();
+            int postingsSize = buffer.getInt();
+            if ((long) distinct * 16 + 4 + postingsSize + HEADER_SIZE + 4 != size) {
+                throw new IOException("Invalid index layout in " + file);
+            }
+            long[] keys = new long[distinct];
+            int[] counts = new int[distinct];
+            int[] offsets = new int[distinct + 1];
+            byte[] postings = new byte[postingsSize];
+            buffer.asLongBuffer().get(keys);
+            buffer.position(buffer.position() + distinct * 8);
+            buffer.asIntBuffer().get(counts).get(offsets);
+            buffer.position(buffer.position() + distinct * 8 + 4);
+            buffer.get(postings);
+            return new TrigramIndex(text, keys, counts, offsets, postings);
+        }
+    }
+
+    /**
+     * Saves the index, so it can be loaded again for the same text without rebuilding it.
+     * The file is written next to its final name and renamed into place, so a crash never leaves half an index.
+     *
+     * @param file The index file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream stream = Channels.newOutputStream(channel);
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(stream, 1 << 16), checksum);
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(text.length());
+            out.writeInt(text.hashCode());
+            out.writeInt(keys.length);
+            out.writeInt(postings.length);
+            for (long key : keys) {
+                out.writeLong(key);
+            }
+            for (int count : counts) {
+                out.writeInt(count);
+            }
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            out.write(postings);
+            out.flush();
+            // The checksum itself is not part of what it covers
+            new DataOutputStream(stream).writeInt((int) checksum.getValue());
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the text this index was built from.
+     *
+     * @return The indexed text.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the number of distinct trigrams in the text.
+     *
+     * @return The trigram count.
+     */
+    public int getTrigramCount() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the approximate memory used by the index, not counting the text.
+     *
+     * @return The size in bytes.
+     */
+    public long getSizeInBytes() {
+        return keys.length * 8L + counts.length * 4L + offsets.length * 4L + postings.length;
+    }
+
+    /**
+     * Finds every occurrence of a literal in the text, overlapping ones included.
+     * Literals shorter than MIN_LITERAL_LENGTH have no trigram and are searched with String.indexOf.
+     *
+     * @param literal The characters to look for.
+     * @return The start offsets of the occurrences, in ascending order.
+     * @throws IllegalArgumentException If the literal is empty.
+     */
+    public int[] occurrences(String literal) {
+        if (literal.isEmpty()) {
+            throw new IllegalArgumentException("The literal must not be empty");
+        }
+        if (literal.length() < MIN_LITERAL_LENGTH) {
+            return scanOccurrences(literal);
+        }
+
+        // Every trigram of the literal, with its offset inside the literal, rarest first
+        int trigrams = literal.length() - 2;
+        long[] order = new long[trigrams];
+        int[] slots = new int[trigrams];
+        for (int j = 0; j < trigrams; j++) {
+            long key = ((long) literal.charAt(j) << 32) | ((long) literal.charAt(j + 1) << 16) | literal.charAt(j + 2);
+            slots[j] = Arrays.binarySearch(keys, key);
+            if (slots[j] < 0) {
+                return new int[0]; // A trigram that never occurs
+            }
+            order[j] = ((long) counts[slots[j]] << 32) | j;
+        }
+        Arrays.sort(order);
+
+        int first = (int) order[0];
+        int[] candidates = decode(slots[first], -first);
+        int size = candidates.length;
+        for (int k = 1; k < trigrams && size > VERIFY_THRESHOLD; k++) {
+            int j = (int) order[k];
+            if (counts[slots[j]] / MAX_INTERSECT_RATIO > size) {
+                break;
+            }
+            int kept = intersect(candidates, size, slots[j], j);
+            boolean narrowed = kept < size - size / 8;
+            size = kept;
+            if (!narrowed) {
+                break; // The candidates are mostly real occurrences; the remaining lists would not remove many
+            }
+        }
+
+        // The trigrams can match in pieces without the whole literal being there, so check each candidate
+        int found = 0;
+        for (int i = 0; i < size; i++) {
+            int candidate = candidates[i];
+            if (candidate >= 0 && text.startsWith(literal, candidate)) {
+                candidates[found++] = candidate;
+            }
+        }
+        return Arrays.copyOf(candidates, found);
+    }
+
+    /**
+     * Finds matches of the compiled pattern through the index, visiting only the places where its
+     * required literal occurs. The matcher passed to the action is positioned on the current match
+     * and must not be kept.
+     *
+     * @param input    The text to match, which is the indexed text or a wrapper of it such as an
+     *                 InterruptibleCharSequence.
+     * @param compiled The compiled pattern.
+     * @param pattern  The pattern as written, inspected for its required literal.
+     * @param limit    The maximum number of matches to report.
+     * @param action   The callback receiving each match, in text order.
+     * @return The number of matches reported, or -1 if the pattern has no literal the index can use.
+     */
+    int find(CharSequence input, Pattern compiled, String pattern, int limit, Consumer<Matcher> action) {
+        if (PatternAnalyzer.withoutPreviousMatchAnchor(pattern) != null) {
+            // Moving the region to each hit puts \G there, so it would match where find() never reaches
+            return -1;
+        }
+        String prefix = PatternAnalyzer.requiredPrefix(pattern);
+        String longest = PatternAnalyzer.longestRequiredLiteral(pattern);
+        boolean lineOriented = longest != null && longest.indexOf('\n') < 0 && PatternAnalyzer.isLineOriented(pattern);
+        boolean usePrefix = prefix != null && prefix.length() >= MIN_LITERAL_LENGTH
+                && (!lineOriented || prefix.length() >= longest.length());
+        if (!usePrefix && !(lineOriented && longest.length() >= MIN_LITERAL_LENGTH)) {
+            return -1;
+        }
+
+        Matcher matcher = compiled.matcher(input);
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        int length = text.length();
+        int count = 0;
+
+        if (usePrefix) {
+            // A match can only start where the literal starts
+            int next = 0;
+            for (int hit : occurrences(prefix)) {
+                if (count >= limit) {
+                    break;
+                }
+                if (hit < next) {
+                    continue;
+                }
+                matcher.region(hit, length);
+                if (matcher.lookingAt()) {
+                    action.accept(matcher);
+                    count++;
+                    next = matcher.end();
+                }
+            }
+            return count;
+        }
+
+        // Every match lies within one line, so only lines containing the literal need the regex
+        int searchedUpTo = -1; // End of the last line searched
+        for (int hit : occurrences(longest)) {
+            if (count >= limit) {
+                break;
+            }
+            if (hit <= searchedUpTo) {
+                continue;
+            }
+            int lineStart = text.lastIndexOf('\n', hit) + 1;
+            int lineEnd = text.indexOf('\n', hit + longest.length());
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            matcher.region(lineStart, lineEnd);
+            while (count < limit && matcher.find()) {
+                action.accept(matcher);
+                count++;
+            }
+            searchedUpTo = lineEnd;
+        }
+        return count;
+    }
+
+    // Decodes a trigram's positions, each shifted by delta
+    private int[] decode(int slot, int delta) {
+        int[] positions = new int[counts[slot]];
+        int offset = offsets[slot];
+        int position = 0;
+        for (int i = 0; i < positions.length; i++) {
+            int gap = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = postings[offset++];
+                gap |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            position += gap;
+            positions[i] = position + delta;
+        }
+        return positions;
+    }
+
+    // Keeps the candidates c for which the trigram occurs at c + shift; returns how many are left
+    private int intersect(int[] candidates, int size, int slot, int shift) {
+        int offset = offsets[slot];
+        int end = offsets[slot + 1];
+        int position = 0;
+        int kept = 0;
+        int i = 0;
+        while (i < size && offset < end) {
+            int gap = 0;
+            for (int bits = 0; ; bits += 7) {
+                byte b = postings[offset++];
+                gap |= (b & 0x7F) << bits;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            position += gap;
+            int candidate = position - shift;
+            while (i < size && candidates[i] < candidate) {
+                i++;
+            }
+            if (i < size && candidates[i] == candidate) {
+                candidates[kept++] = candidate;
+                i++;
+            }
+        }
+        return kept;
+    }
+
+    private int[] scanOccurrences(String literal) {
+        int[] found = new int[16];
+        int size = 0;
+        for (int hit = text.indexOf(literal); hit >= 0; hit = text.indexOf(literal, hit + 1)) {
+            if (size == found.length) {
+                found = Arrays.copyOf(found, size * 2);
+            }
+            found[size++] = hit;
+        }
+        return Arrays.copyOf(found, size);
+    }
+
+    /**
+     * Open-addressing map from trigram key to a dense id, with a position count per id.
+     * Used only while building, so nothing is boxed.
+     */
+    private static class TrigramTable {
+        private long[] slots;  // key + 1, or 0 when empty
+        private int[] slotIds;
+        private long[] keysById;
+        private int[] countsById;
+        private int size;
+
+        TrigramTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1;
+            slots = new long[capacity];
+            slotIds = new int[capacity];
+            keysById = new long[Math.max(16, expected / 8)];
+            countsById = new int[keysById.length];
+        }
+
+        // Counts one more position of the trigram and returns its id
+        int increment(long key) {
+            int slot = find(key);
+            if (slots[slot] != 0) {
+                int id = slotIds[slot];
+                countsById[id]++;
+                return id;
+            }
+            if (size == keysById.length) {
+                keysById = Arrays.copyOf(keysById, size * 2);
+                countsById = Arrays.copyOf(countsById, size * 2);
+            }
+            int id = size++;
+            slots[slot] = key + 1;
+            slotIds[slot] = id;
+            keysById[id] = key;
+            countsById[id] = 1;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        int id(long key) {
+            return slotIds[find(key)];
+        }
+
+        long key(int id) {
+            return keysById[id];
+        }
+
+        int count(int id) {
+            return countsById[id];
+        }
+
+        int size() {
+            return size;
+        }
+
+        private int find(long key) {
+            int mask = slots.length - 1;
+            // Fibonacci hashing spreads keys that differ only in their low character
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (slots[slot] != 0 && slots[slot] != key + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void rehash() {
+            long[] oldSlots = slots;
+            int[] oldIds = slotIds;
+            slots = new long[oldSlots.length * 2];
+            slotIds = new int[slots.length];
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] != 0) {
+                    int slot = find(oldSlots[i] - 1);
+                    slots[slot] = oldSlots[i];
+                    slotIds[slot] = oldIds[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable byte array receiving the varint-encoded postings.
+     */
+    private static class PostingsWriter {
+        private byte[] bytes;
+        private int size;
+
+        PostingsWriter(int expected) {
+            bytes = new byte[Math.max(16, expected)];
+        }
+
+        void writeVarint(int value) {
+            if (bytes.length - size < 5) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package org.example.textprocessingtool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * The Utf8Searcher class searches UTF-8 files and buffers on their bytes, without decoding them into a String.
+ * Files are memory-mapped, so the bytes are read straight from the page cache, and only the matched spans
+ * are decoded. For mostly-ASCII logs this halves the memory traffic of a search, as UTF-16 takes
+ * two bytes for every ASCII character.
+ * Two kinds of pattern are searched on the bytes:
+ * literals in any script, by comparing their UTF-8 encoding, and patterns whose matches are always ASCII,
+ * such as \d+ or ERROR \w+, with the LazyDfa.
+ * Other patterns are handed to a StreamingSearcher, which decodes the input as it goes.
+ * Results are the same as a Matcher.find() loop over the decoded text.
+ */
+public class Utf8Searcher {
+
+    // Characters that give a pattern a meaning other than its literal text
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final PatternCache patternCache;
+    private final StreamingSearcher streamingSearcher;
+    private final RegexMetrics metrics = RegexMetrics.shared();
+
+    /**
+     * Constructor to initialize a Utf8Searcher backed by the shared PatternCache.
+     */
+    public Utf8Searcher() {
+        this(PatternCache.shared());
+    }
+
+    /**
+     * Constructor to initialize a Utf8Searcher backed by the given PatternCache.
+     *
+     * @param patternCache The cache used to look up compiled patterns.
+     */
+    public Utf8Searcher(PatternCache patternCache) {
+        this.patternCache = patternCache;
+        this.streamingSearcher = new StreamingSearcher(patternCache,
+                StreamingSearcher.DEFAULT_CHUNK_SIZE, StreamingSearcher.DEFAULT_MAX_MATCH_LENGTH);
+    }
+
+    /**
+     * Checks whether the pattern is searched on the bytes themselves rather than on decoded text.
+     *
+     * @param pattern The regex pattern.
+     * @return true for literals and for patterns that only match ASCII.
+     * @throws java.util.regex.PatternSyntaxException If the pattern is invalid.
+     */
+    public boolean isByteLevel(String pattern) {
+        if (literalBytes(pattern) != null) {
+            return true;
+        }
+        LazyDfa dfa = patternCache.dfa(pattern);
+        return dfa != null && dfa.isAsciiOnly();
+    }
+
+    /**
+     * Searches a UTF-8 file for the pattern and passes every match to the consumer, in file order.
+     *
+     * @param file     The file to search.
+     * @param pattern  The regex pattern to match.
+     * @param consumer The callback receiving each match.
+     * @return The number of matches found.
+     * @throws IOException If the file cannot be read.
+     */
+    public long search(Path file, String pattern, Consumer<StreamingSearcher.Match> consumer) throws IOException {
+        if (!isByteLevel(pattern)) {
+            return streamingSearcher.search(file, pattern, consumer);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                // Too big for one mapping
+                return streamingSearcher.search(channel, StandardCharsets.UTF_8, pattern, consumer);
+            }
+            return find(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), pattern, consumer);
+        }
+    }
+
+    /**
+     * Counts the matches of the pattern in a UTF-8 file, without decoding any of them.
+     *
+     * @param file    The file to search.
+     * @param pattern The regex pattern to match.
+     * @return The number of matches.
+     * @throws IOException If the file cannot be read.
+     */
+    public long count(Path file, String pattern) throws IOException {
+        if (!isByteLevel(pattern)) {
+            return streamingSearcher.search(file, pattern, match -> { });
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return streamingSearcher.search(channel, StandardCharsets.UTF_8, pattern, match -> { });
+            }
+            return find(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), pattern, null);
+        }
+    }
+
+    /**
+     * Searches UTF-8 bytes for the pattern and passes every match to the consumer, in input order.
+     * The bytes between the buffer's position and limit are searched; offsets are counted from the position.
+     * The buffer's position is not changed.
+     *
+     * @param input    The bytes to search, for example a MappedByteBuffer.
+     * @param pattern  The regex pattern to match.
+     * @param consumer The callback receiving each match.
+     * @return The number of matches found.
+     */
+    public long search(ByteBuffer input, String pattern, Consumer<StreamingSearcher.Match> consumer) {
+        if (!isByteLevel(pattern)) {
+            return streamDecoded(input, pattern, consumer);
+        }
+        return find(input.slice(), pattern, consumer);
+    }
+
+    /**
+     * Counts the matches of the pattern in UTF-8 bytes, without decoding any of them.
+     * The bytes between the buffer's position and limit are searched; the buffer's position is not changed.
+     *
+     * @param input   The bytes to search.
+     * @param pattern The regex pattern to match.
+     * @return The number of matches.
+     */
+    public long count(ByteBuffer input, String pattern) {
+        if (!isByteLevel(pattern)) {
+            return streamDecoded(input, pattern, match -> { });
+        }
+        return find(input.slice(), pattern, null);
+    }
+
+    // Finds the matches in bytes from index 0 to the limit; with no consumer they are only counted
+    private long find(ByteBuffer bytes, String pattern, Consumer<StreamingSearcher.Match> consumer) {
+        RegexOperationEvent event = new RegexOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long count = 0;
+        try {
+            Positions positions = consumer == null ? null : new Positions(bytes);
+            byte[] literal = literalBytes(pattern);
+            if (literal != null) {
+                count = findLiteral(bytes, literal, positions, consumer);
+            } else {
+                count = findAscii(bytes, patternCache.dfa(pattern), patternCache.compile(pattern), positions, consumer);
+            }
+            return count;
+        } finally {
+            metrics.record(RegexMetrics.Operation.STREAM_SEARCH, pattern, 0, bytes.limit(), count,
+                    System.nanoTime() - start);
+            event.complete(RegexMetrics.Operation.STREAM_SEARCH, pattern, 0, bytes.limit(), count, false);
+        }
+    }
+
+    // Boyer-Moore-Horspool over the bytes; an encoded character always starts with a lead or ASCII byte,
+    // so the literal can only be found where a character starts
+    private static long findLiteral(ByteBuffer bytes, byte[] literal, Positions positions,
+                                    Consumer<StreamingSearcher.Match> consumer) {
+        int m = literal.length;
+        int[] shift = new int[256];
+        Arrays.fill(shift, m);
+        for (int i = 0; i < m - 1; i++) {
+            shift[literal[i] & 0xFF] = m - 1 - i;
+        }
+        byte last = literal[m - 1];
+        int length = bytes.limit();
+        long count = 0;
+        int i = m - 1;
+        while (i < length) {
+            byte b = bytes.get(i);
+            if (b == last && matchesAt(bytes, i - m + 1, literal)) {
+                if (consumer != null) {
+                    consumer.accept(positions.match(i - m + 1, i + 1));
+                }
+                count++;
+                i += m; // Matches do not overlap
+            } else {
+                i += shift[b & 0xFF];
+            }
+        }
+        return count;
+    }
+
+    private static boolean matchesAt(ByteBuffer bytes, int start, byte[] literal) {
+        for (int k = literal.length - 2; k >= 0; k--) {
+            if (bytes.get(start + k) != literal[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long findAscii(ByteBuffer bytes, LazyDfa dfa, Pattern pattern, Positions positions,
+                                  Consumer<StreamingSearcher.Match> consumer) {
+        long count = 0;
+        int from = 0;
+        while (true) {
+            long found = dfa.search(bytes, from);
+            if (found == LazyDfa.NO_MATCH) {
+                return count;
+            }
+            if (found < LazyDfa.NO_MATCH) {
+                return count + findDecoded(bytes, from, dfa, pattern, positions, consumer);
+            }
+            int start = (int) (found >>> 32);
+            int end = (int) found;
+            if (consumer != null) {
+                consumer.accept(positions.match(start, end));
+            }
+            count++;
+            from = end; // Matches are never empty
+        }
+    }
+
+    // A combining mark next to \b or \B needs the decoded text, so the rest of the input is decoded
+    // from the character before from, which the assertions may look at, and searched as characters
+    private static long findDecoded(ByteBuffer bytes, int from, LazyDfa dfa, Pattern pattern, Positions positions,
+                                    Consumer<StreamingSearcher.Match> consumer) {
+        int contextStart = from;
+        if (from > 0) {
+            contextStart--;
+            while (contextStart > 0 && (bytes.get(contextStart) & 0xC0) == 0x80) {
+                contextStart--;
+            }
+        }
+        CharBuffer context = StandardCharsets.UTF_8.decode(bytes.slice(contextStart, from - contextStart));
+        CharBuffer rest = StandardCharsets.UTF_8.decode(bytes.slice(from, bytes.limit() - from));
+        CharBuffer text = CharBuffer.allocate(context.remaining() + rest.remaining());
+        int start = context.remaining();
+        text.put(context).put(rest).flip();
+        if (positions != null) {
+            positions.startDecoded(from, start);
+        }
+        return dfa.find(text, start, pattern, Integer.MAX_VALUE, match -> {
+            if (consumer != null) {
+                consumer.accept(positions.decodedMatch(text, match.start(), match.end()));
+            }
+        });
+    }
+
+    // Searches input the bytes cannot be matched on with a StreamingSearcher, reading from a view of it
+    private long streamDecoded(ByteBuffer input, String pattern, Consumer<StreamingSearcher.Match> consumer) {
+        ByteBuffer source = input.slice();
+        ReadableByteChannel channel = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer target) {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(source.remaining(), target.remaining());
+                target.put(source.slice(source.position(), n));
+                source.position(source.position() + n);
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            return streamingSearcher.search(channel, StandardCharsets.UTF_8, pattern, consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Reading from memory does not fail
+        }
+    }
+
+    // The UTF-8 encoding of a pattern without metacharacters, or null if the pattern is not such a literal
+    private static byte[] literalBytes(String pattern) {
+        if (pattern.isEmpty() || !StandardCharsets.UTF_8.newEncoder().canEncode(pattern)) {
+            return null;
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            if (METACHARACTERS.indexOf(pattern.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+        return pattern.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Counts lines and characters up to each match as the search moves forward, and builds the Match,
+     * decoding only the matched bytes.
+     */
+    private static final class Positions {
+        private final ByteBuffer bytes;
+        private int counted; // Byte offset up to which lines and characters are counted
+        private long chars;
+        private long line = 1;
+        private int decodedCounted; // Index into the decoded text once the search has switched to it
+
+        Positions(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        StreamingSearcher.Match match(int start, int end) {
+            advance(start);
+            byte[] span = new byte[end - start];
+            bytes.get(start, span);
+            return new StreamingSearcher.Match(new String(span, StandardCharsets.UTF_8), chars, start, line);
+        }
+
+        void startDecoded(int byteOffset, int charIndex) {
+            advance(byteOffset);
+            decodedCounted = charIndex;
+        }
+
+        private void advance(int to) {
+            for (int i = counted; i < to; i++) {
+                byte b = bytes.get(i);
+                if (b == '\n') {
+                    line++;
+                }
+                if ((b & 0xC0) != 0x80) {
+                    chars += (b & 0xF8) == 0xF0 ? 2 : 1; // Four-byte characters are surrogate pairs
+                }
+            }
+            counted = to;
+        }
+
+        // Byte offsets in the decoded part are derived from the characters, so after malformed input,
+        // which decodes to one replacement character however many bytes it had, they are approximate
+        StreamingSearcher.Match decodedMatch(CharSequence text, int start, int end) {
+            for (int i = decodedCounted; i < start; i++) {
+                char c = text.charAt(i);
+                if (c == '\n') {
+                    line++;
+                }
+                chars++;
+                counted += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+            }
+            decodedCounted = start;
+            return new StreamingSearcher.Match(text.subSequence(start, end).toString(), chars, counted, line);
+        }
+    }
+}
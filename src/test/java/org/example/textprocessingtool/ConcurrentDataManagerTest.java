@@ -0,0 +1,184 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentDataManagerTest {
+
+    private static final int THREADS = 8;
+
+    private final ConcurrentDataManager manager = new ConcurrentDataManager();
+
+    @Test
+    void concurrentIncrementsOfTheSamePersonsAreNeverLost() throws Exception {
+        int persons = 16;
+        int incrementsPerThread = 20_000;
+        for (int i = 0; i < persons; i++) {
+            manager.createPerson("p" + i, 0);
+        }
+        runConcurrently(thread -> {
+            for (int i = 0; i < incrementsPerThread; i++) {
+                manager.updatePerson("p" + (i + thread) % persons, age -> age + 1);
+            }
+        });
+
+        long total = 0;
+        for (Person person : manager.getAllPersons()) {
+            total += person.getAge();
+        }
+        assertEquals((long) THREADS * incrementsPerThread, total);
+        assertEquals(total, sumOf(manager.findPersonsByAgeRange(0, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void concurrentCreatesAndDeletesLeaveEveryIndexInStep() throws Exception {
+        int perThread = 5_000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                assertTrue(manager.createPerson("t" + thread + "-" + i, i % 100));
+            }
+            for (int i = 0; i < perThread; i += 2) {
+                assertTrue(manager.deletePerson("t" + thread + "-" + i));
+            }
+        });
+
+        int expected = THREADS * perThread / 2;
+        assertEquals(expected, manager.size());
+        assertEquals(expected, manager.getAllPersons().size());
+        assertEquals(expected, manager.getUniquePersons().size());
+        assertEquals(expected, manager.findPersonsByAgeRange(0, 99).size());
+        assertEquals(expected, manager.findPersonsByNamePrefix("t").size());
+        assertNull(manager.searchPersonByName("t0-0"));
+        assertEquals(1, manager.searchPersonsByNameIgnoreCase("T0-1").size());
+    }
+
+    @Test
+    void concurrentCreatesOfOneNameAddItOnce() throws Exception {
+        int[] created = new int[THREADS];
+        runConcurrently(thread -> {
+            for (int i = 0; i < 1_000; i++) {
+                if (manager.createPerson("shared" + i, thread)) {
+                    created[thread]++;
+                }
+            }
+        });
+        int total = 0;
+        for (int count : created) {
+            total += count;
+        }
+        assertEquals(1_000, total);
+        assertEquals(1_000, manager.findPersonsByAgeRange(0, THREADS).size());
+    }
+
+    @Test
+    void snapshotsNeverShowAHalfAppliedUpdate() throws Exception {
+        int persons = 200;
+        for (int i = 0; i < persons; i++) {
+            manager.createPerson("p" + i, i);
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService writers = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                running.add(writers.submit(() -> {
+                    for (int i = thread; !stop.get(); i++) {
+                        manager.updatePerson("p" + i % persons, age -> (age + 7) % 100);
+                    }
+                }));
+            }
+            for (int round = 0; round < 2_000; round++) {
+                // An update moves a person between ages; a reader must see it at exactly one of them
+                List<Person> byAge = manager.findPersonsByAgeRange(0, Integer.MAX_VALUE);
+                assertEquals(persons, byAge.size());
+                assertEquals(persons, namesOf(byAge).size());
+                assertEquals(persons, manager.findPersonsByNamePrefix("p").size());
+            }
+            stop.set(true);
+            for (Future<?> future : running) {
+                future.get();
+            }
+        } finally {
+            stop.set(true);
+            writers.shutdownNow();
+        }
+    }
+
+    @Test
+    void importFilesLoadsSeveralFilesAtOnce(@TempDir Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int f = 0; f < 4; f++) {
+            StringBuilder csv = new StringBuilder("name,age\n");
+            for (int i = 0; i < 1_000; i++) {
+                csv.append("f").append(f).append('-').append(i).append(',').append(i % 90).append('\n');
+            }
+            // Every file also holds the same shared person, which is added once
+            csv.append("everyone,1\n");
+            files.add(Files.writeString(directory.resolve("persons" + f + ".csv"), csv));
+        }
+        assertEquals(4_001, new PersonBulkLoader(100).importFiles(files, manager).persons());
+        assertEquals(4_001, manager.size());
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    // Starts every worker at the same moment and rethrows the first failure
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long sumOf(List<Person> persons) {
+        long sum = 0;
+        for (Person person : persons) {
+            sum += person.getAge();
+        }
+        return sum;
+    }
+
+    private static Set<String> namesOf(List<Person> persons) {
+        Set<String> names = new HashSet<>();
+        for (Person person : persons) {
+            names.add(person.getName());
+        }
+        return names;
+    }
+}
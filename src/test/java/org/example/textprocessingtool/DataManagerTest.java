@@ -0,0 +1,145 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataManagerTest {
+
+    // Names that share prefixes in different cases, with a few multi-byte characters
+    private static final String[] NAMES = {
+            "ann", "Ann", "anna", "ANNE", "bob", "Bo", "bö", "Böb", "émile", "Émile", "zoë", "z", "日本", "ann😀"
+    };
+
+    @Test
+    void randomChangesAndQueriesMatchAMap() {
+        Random random = new Random(15);
+        DataManager persons = new DataManager();
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            String name = NAMES[random.nextInt(NAMES.length)] + random.nextInt(40);
+            int age = random.nextInt(100);
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    persons.createPerson(name, age);
+                    expected.putIfAbsent(name, age);
+                }
+                case 2 -> {
+                    persons.updatePerson(name, age);
+                    expected.computeIfPresent(name, (key, old) -> age);
+                }
+                default -> {
+                    persons.deletePerson(name);
+                    expected.remove(name);
+                }
+            }
+            if (step % 500 == 0) {
+                assertSameContent(expected, persons, random);
+            }
+        }
+        assertSameContent(expected, persons, random);
+    }
+
+    @Test
+    void viewsFollowTheirPersonThroughCompaction() {
+        DataManager persons = new DataManager();
+        for (int i = 0; i < 3000; i++) {
+            persons.createPerson("p" + i, 10 + i % 90);
+        }
+        Person kept = persons.searchPersonByName("p2999");
+        Person deleted = persons.searchPersonByName("p5");
+        persons.updatePerson("p5", 7);
+        persons.deletePerson("p5");
+        assertEquals(7, deleted.getAge());
+        for (int i = 0; i < 2000; i++) {
+            persons.deletePerson("p" + i);
+        }
+        // A person of the same name created again is someone else
+        persons.createPerson("p5", 50);
+        persons.updatePerson("p2999", 1);
+
+        assertEquals(1, kept.getAge());
+        assertEquals(7, deleted.getAge());
+        assertEquals(50, persons.searchPersonByName("p5").getAge());
+        assertEquals(1001, persons.size());
+        assertEquals(1001, persons.getAllPersons().size());
+        assertEquals(List.of("p2999"), names(persons.findPersonsByAgeRange(1, 1)));
+    }
+
+    @Test
+    void deletedNamesCanBeCreatedAgain() {
+        DataManager persons = new DataManager();
+        persons.createPerson("ann", 30);
+        persons.createPerson("ann", 31);
+        persons.deletePerson("ann");
+        assertNull(persons.searchPersonByName("ann"));
+        persons.createPerson("ann", 32);
+        assertEquals(32, persons.searchPersonByName("ann").getAge());
+        assertEquals(List.of("ann"), names(persons.findPersonsByNamePrefix("a")));
+    }
+
+    @Test
+    void aMillionPersonsTakeLessThanSixtyFourBytesEach() {
+        DataManager persons = new DataManager();
+        persons.ensureCapacity(1_000_000);
+        for (int i = 0; i < 1_000_000; i++) {
+            persons.createPerson("person" + i, i % 100);
+        }
+        // Names are 7 to 12 bytes; only the name arena grows past what ensureCapacity reserved
+        long usage = persons.getMemoryUsage();
+        assertTrue(usage < 64_000_000, "used " + usage + " bytes");
+        assertEquals(10_000, persons.findPersonsByAgeRange(42, 42).size());
+    }
+
+    private static void assertSameContent(Map<String, Integer> expected, DataManager persons, Random random) {
+        assertEquals(expected.size(), persons.size());
+        List<String> all = new ArrayList<>();
+        expected.forEach((name, age) -> all.add(name + "=" + age));
+        assertEquals(all, describe(persons.getAllPersons()));
+        assertEquals(all, describe(new ArrayList<>(persons.getUniquePersons())));
+
+        int low = random.nextInt(100);
+        int high = low + random.nextInt(20);
+        assertEquals(expected.entrySet().stream()
+                        .filter(entry -> entry.getValue() >= low && entry.getValue() <= high)
+                        .sorted(Map.Entry.comparingByValue())
+                        .map(entry -> entry.getKey() + "=" + entry.getValue()).toList(),
+                describe(persons.findPersonsByAgeRange(low, high)));
+
+        String prefix = NAMES[random.nextInt(NAMES.length)].substring(0, 1 + random.nextInt(2) / 2);
+        Comparator<String> byName = String.CASE_INSENSITIVE_ORDER;
+        assertEquals(expected.keySet().stream().filter(name -> name.startsWith(prefix)).sorted(byName).toList(),
+                sortedNames(persons.findPersonsByNamePrefix(prefix)));
+        assertEquals(expected.keySet().stream()
+                        .filter(name -> name.regionMatches(true, 0, prefix, 0, prefix.length()))
+                        .sorted(byName).toList(),
+                sortedNames(persons.findPersonsByNamePrefixIgnoreCase(prefix)));
+    }
+
+    // Results come ordered ignoring case; names equal ignoring case may come in any order between them
+    private static List<String> sortedNames(List<Person> found) {
+        List<String> names = names(found);
+        for (int i = 1; i < names.size(); i++) {
+            assertTrue(String.CASE_INSENSITIVE_ORDER.compare(names.get(i - 1), names.get(i)) <= 0, names.toString());
+        }
+        return names.stream().sorted(String.CASE_INSENSITIVE_ORDER).toList();
+    }
+
+    private static List<String> names(List<Person> found) {
+        return found.stream().map(Person::getName).toList();
+    }
+
+    private static List<String> describe(List<Person> found) {
+        return found.stream().map(person -> person.getName() + "=" + person.getAge()).toList();
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.textprocessingtool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyDfaTest {
+
+    private static final String[] ATOMS = {"a", "b", "c", "_", " ", ".", "\\d", "\\w", "\\s", "\\W", "\\S", "\\D",
+            "[ab]", "[^a]", "[a-c]", "[^\\n]", "[-a]", "[a-]", "[\\w ]", "\\t", "\\n", "\\x61", "\\u00e9", "\\.",
+            "é", "1", "[^\\s\\d]"};
+    private static final String[] ASSERTIONS = {"^", "\\A", "\\z", "\\b", "\\B"};
+    private static final String[] QUANTIFIERS = {"*", "+", "?", "{2}", "{1,3}", "{2,}", "*?", "+?", "??", "{0,2}?"};
+    // Combining acute accent, and an emoji outside the BMP; both make the DFA hand over to java.util.regex
+    private static final String TEXT_ALPHABET = "ab_ c1\n\ré́.";
+
+    @Test
+    void randomPatternsFindTheSameMatchesAndGroupsAsMatcher() {
+        Random random = new Random(7);
+        int supported = 0;
+        for (int i = 0; i < 3_000; i++) {
+            String regex = pattern(random, 0);
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                continue;
+            }
+            // Java itself may backtrack for a very long time on these
+            if (PatternAnalyzer.hasNestedQuantifier(regex)) {
+                continue;
+            }
+            LazyDfa dfa = LazyDfa.forPattern(regex);
+            if (dfa == null) {
+                continue;
+            }
+            supported++;
+            for (int j = 0; j < 20; j++) {
+                String text = text(random);
+                assertEquals(expected(pattern, text), found(dfa, pattern, text), () -> regex + " on " + escape(text));
+            }
+        }
+        assertTrue(supported > 1_000, "too few supported patterns: " + supported);
+    }
+
+    @Test
+    void unsupportedConstructsAreLeftToTheBacktrackingMatcher() {
+        for (String regex : List.of("a$", "(?i)a", "a(?=b)", "(?<=a)b", "(a)\\1", "a++", "a{2}+", "\\b+",
+                "(a?)*", "(a*)+", "(?:a|)*", "[a[b]]", "[a&&b]", "\\p{L}", "\\R", "(?>a)")) {
+            assertNull(LazyDfa.forPattern(regex), regex);
+        }
+        for (String regex : List.of("\\d+", "\\b[a-zA-Z]{4}\\b", "(?<word>\\w+)@(\\w+)", "a|aa", "^\\s*x", "\\Q.*\\E")) {
+            assertNotNull(LazyDfa.forPattern(regex), regex);
+        }
+    }
+
+    @Test
+    void surrogatePairsAndCombiningMarksFallBackWithTheSameResult() {
+        String text = "a😀b café café \uD83D x\uDE00 ab";
+        for (String regex : List.of(".", "\\W+", "[^a]", "\\b\\w+\\b", "\\B.", "\\S+", "b\\b", "e\\B")) {
+            LazyDfa dfa = LazyDfa.forPattern(regex);
+            assertNotNull(dfa, regex);
+            Pattern pattern = Pattern.compile(regex);
+            assertEquals(expected(pattern, text), found(dfa, pattern, text), regex);
+        }
+    }
+
+    @Test
+    void limitStopsAfterThatManyMatches() {
+        LazyDfa dfa = LazyDfa.forPattern("\\d+");
+        StringBuilder found = new StringBuilder();
+        int count = dfa.find("1 22 333 4444", Pattern.compile("\\d+"), 2, match -> found.append(match.group()).append(';'));
+        assertEquals(2, count);
+        assertEquals("1;22;", found.toString());
+    }
+
+    @Test
+    void regexProcessorUsesTheDfaWithoutChangingResults() {
+        RegexProcessor processor = new RegexProcessor(new PatternCache(16), RegexBudget.UNLIMITED);
+        String text = "id=17 name=ann; id=4 name=bob; id= name=";
+        for (String regex : List.of("id=(\\d+)", "\\b\\w{3}\\b", "name=(?<name>[a-z]*)")) {
+            Pattern pattern = Pattern.compile(regex);
+            StringBuilder found = new StringBuilder();
+            processor.scan(text, regex, match -> describe(found, match));
+            assertEquals(expected(pattern, text), found.toString(), regex);
+        }
+    }
+
+    @Test
+    void longScansStopWhenInterruptedOrOverBudget() {
+        LazyDfa dfa = LazyDfa.forPattern("a\\d");
+        Pattern pattern = Pattern.compile("a\\d");
+        // No match, and many short ones; both are read straight from the wrapped text
+        for (String text : List.of("x".repeat(100_000), "a1".repeat(50_000))) {
+            assertThrows(RegexTimeoutException.class, () -> dfa.find(
+                    new InterruptibleCharSequence(text, null, RegexBudget.ofSteps(10_000)), pattern, Integer.MAX_VALUE, match -> {}));
+
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(CancellationException.class, () -> dfa.find(
+                        new InterruptibleCharSequence(text), pattern, Integer.MAX_VALUE, match -> {}));
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private static String pattern(Random random, int depth) {
+        StringBuilder pattern = new StringBuilder();
+        int atoms = 1 + random.nextInt(3);
+        for (int i = 0; i < atoms; i++) {
+            int kind = random.nextInt(10);
+            String atom;
+            if (kind < 5 || depth > 2) {
+                atom = ATOMS[random.nextInt(ATOMS.length)];
+            } else if (kind < 6) {
+                atom = ASSERTIONS[random.nextInt(ASSERTIONS.length)];
+            } else if (kind < 8) {
+                atom = "(" + pattern(random, depth + 1) + ")";
+            } else if (kind < 9) {
+                atom = "(?:" + pattern(random, depth + 1) + "|" + pattern(random, depth + 1) + ")";
+            } else {
+                atom = "(" + pattern(random, depth + 1) + "|" + (random.nextBoolean() ? "" : pattern(random, depth + 1)) + ")";
+            }
+            int quantifier = random.nextInt(12);
+            if (quantifier < QUANTIFIERS.length) {
+                atom += QUANTIFIERS[quantifier];
+            }
+            pattern.append(atom);
+        }
+        return pattern.toString();
+    }
+
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(20);
+        for (int i = 0; i < length; i++) {
+            if (random.nextInt(40) == 0) {
+                text.append("😀");
+            } else {
+                text.append(TEXT_ALPHABET.charAt(random.nextInt(TEXT_ALPHABET.length())));
+            }
+        }
+        return text.toString();
+    }
+
+    private static String expected(Pattern pattern, String text) {
+        StringBuilder found = new StringBuilder();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            describe(found, matcher);
+        }
+        return found.toString();
+    }
+
+    private static String found(LazyDfa dfa, Pattern pattern, String text) {
+        StringBuilder found = new StringBuilder();
+        dfa.find(text, pattern, Integer.MAX_VALUE, match -> describe(found, match));
+        return found.toString();
+    }
+
+    // Offsets of the match and of every group, so a difference in any of them fails the comparison
+    private static void describe(StringBuilder out, MatchResult match) {
+        out.append('[').append(match.start()).append(',').append(match.end());
+        for (int group = 1; group <= match.groupCount(); group++) {
+            out.append(' ').append(match.start(group)).append(':').append(match.end(group));
+        }
+        out.append(']');
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            escaped.append(c >= 32 && c < 127 ? String.valueOf(c) : String.format("\\u%04x", (int) c));
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.textprocessingtool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiteralPrefilterTest {
+
+    // Words and separators that the patterns below look for, so random text has many partial hits
+    private static final String[] FRAGMENTS = {
+            "ERROR", "error", "code", "abc", "ab", "q", "qq", "zz", "A", "id=", "42", " ", "\n", "\t", "é", "x"
+    };
+
+    // Patterns with a required literal, some of them with escapes whose argument looks like literal text
+    private static final List<String> PATTERNS = List.of(
+            "ERROR\\s+\\w+", "\\bcode\\b", "ab+c", "[a-z]+code", "id=\\d+", "(?m)^ERROR.*$", "error|code",
+            "(?<n>q)\\k<n>zz", "(q)\\1zz", "\\x41code", "\\u0041code", "\\0101code", "\\cIcode",
+            "\\N{LATIN SMALL LETTER E WITH ACUTE}x", "\\p{Lu}RROR", "\\pLRROR", "\\Qid=\\E\\d", "(?i)error",
+            "abc(?=ab)", "(?<=ab)code", "[a-z]+[\\t-~]code", "[\\x00-z]code", "[ -~]+code", "[a-z&&[\\t-~]]code");
+
+    @Test
+    void prefilteredSearchesFindTheSameMatchesAsMatcherFind() {
+        Random random = new Random(6);
+        RegexProcessor processor = new RegexProcessor();
+        for (int round = 0; round < 200; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(60); i > 0; i--) {
+                text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            for (String pattern : PATTERNS) {
+                assertEquals(expected(text.toString(), pattern), found(processor, text.toString(), pattern),
+                        pattern + " in " + text);
+            }
+        }
+    }
+
+    @Test
+    void escapesWithAnArgumentAreNotReadAsLiterals() {
+        RegexProcessor processor = new RegexProcessor();
+        assertEquals(List.of("0:qqzz"), found(processor, "qqzz", "(?<n>q)\\k<n>zz"));
+        assertEquals(List.of("1:Acode"), found(processor, "xAcode", "\\x41code"));
+        assertEquals(List.of("0:Acode"), found(processor, "Acode", "\\u0041code"));
+        assertEquals(List.of("0:\tcode"), found(processor, "\tcode", "\\cIcode"));
+    }
+
+    @Test
+    void classRangesThatIncludeTheNewlineAreNotLineOriented() {
+        assertFalse(PatternAnalyzer.isLineOriented("[a-z]+[\\t-~]code"));
+        assertFalse(PatternAnalyzer.isLineOriented("[\\x00-z]code"));
+        assertTrue(PatternAnalyzer.isLineOriented("[a-z]+[ -~]code"));
+        assertTrue(PatternAnalyzer.isLineOriented("[-a]code[a-]"));
+        assertEquals(List.of("0:abc\ncode"), found(new RegexProcessor(), "abc\ncode", "[a-z]+[\\t-~]code"));
+    }
+
+    @Test
+    void previousMatchAnchorIsNeverPrefiltered() {
+        assertNull(LiteralPrefilter.forPattern("\\Gab"));
+        assertNull(LiteralPrefilter.forPattern("x\\Gab"));
+
+        RegexProcessor processor = new RegexProcessor();
+        assertEquals(expected("abab xab ab", "\\Gab"), found(processor, "abab xab ab", "\\Gab"));
+        assertEquals(List.of("ab", "ab"), processor.search(TrigramIndex.build("abab xab ab"), "\\Gab"));
+    }
+
+    @Test
+    void longScansStopWhenInterruptedOrOverBudget() {
+        // Prefix and line-wise prefilters, over text without the literal and text full of it
+        for (String regex : List.of("ERROR\\d", "\\w+ERROR")) {
+            LiteralPrefilter prefilter = LiteralPrefilter.forPattern(regex);
+            Pattern pattern = Pattern.compile(regex);
+            for (String text : List.of("x".repeat(1_000_000), "ERROR ".repeat(100_000))) {
+                CharSequence budgeted = new InterruptibleCharSequence(text, null, RegexBudget.ofSteps(100_000));
+                assertThrows(RegexTimeoutException.class,
+                        () -> prefilter.find(budgeted, pattern, Integer.MAX_VALUE, matcher -> {}), regex);
+
+                Thread.currentThread().interrupt();
+                try {
+                    assertThrows(CancellationException.class, () -> prefilter.find(
+                            new InterruptibleCharSequence(text), pattern, Integer.MAX_VALUE, matcher -> {}), regex);
+                } finally {
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    // What a plain Matcher.find() loop reports, as "start:text"
+    private static List<String> expected(String text, String pattern) {
+        List<String> matches = new ArrayList<>();
+        Matcher matcher = Pattern.compile(pattern).matcher(text);
+        while (matcher.find()) {
+            matches.add(matcher.start() + ":" + matcher.group());
+        }
+        return matches;
+    }
+
+    private static List<String> found(RegexProcessor processor, String text, String pattern) {
+        List<String> matches = new ArrayList<>();
+        processor.scan(text, pattern, match -> matches.add(match.start() + ":" + match.group()));
+        return matches;
+    }
+}
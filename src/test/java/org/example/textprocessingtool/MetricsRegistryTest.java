@@ -0,0 +1,29 @@
+package org.example.textprocessingtool;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsRegistryTest {
+
+    @Test
+    void failedRegistrationsAreRecordedAndTheOthersUnregisteredOnClose() throws Exception {
+        ObjectName name = new ObjectName(MetricsRegistry.DOMAIN + ":type=RegistryTest,name=first");
+        try (MetricsRegistry registry = new MetricsRegistry()) {
+            assertTrue(registry.register("RegistryTest", "first", new DataManager().getMetrics()));
+            assertFalse(registry.register("RegistryTest", "first", new DataManager().getMetrics()));
+            assertFalse(registry.register("RegistryTest", "second", new Object()));
+
+            assertEquals(2, registry.getFailures().size());
+            assertTrue(registry.getFailures().get(0).startsWith(name + ": javax.management.InstanceAlreadyExistsException"));
+            assertTrue(registry.getFailures().get(1).startsWith(MetricsRegistry.DOMAIN + ":type=RegistryTest,name=second: "));
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.textprocessingtool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelFileSearcherTest {
+
+    // Lines of words, digits and multi-byte characters, so segments end in many different places
+    private static final String[] FRAGMENTS = {
+            "ERROR ", "code", "id=42 ", "abc", " ", "\n", "\n", "\t", "é", "日本", "😀", "x"
+    };
+
+    // Line-oriented patterns are split into segments; the last ones may match across lines and are not
+    private static final List<String> PATTERNS = List.of(
+            "ERROR \\w+", "\\d+", "(?m)^abc", "(?m)code$", "\\bcode\\b", "[a-z]+", "é+", "😀", "(?m)^$", "(?m)^",
+            "[a-z]+[\\t-~]code", "\\s+\\d", "ERROR.*\\z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void segmentedSearchesFindTheSameMatchesAsMatcherFind() throws IOException {
+        Random random = new Random(3);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 20_000) {
+            text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        Path file = write(text.toString());
+
+        for (long segmentSize : new long[] {1, 7, 64, 1000, 1L << 20}) {
+            try (ParallelFileSearcher searcher = new ParallelFileSearcher(new PatternCache(16), 4, segmentSize)) {
+                for (String pattern : PATTERNS) {
+                    assertEquals(expectedMatches(text.toString(), pattern), searcher.search(file, pattern),
+                            pattern + " with segments of " + segmentSize);
+                }
+            }
+        }
+    }
+
+    @Test
+    void matchAcrossASegmentBoundaryIsFound() throws IOException {
+        // The match starts just before the first cut of a default-sized segment and ends in the next line
+        String text = "xy ".repeat((1 << 20) / 3) + "abc\ncode\n" + "y\n".repeat(1000);
+        Path file = write(text);
+
+        try (ParallelFileSearcher searcher = new ParallelFileSearcher(new PatternCache(16), 4)) {
+            List<StreamingSearcher.Match> matches = searcher.search(file, "[a-z]+[\\t-~]code");
+            assertEquals(expectedMatches(text, "[a-z]+[\\t-~]code"), matches);
+            assertEquals(List.of("abc\ncode"), matches.stream().map(StreamingSearcher.Match::text)
+                    .filter(match -> match.contains("\n")).toList());
+        }
+    }
+
+    @Test
+    void emptyFilesHaveNoMatchesButEmptyPatternsMatchOnce() throws IOException {
+        Path file = write("");
+        try (ParallelFileSearcher searcher = new ParallelFileSearcher(new PatternCache(16), 2, 1)) {
+            assertEquals(List.of(), searcher.search(file, "abc"));
+            assertEquals(expectedMatches("", "x*"), searcher.search(file, "x*"));
+        }
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = directory.resolve("input.txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    // What a Matcher.find() loop over the whole text reports, with byte offsets and line numbers added
+    private static List<StreamingSearcher.Match> expectedMatches(String text, String pattern) {
+        List<StreamingSearcher.Match> matches = new ArrayList<>();
+        Matcher matcher = Pattern.compile(pattern).matcher(text);
+        while (matcher.find()) {
+            String before = text.substring(0, matcher.start());
+            long lines = 1 + before.chars().filter(c -> c == '\n').count();
+            matches.add(new StreamingSearcher.Match(matcher.group(), matcher.start(),
+                    before.getBytes(StandardCharsets.UTF_8).length, lines));
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PersonAggregatesTest {
+
+    private static final String[] FIRST_NAMES = {"Anna", "anton", "Bert", "Clara", "Dora", "emil", "Eva", "Z"};
+
+    @Test
+    void smallSnapshotIsAggregatedOnTheCallingThread() {
+        DataManager persons = new DataManager();
+        persons.createPerson("Anna Berg", 34);
+        persons.createPerson("anton Ek", 71);
+        persons.createPerson("Bert Ek", -5);
+        persons.createPerson("Clara", 71);
+        persons.createPerson("B", 9);
+        PersonAggregates aggregates = persons.aggregate();
+
+        IntSummaryStatistics ages = aggregates.ageStatistics();
+        assertEquals(5, ages.getCount());
+        assertEquals(-5, ages.getMin());
+        assertEquals(71, ages.getMax());
+        assertEquals(180, ages.getSum());
+        assertEquals(Map.of(-10, 1L, 0, 1L, 30, 1L, 70, 2L), aggregates.ageHistogram(10));
+        assertEquals(Map.of("A", 2L, "B", 2L, "C", 1L), aggregates.countByNamePrefix(1, true));
+        assertEquals(Map.of("An", 1L, "an", 1L, "B", 1L, "Be", 1L, "Cl", 1L), aggregates.countByNamePrefix(2, false));
+        assertEquals(Map.of("Berg", 1L, "Ek", 2L), aggregates.countByNamePattern(" (\\w+)$"));
+        assertEquals(Map.of(), aggregates.countByNamePattern("("));
+        assertEquals(List.of("anton Ek=71", "Clara=71", "Anna Berg=34"), describe(aggregates.oldest(3)));
+        assertEquals(List.of("Bert Ek=-5", "B=9"), describe(aggregates.youngest(2)));
+        assertEquals(5, aggregates.oldest(10).size());
+        assertEquals(List.of("Clara=71"), describe(aggregates.filterByName("^C").filterByAge(70, 80).oldest(5)));
+        assertEquals(0, aggregates.filterByName("[").size());
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        DataManager persons = new DataManager();
+        persons.createPerson("min", Integer.MIN_VALUE);
+        persons.createPerson("max", Integer.MAX_VALUE);
+        PersonAggregates aggregates = persons.aggregate();
+
+        assertThrows(IllegalArgumentException.class, () -> aggregates.ageHistogram(0));
+        assertThrows(IllegalArgumentException.class, () -> aggregates.ageHistogram(10));
+        assertThrows(IllegalArgumentException.class, () -> aggregates.countByNamePrefix(0, false));
+        assertThrows(IllegalArgumentException.class, () -> aggregates.oldest(-1));
+        assertEquals(List.of(), aggregates.youngest(0));
+    }
+
+    @Test
+    void parallelAggregatesMatchASequentialReference() {
+        Random random = new Random(18);
+        DataManager persons = new DataManager();
+        List<Person> reference = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + i;
+            int age = random.nextInt(120) - 10;
+            persons.createPerson(name, age);
+            reference.add(new Person(name, age));
+        }
+        PersonAggregates aggregates = persons.aggregate();
+
+        IntSummaryStatistics ages = reference.stream().mapToInt(Person::getAge).summaryStatistics();
+        assertEquals(ages.toString(), aggregates.ageStatistics().toString());
+        assertEquals(new TreeMap<>(reference.stream().collect(Collectors.groupingBy(
+                        person -> Math.floorDiv(person.getAge(), 7) * 7, Collectors.counting()))),
+                aggregates.ageHistogram(7));
+        assertEquals(new TreeMap<>(reference.stream().collect(Collectors.groupingBy(
+                        person -> person.getName().substring(0, 1).toUpperCase(Locale.ROOT), Collectors.counting()))),
+                aggregates.countByNamePrefix(1, true));
+
+        Pattern firstName = Pattern.compile("^(\\w+) ");
+        TreeMap<String, Long> expectedGroups = new TreeMap<>();
+        for (Person person : reference) {
+            Matcher matcher = firstName.matcher(person.getName());
+            if (matcher.find()) {
+                expectedGroups.merge(matcher.group(1), 1L, Long::sum);
+            }
+        }
+        assertEquals(expectedGroups, aggregates.countByNamePattern("^(\\w+) "));
+
+        // Equal ages keep their creation order, so the reference sort must be stable
+        List<Person> byAgeDescending = new ArrayList<>(reference);
+        byAgeDescending.sort(Comparator.comparingInt(Person::getAge).reversed());
+        assertEquals(describe(byAgeDescending.subList(0, 25)), describe(aggregates.oldest(25)));
+        List<Person> byAge = new ArrayList<>(reference);
+        byAge.sort(Comparator.comparingInt(Person::getAge));
+        assertEquals(describe(byAge.subList(0, 25)), describe(aggregates.youngest(25)));
+
+        List<Person> filtered = reference.stream()
+                .filter(person -> person.getName().startsWith("E") && person.getAge() >= 20 && person.getAge() <= 40)
+                .toList();
+        PersonAggregates narrowed = aggregates.filterByName("^E").filterByAge(20, 40);
+        assertEquals(filtered.size(), narrowed.size());
+        assertEquals(describe(filtered), describe(narrowed.youngest(filtered.size()).stream()
+                .sorted(Comparator.comparingInt(person -> Integer.parseInt(person.getName().split(" ")[1])))
+                .toList()));
+    }
+
+    private static List<String> describe(List<Person> persons) {
+        List<String> result = new ArrayList<>();
+        for (Person person : persons) {
+            result.add(person.getName() + "=" + person.getAge());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PersonBulkLoaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void csvSkipsTheHeaderAndBlankLinesAndCountsMalformedOnes() throws IOException {
+        String csv = " Name,AGE \r\n"
+                + "alice,30\r\n"
+                + "\r\n"
+                + "bob , 41 \n"
+                + "no age\n"
+                + "carol,x\n"
+                + "dave,12abc\n"
+                + "erin,-3\n"
+                + "frank,99999999999\n";
+        List<Person> persons = new ArrayList<>();
+
+        PersonBulkLoader.LoadResult result = read(csv, PersonBulkLoader.Format.CSV, persons);
+
+        assertEquals(new PersonBulkLoader.LoadResult(3, 4), result);
+        assertEquals(List.of("alice=30", "bob =41", "erin=-3"), describe(persons));
+    }
+
+    @Test
+    void csvReadsQuotedNamesWithCommasQuotesAndLineBreaks() throws IOException {
+        String csv = "\uFEFF\"Smith, John\",40\n"
+                + "\"say \"\"hi\"\"\",5\n"
+                + "\"two\nlines\",6\n"
+                + "\"\",7\n"
+                + "\"Jürgen Özil\",8\n"
+                + "\"unterminated,9\n";
+        List<Person> persons = new ArrayList<>();
+
+        PersonBulkLoader.LoadResult result = read(csv, PersonBulkLoader.Format.CSV, persons);
+
+        assertEquals(new PersonBulkLoader.LoadResult(5, 1), result);
+        assertEquals(List.of("Smith, John=40", "say \"hi\"=5", "two\nlines=6", "=7", "Jürgen Özil=8"),
+                describe(persons));
+    }
+
+    @Test
+    void jsonLinesResolveEscapesIgnoreOtherFieldsAndCountMalformedLines() throws IOException {
+        String jsonl = "{\"name\":\"alice\",\"age\":30}\n"
+                + "  { \"age\" : 41 , \"name\" : \"bob\" }  \n"
+                + "{\"id\":[1,{\"x\":\"}\"}],\"name\":\"q\\\"\\\\\\n\\u00e9\",\"age\":2,\"tags\":null}\n"
+                + "{\"name\":\"no age\"}\n"
+                + "{\"name\":\"x\",\"age\":\"1\"}\n"
+                + "{\"name\":\"x\",\"age\":1} trailing\n"
+                + "{}\n"
+                + "not json\n";
+        List<Person> persons = new ArrayList<>();
+
+        PersonBulkLoader.LoadResult result = read(jsonl, PersonBulkLoader.Format.JSONL, persons);
+
+        assertEquals(new PersonBulkLoader.LoadResult(3, 5), result);
+        assertEquals(List.of("alice=30", "bob=41", "q\"\\\né=2"), describe(persons));
+    }
+
+    @Test
+    void personsArriveInBatchesOfTheConfiguredSize() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            csv.append('p').append(i).append(',').append(i).append('\n');
+        }
+        List<Integer> sizes = new ArrayList<>();
+
+        new PersonBulkLoader(4).read(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                PersonBulkLoader.Format.CSV, batch -> sizes.add(batch.size()));
+
+        assertEquals(List.of(4, 4, 2), sizes);
+    }
+
+    @Test
+    void writtenFilesReadBackUnchangedInBothFormats() throws IOException {
+        List<Person> persons = List.of(new Person("plain", 1), new Person("Smith, John", 2),
+                new Person("say \"hi\"", 3), new Person("two\nlines", 4), new Person(" padded ", 5),
+                new Person("", 6), new Person("tab\tback\\slash \u0001 €", -7));
+        PersonBulkLoader loader = new PersonBulkLoader();
+
+        for (PersonBulkLoader.Format format : PersonBulkLoader.Format.values()) {
+            StringWriter out = new StringWriter();
+            assertEquals(persons.size(), loader.write(persons, out, format));
+            List<Person> read = new ArrayList<>();
+
+            PersonBulkLoader.LoadResult result = read(out.toString(), format, read);
+
+            assertEquals(new PersonBulkLoader.LoadResult(persons.size(), 0), result, format.name());
+            assertEquals(describe(persons), describe(read), format.name());
+        }
+    }
+
+    @Test
+    void importFileSkipsExistingNamesAndReportsMalformedLines() throws IOException {
+        Path file = directory.resolve("persons.jsonl");
+        Files.writeString(file, "{\"name\":\"alice\",\"age\":30}\n"
+                + "{\"name\":\"bob\",\"age\":41}\n"
+                + "broken\n"
+                + "{\"name\":\"alice\",\"age\":99}\n");
+        DataManager target = new DataManager();
+        target.createPerson("bob", 1);
+
+        PersonBulkLoader.LoadResult result = new PersonBulkLoader().importFile(file, target);
+
+        assertEquals(new PersonBulkLoader.LoadResult(1, 1), result);
+        assertEquals(30, target.searchPersonByName("alice").getAge());
+        assertEquals(1, target.searchPersonByName("bob").getAge());
+    }
+
+    private static PersonBulkLoader.LoadResult read(String input, PersonBulkLoader.Format format, List<Person> persons)
+            throws IOException {
+        return new PersonBulkLoader(2).read(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                format, persons::addAll);
+    }
+
+    private static List<String> describe(List<Person> persons) {
+        List<String> result = new ArrayList<>();
+        for (Person person : persons) {
+            result.add(person.getName() + "=" + person.getAge());
+        }
+        return result;
+    }
+}
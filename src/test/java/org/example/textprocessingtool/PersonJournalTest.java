@@ -0,0 +1,167 @@
+package org.example.textprocessingtool;
+
+import org.example.textprocessingtool.DataManager.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersonJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void changesSurviveARestart() throws IOException {
+        DataManager persons = new DataManager();
+        try (PersonJournal ignored = PersonJournal.open(directory, persons)) {
+            persons.createPerson("alice", 30);
+            persons.createPerson("bob", 41);
+            persons.createPerson("carol", 25);
+            persons.updatePerson("alice", 31);
+            persons.deletePerson("bob");
+        }
+
+        DataManager restored = new DataManager();
+        try (PersonJournal journal = PersonJournal.open(directory, restored)) {
+            assertEquals(0, journal.getDiscardedBytes());
+        }
+        assertEquals(List.of("alice=31", "carol=25"), describe(restored));
+    }
+
+    @Test
+    void aTornRecordIsCutOffAndTheChangesBeforeItAreKept() throws IOException {
+        DataManager persons = new DataManager();
+        try (PersonJournal journal = PersonJournal.open(directory, persons)) {
+            persons.createPerson("alice", 30);
+            persons.createPerson("bob", 41);
+            journal.sync();
+            persons.createPerson("carol", 25);
+        }
+        Path log = directory.resolve("persons-0.wal");
+        long complete = Files.size(log);
+        // A crash in the middle of writing the last record leaves only part of it
+        truncate(log, complete - 3);
+
+        DataManager restored = new DataManager();
+        try (PersonJournal journal = PersonJournal.open(directory, restored)) {
+            assertEquals(complete - 3 - lengthOfTwoRecords(), journal.getDiscardedBytes());
+            assertEquals(lengthOfTwoRecords(), Files.size(log));
+            assertEquals(List.of("alice=30", "bob=41"), describe(restored));
+            restored.createPerson("dave", 52);
+        }
+
+        DataManager reopened = new DataManager();
+        try (PersonJournal journal = PersonJournal.open(directory, reopened)) {
+            assertEquals(0, journal.getDiscardedBytes());
+        }
+        assertEquals(List.of("alice=30", "bob=41", "dave=52"), describe(reopened));
+    }
+
+    @Test
+    void aCorruptRecordEndsTheReplayAndDropsLaterLogs() throws IOException {
+        DataManager persons = new DataManager();
+        try (PersonJournal journal = PersonJournal.open(directory, persons)) {
+            persons.createPerson("alice", 30);
+            persons.createPerson("bob", 41);
+        }
+        Path log = directory.resolve("persons-0.wal");
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 1] ^= 1; // Last byte of bob's name, so the CRC no longer matches
+        Files.write(log, bytes);
+        Path later = directory.resolve("persons-1.wal");
+        Files.write(later, new byte[] {1, 2, 3});
+
+        DataManager restored = new DataManager();
+        try (PersonJournal journal = PersonJournal.open(directory, restored)) {
+            assertEquals(bytes.length - lengthOfOneRecord("alice") + 3, journal.getDiscardedBytes());
+        }
+        assertEquals(List.of("alice=30"), describe(restored));
+        assertFalse(Files.exists(later));
+    }
+
+    @Test
+    void aSnapshotReplacesTheOlderLogsAndKeepsLaterChanges() throws IOException {
+        DataManager persons = new DataManager();
+        try (PersonJournal journal = PersonJournal.open(directory, persons)) {
+            for (int i = 0; i < 100; i++) {
+                persons.createPerson("p" + i, i);
+            }
+            journal.snapshot();
+            persons.updatePerson("p0", 100);
+            persons.deletePerson("p1");
+            persons.createPerson("p100", 100);
+        }
+        assertTrue(Files.exists(directory.resolve("persons.snapshot")));
+        assertFalse(Files.exists(directory.resolve("persons-0.wal")));
+
+        DataManager restored = new DataManager();
+        try (PersonJournal ignored = PersonJournal.open(directory, restored)) {
+            assertEquals(describe(persons), describe(restored));
+        }
+        assertEquals(100, restored.size());
+        assertEquals(100, restored.searchPersonByName("p0").getAge());
+    }
+
+    @Test
+    void aDirectoryIsOpenedByOneJournalAtATime() throws IOException {
+        try (PersonJournal ignored = PersonJournal.open(directory, new DataManager())) {
+            assertThrows(IOException.class, () -> PersonJournal.open(directory, new DataManager()));
+        }
+    }
+
+    @Test
+    void aFailureReachesTheHandlerAndIsThrownBySyncAndClose() throws IOException {
+        List<IOException> failures = new ArrayList<>();
+        DataManager persons = new DataManager();
+        PersonJournal journal = PersonJournal.open(directory, persons);
+        journal.setFailureHandler(failures::add);
+        persons.createPerson("alice", 30);
+        // The next log file cannot be created, so starting a snapshot fails
+        Files.createDirectory(directory.resolve("persons-1.wal"));
+
+        journal.snapshot();
+
+        assertEquals(1, failures.size());
+        IOException thrown = assertThrows(IOException.class, journal::sync);
+        assertEquals(failures.get(0), thrown);
+        assertThrows(IOException.class, journal::close);
+        List<IOException> late = new ArrayList<>();
+        journal.setFailureHandler(late::add);
+        assertEquals(failures, late);
+    }
+
+    private static long lengthOfTwoRecords() {
+        return lengthOfOneRecord("alice") + lengthOfOneRecord("bob");
+    }
+
+    // Payload length, CRC, operation, age and the UTF-8 name
+    private static long lengthOfOneRecord(String name) {
+        return 4 + 4 + 1 + 4 + name.length();
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static List<String> describe(DataManager persons) {
+        List<String> result = new ArrayList<>();
+        for (Person person : persons.getAllPersons()) {
+            result.add(person.getName() + "=" + person.getAge());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.textprocessingtool;
+
+import javafx.collections.ListChangeListener;
+import org.example.textprocessingtool.DataManager.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersonListModelTest {
+
+    private final DataManager persons = new DataManager();
+    private final List<Runnable> pulses = new ArrayList<>();
+    private final List<String> mirror = new ArrayList<>();
+    private int changeEvents;
+
+    @Test
+    void aBurstOfChangesArrivesAsOneListChangeInTheNextPulse() {
+        persons.createPerson("alice", 30);
+        persons.createPerson("bob", 41);
+        PersonListModel model = observe();
+
+        persons.createPerson("carol", 25);
+        persons.updatePerson("alice", 31);
+        persons.updatePerson("alice", 32);
+        persons.deletePerson("bob");
+        // Rows are the persons themselves, so ages show through at once, but no row is added or removed yet
+        assertEquals(List.of("alice (32 years)", "bob (41 years)"), model);
+        assertEquals(0, changeEvents);
+        assertEquals(1, pulses.size());
+
+        pulse();
+
+        assertEquals(1, changeEvents);
+        assertEquals(List.of("alice (32 years)", "carol (25 years)"), model);
+        assertEquals(model, mirror);
+    }
+
+    @Test
+    void aPersonAddedAndRemovedWithinOnePulseNeverShows() {
+        PersonListModel model = observe();
+
+        persons.createPerson("alice", 30);
+        persons.updatePerson("alice", 31);
+        persons.deletePerson("alice");
+        pulse();
+
+        assertEquals(0, changeEvents);
+        assertTrue(model.isEmpty());
+    }
+
+    @Test
+    void aNameDeletedAndCreatedAgainMovesToTheEnd() {
+        persons.createPerson("alice", 30);
+        persons.createPerson("bob", 41);
+        PersonListModel model = observe();
+
+        persons.updatePerson("alice", 31);
+        persons.deletePerson("alice");
+        persons.createPerson("alice", 5);
+        pulse();
+
+        assertEquals(List.of("bob (41 years)", "alice (5 years)"), model);
+        assertEquals(model, mirror);
+    }
+
+    @Test
+    void randomBurstsKeepTheModelInStepWithTheDataManager() {
+        Random random = new Random(19);
+        for (int i = 0; i < 50; i++) {
+            persons.createPerson("p" + i, i);
+        }
+        PersonListModel model = observe();
+
+        for (int burst = 0; burst < 500; burst++) {
+            int operations = 1 + random.nextInt(20);
+            for (int i = 0; i < operations; i++) {
+                String name = "p" + random.nextInt(80);
+                switch (random.nextInt(4)) {
+                    case 0 -> persons.createPerson(name, random.nextInt(100));
+                    case 1 -> persons.createPersons(List.of(new Person(name, random.nextInt(100)),
+                            new Person("p" + random.nextInt(80), random.nextInt(100))));
+                    case 2 -> persons.updatePerson(name, random.nextInt(100));
+                    default -> persons.deletePerson(name);
+                }
+            }
+            pulse();
+
+            List<String> expected = new ArrayList<>();
+            for (Person person : persons.getAllPersons()) {
+                expected.add(PersonListModel.format(person.getName(), person.getAge()));
+            }
+            assertEquals(expected, model, "burst " + burst);
+            assertEquals(expected, mirror, "burst " + burst);
+        }
+    }
+
+    // Creates the model and a mirror list that is only updated through the reported changes
+    private PersonListModel observe() {
+        PersonListModel model = new PersonListModel(persons, pulses::add);
+        mirror.addAll(model);
+        model.addListener((ListChangeListener<String>) change -> {
+            changeEvents++;
+            while (change.next()) {
+                int from = change.getFrom();
+                List<String> removed = mirror.subList(from, from + change.getRemovedSize());
+                assertEquals(removed, change.getRemoved());
+                removed.clear();
+                mirror.addAll(from, change.getAddedSubList());
+            }
+        });
+        return model;
+    }
+
+    private void pulse() {
+        List<Runnable> due = new ArrayList<>(pulses);
+        pulses.clear();
+        due.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.textprocessingtool;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamingReplacerTest {
+
+    // Small enough that the test input crosses many chunk boundaries
+    private static final int CHUNK_SIZE = 16;
+    private static final int MAX_MATCH_LENGTH = 32;
+
+    private final StreamingReplacer replacer = new StreamingReplacer(new PatternCache(16), CHUNK_SIZE, MAX_MATCH_LENGTH);
+
+    @Test
+    void replacesLikeReplaceAllAcrossChunks() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 200; i++) {
+            text.append("line ").append(i).append(" value=").append(i * 7).append('\n');
+        }
+        for (String[] pair : List.of(new String[]{"\\d+", "<$0>"}, new String[]{"(?<key>\\w+)=(\\d+)", "$2:${key}"},
+                new String[]{"^line", "first"}, new String[]{"(?m)^line", "L"}, new String[]{"\\b", "|"})) {
+            String expected = Pattern.compile(pair[0]).matcher(text).replaceAll(pair[1]);
+            assertEquals(expected, replaced(text.toString(), pair[0], pair[1]), pair[0]);
+        }
+    }
+
+    @Test
+    void matchLongerThanTheLimitIsNeverReplacedInPart() {
+        String text = "b" + "a".repeat(10 * MAX_MATCH_LENGTH);
+        assertThrows(MatchTooLongException.class, () -> replaced(text, "b.*", "X"));
+    }
+
+    @Test
+    void matchStillUnfinishedWhenTheWindowIsFullIsNeverReplacedInPart() throws IOException {
+        // The attempt at offset 0 is still running when the window fills up, so its start must not be dropped
+        assertThrows(MatchTooLongException.class, () -> replaced("ab".repeat(10_000) + "c", "(?:ab)+c", "X"));
+        assertEquals("X", replaced("ab".repeat(MAX_MATCH_LENGTH / 4) + "c", "(?:ab)+c", "X"));
+    }
+
+    @Test
+    void streamedAndInMemoryReplacesRecordTheSameInputSize() throws IOException {
+        String text = "café 日本 😀 id=1\n".repeat(20);
+        RegexMetrics metrics = RegexMetrics.shared();
+        long chars = metrics.getCharsScanned();
+        long bytes = metrics.getBytesScanned();
+        replaced(text, "\\d", "#");
+        assertEquals(text.length(), metrics.getCharsScanned() - chars);
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, metrics.getBytesScanned() - bytes);
+
+        new RegexProcessor().replace(text, "\\d", "#");
+        assertEquals(2L * text.length(), metrics.getCharsScanned() - chars);
+        assertEquals(2L * text.getBytes(StandardCharsets.UTF_8).length, metrics.getBytesScanned() - bytes);
+    }
+
+    private String replaced(String text, String pattern, String replacement) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        replacer.replace(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))),
+                Channels.newChannel(out), StandardCharsets.UTF_8, pattern, replacement);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.textprocessingtool;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamingSearcherTest {
+
+    // Small enough that the test input crosses many chunk boundaries
+    private static final int CHUNK_SIZE = 16;
+    private static final int MAX_MATCH_LENGTH = 32;
+
+    private final StreamingSearcher searcher = new StreamingSearcher(new PatternCache(16), CHUNK_SIZE, MAX_MATCH_LENGTH);
+
+    @Test
+    void inputStartAnchorsDoNotMatchAtChunkBoundaries() throws IOException {
+        String text = lines(200);
+        for (String pattern : List.of("^line", "^", "\\Aline", "\\A", "\\G", "\\Gline", "\\G\\w")) {
+            assertEquals(expected(text, pattern), streamed(text, pattern), pattern);
+        }
+    }
+
+    @Test
+    void lookbehindAndWordBoundariesSeeTextBeforeTheChunk() throws IOException {
+        String text = lines(200);
+        for (String pattern : List.of("(?m)^line", "(?<=0\\n)line", "(?<!e )\\d+", "\\b\\d", "\\d$", "(?m)\\d$")) {
+            assertEquals(expected(text, pattern), streamed(text, pattern), pattern);
+        }
+    }
+
+    @Test
+    void matchesShorterThanTheLimitAgreeWithMatcher() throws IOException {
+        Random random = new Random(42);
+        String[] patterns = {"^", "\\G.", "a+", "b?", "\\bab", "(?<=a)b", "[ab]{2,5}", "a\\nb", "(?m)^b", "\\Gab?"};
+        for (int round = 0; round < 50; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 300; i++) {
+                // Runs of at most a few letters keep every match below MAX_MATCH_LENGTH
+                text.append("ab \n".charAt(random.nextInt(4)));
+            }
+            for (String pattern : patterns) {
+                assertEquals(expected(text.toString(), pattern), streamed(text.toString(), pattern),
+                        pattern + " on round " + round);
+            }
+        }
+    }
+
+    @Test
+    void matchLongerThanTheLimitFailsInsteadOfBeingCut() {
+        String text = "x" + "a".repeat(10 * MAX_MATCH_LENGTH) + "x";
+        MatchTooLongException e = assertThrows(MatchTooLongException.class, () -> streamed(text, "a+"));
+        assertEquals(1, e.getCharOffset());
+        assertEquals(MAX_MATCH_LENGTH, e.getMaxMatchLength());
+    }
+
+    @Test
+    void matchStillUnfinishedWhenTheWindowIsFullIsNotReportedFromALaterStart() {
+        // 301 characters that only become a match with the final "c", far past what the window can hold
+        String text = "ab".repeat(150) + "c";
+        StreamingSearcher narrow = new StreamingSearcher(new PatternCache(16), 16, 24);
+        List<String> matches = new ArrayList<>();
+        MatchTooLongException e = assertThrows(MatchTooLongException.class, () -> narrow.search(
+                Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))),
+                StandardCharsets.UTF_8, "(?:ab)+c", match -> matches.add(match.charOffset() + ":" + match.text())));
+        assertEquals(0, e.getCharOffset());
+        assertEquals(List.of(), matches);
+    }
+
+    // "line 1\nline 2\n..."
+    private static String lines(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static List<String> expected(String text, String pattern) {
+        List<String> matches = new ArrayList<>();
+        Matcher matcher = Pattern.compile(pattern).matcher(text);
+        while (matcher.find()) {
+            matches.add(matcher.start() + ":" + matcher.group());
+        }
+        return matches;
+    }
+
+    private List<String> streamed(String text, String pattern) throws IOException {
+        List<String> matches = new ArrayList<>();
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        searcher.search(channel, StandardCharsets.UTF_8, pattern, match -> matches.add(match.charOffset() + ":" + match.text()));
+        return matches;
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.textprocessingtool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TextProcessorCliTest {
+
+    @TempDir
+    Path directory;
+
+    private final StringWriter out = new StringWriter();
+    private final TextProcessorCli cli = new TextProcessorCli(out);
+
+    @Test
+    void exitStatusFollowsGrep() throws IOException {
+        Path file = write("a.txt", "one 1\ntwo 22\nthree\n");
+        assertEquals(0, cli.run(new String[]{"search", "\\d+", file.toString()}));
+        assertEquals(1, cli.run(new String[]{"search", "four", file.toString()}));
+        assertEquals(2, cli.run(new String[]{"search", "(", file.toString()}));
+        assertEquals(2, cli.run(new String[]{"search", "(a+)+", file.toString()}));
+        assertEquals(2, cli.run(new String[]{"frobnicate"}));
+        assertEquals(2, cli.run(new String[0]));
+    }
+
+    @Test
+    void searchPrintsMatchesWithLineNumbers() throws IOException {
+        Path file = write("a.txt", "one 1\ntwo 22\nthree\n");
+        cli.run(new String[]{"search", "-n", "\\d+", file.toString()});
+        assertEquals("1:1\n2:22\n", out.toString());
+    }
+
+    @Test
+    void countPrefixesFileNamesOnlyForSeveralFiles() throws IOException {
+        Path first = write("a.txt", "x x x\n");
+        Path second = write("b.txt", "y\n");
+        cli.run(new String[]{"count", "x", first.toString()});
+        cli.run(new String[]{"count", "x", first.toString(), second.toString()});
+        assertEquals("3\n" + first + ":3\n" + second + ":0\n", out.toString());
+    }
+
+    @Test
+    void statsCountsLinesLikeWc() throws IOException {
+        Path file = write("a.txt", "one two\nthree\nfour\n");
+        cli.run(new String[]{"stats", file.toString()});
+        assertEquals("lines 3  words 4  chars 19\n", out.toString());
+    }
+
+    @Test
+    void replaceInPlaceKeepsContentRulesAndPermissions() throws IOException {
+        Path file = write("a.txt", "id=1 id=22\n");
+        PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+        assumeTrue(view != null, "needs a POSIX file system");
+        view.setPermissions(PosixFilePermissions.fromString("rw-r--r--"));
+
+        assertEquals(0, cli.run(new String[]{"replace", "-i", "id=(\\d+)", "<$1>", file.toString()}));
+        assertEquals("<1> <22>\n", Files.readString(file));
+        assertEquals("rw-r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+    }
+
+    @Test
+    void replaceInPlaceLeavesTheFileAloneWhenAMatchIsTooLong() throws IOException {
+        String text = "b" + "a".repeat(3 * StreamingSearcher.DEFAULT_CHUNK_SIZE);
+        Path file = write("a.txt", text);
+        assertThrows(MatchTooLongException.class,
+                () -> cli.run(new String[]{"replace", "-i", "b.*", "X", file.toString()}));
+        assertEquals(text, Files.readString(file));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void largeFilesAreSearchedInParallelWithTheSameResult() throws IOException {
+        // Big enough to be split across cores; é+ needs decoding, so it cannot be searched on the bytes
+        String line = "plain ascii text line\n";
+        Path file = write("big.txt", line.repeat(400_000) + "café ééé\n" + line.repeat(10_000) + "né\n");
+
+        assertEquals(0, cli.run(new String[]{"search", "-n", "é+", file.toString()}));
+        assertEquals(0, cli.run(new String[]{"count", "é+", file.toString()}));
+        assertEquals("400001:é\n400001:ééé\n410002:é\n3\n", out.toString());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.textprocessingtool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrigramIndexTest {
+
+    // A small alphabet, so trigrams repeat a lot, with characters above 0xFF to fill all 16 bits of a key
+    private static final String ALPHABET = "abcab \nxyzé€😀";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void aLoadedIndexAnswersExactlyLikeTheBuiltOne() throws IOException {
+        Random random = new Random(23);
+        String text = randomText(random, 200_000);
+        TrigramIndex built = TrigramIndex.build(text);
+        Path file = directory.resolve("text.idx");
+
+        built.save(file);
+        TrigramIndex loaded = TrigramIndex.load(file, text);
+
+        assertFalse(Files.exists(directory.resolve("text.idx.tmp")));
+        assertEquals(built.getTrigramCount(), loaded.getTrigramCount());
+        assertEquals(built.getSizeInBytes(), loaded.getSizeInBytes());
+        for (int i = 0; i < 300; i++) {
+            int start = random.nextInt(text.length() - 8);
+            String literal = i % 10 == 0 ? randomText(random, 1 + random.nextInt(6))
+                    : text.substring(start, start + 1 + random.nextInt(8));
+            int[] expected = naiveOccurrences(text, literal);
+            assertArrayEquals(expected, built.occurrences(literal), literal);
+            assertArrayEquals(expected, loaded.occurrences(literal), literal);
+        }
+
+        RegexProcessor processor = new RegexProcessor();
+        for (String pattern : List.of("abc", "xyz\\w*", "(?m)^ab.*$", "c\\s+x", "é€", "[ab]{3}")) {
+            assertEquals(findAll(text, pattern), processor.search(loaded, pattern), pattern);
+        }
+    }
+
+    @Test
+    void tinyTextsRoundTrip() throws IOException {
+        for (String text : List.of("", "a", "ab", "abc", "aaaa")) {
+            Path file = directory.resolve("tiny.idx");
+            TrigramIndex.build(text).save(file);
+            TrigramIndex loaded = TrigramIndex.load(file, text);
+            assertArrayEquals(naiveOccurrences(text, "a"), loaded.occurrences("a"), text);
+            assertArrayEquals(naiveOccurrences(text, "aaa"), loaded.occurrences("aaa"), text);
+        }
+    }
+
+    @Test
+    void aFileThatDoesNotFitTheTextIsRejected() throws IOException {
+        String text = randomText(new Random(5), 10_000);
+        Path file = directory.resolve("text.idx");
+        TrigramIndex.build(text).save(file);
+        byte[] saved = Files.readAllBytes(file);
+
+        // Same length, different content
+        assertThrows(IOException.class, () -> TrigramIndex.load(file, text.substring(1) + "!"));
+        assertThrows(IOException.class, () -> TrigramIndex.load(file, text + "!"));
+
+        byte[] corrupt = saved.clone();
+        corrupt[saved.length / 2] ^= 0x10;
+        Files.write(file, corrupt);
+        assertThrows(IOException.class, () -> TrigramIndex.load(file, text));
+
+        Files.write(file, Arrays.copyOf(saved, saved.length - 1));
+        assertThrows(IOException.class, () -> TrigramIndex.load(file, text));
+
+        Files.write(file, new byte[10]);
+        assertThrows(IOException.class, () -> TrigramIndex.load(file, text));
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            int index = random.nextInt(ALPHABET.length());
+            char c = ALPHABET.charAt(index);
+            if (Character.isHighSurrogate(c)) {
+                text.append(c).append(ALPHABET.charAt(index + 1));
+            } else if (!Character.isLowSurrogate(c)) {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+
+    private static int[] naiveOccurrences(String text, String literal) {
+        List<Integer> found = new ArrayList<>();
+        for (int at = text.indexOf(literal); at >= 0; at = text.indexOf(literal, at + 1)) {
+            found.add(at);
+        }
+        return found.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<String> findAll(String text, String pattern) {
+        List<String> matches = new ArrayList<>();
+        Matcher matcher = Pattern.compile(pattern).matcher(text);
+        while (matcher.find()) {
+            matches.add(matcher.group());
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.textprocessingtool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Utf8SearcherTest {
+
+    // Pieces of text mixing ASCII words and digits with accented, CJK, astral and combining characters
+    private static final String[] FRAGMENTS = {
+            "ERROR ", "error", "warn ", "id=42 ", "007", "_x", " ", " ", "\n", "\r\n", "\t", "ERROR\u0301",
+            "é", "Straße ", "日本語", "😀", "é", "Ω", "naïve ", "ÉRROR", "abcabc"
+    };
+
+    private static final List<String> PATTERNS = List.of(
+            // Literals, searched by their UTF-8 bytes
+            "ERROR", "abc", "日本", "😀", "Straße", "é", "\n",
+            // ASCII-only patterns, searched by the lazy DFA
+            "\\d+", "ERROR \\w+", "[a-z]+", "\\bERROR\\b", "\\Berror", "id=\\d{1,3}", "(?i)error", "\\s+\\d",
+            // Patterns that can match non-ASCII text, searched on decoded characters
+            "\\p{L}+", "é|Ω", ".", "(?m)^\\S+$", "(?i)straße");
+
+    private final Utf8Searcher searcher = new Utf8Searcher(new PatternCache(64));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void literalsAndAsciiPatternsAreSearchedOnTheBytes() {
+        assertTrue(searcher.isByteLevel("ERROR"));
+        assertTrue(searcher.isByteLevel("日本"));
+        assertTrue(searcher.isByteLevel("\\d+"));
+        assertTrue(searcher.isByteLevel("ERROR \\w+"));
+        assertFalse(searcher.isByteLevel("\\p{L}+"));
+        assertFalse(searcher.isByteLevel("."));
+    }
+
+    @Test
+    void byteSearchesFindTheSameMatchesAsAStringSearch() throws IOException {
+        Random random = new Random(25);
+        for (int round = 0; round < 40; round++) {
+            String text = randomText(random, 1 + random.nextInt(400));
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            Path file = directory.resolve("round" + round + ".txt");
+            Files.write(file, utf8);
+
+            for (String pattern : PATTERNS) {
+                List<StreamingSearcher.Match> expected = expectedMatches(text, pattern);
+                String context = pattern + " in " + text;
+
+                List<StreamingSearcher.Match> fromBuffer = new ArrayList<>();
+                assertEquals(expected.size(), searcher.search(ByteBuffer.wrap(utf8), pattern, fromBuffer::add), context);
+                assertEquals(expected, fromBuffer, context);
+
+                List<StreamingSearcher.Match> fromFile = new ArrayList<>();
+                assertEquals(expected.size(), searcher.search(file, pattern, fromFile::add), context);
+                assertEquals(expected, fromFile, context);
+
+                assertEquals(expected.size(), searcher.count(ByteBuffer.wrap(utf8), pattern), context);
+                assertEquals(expected.size(), searcher.count(file, pattern), context);
+            }
+        }
+    }
+
+    @Test
+    void offsetsCountFromTheBufferPosition() {
+        byte[] utf8 = "skip me|日本 ERROR 42\nERROR".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer input = ByteBuffer.wrap(utf8);
+        int prefix = "skip me|".length();
+        input.position(prefix);
+        List<StreamingSearcher.Match> matches = new ArrayList<>();
+
+        searcher.search(input, "ERROR", matches::add);
+
+        assertEquals(expectedMatches("日本 ERROR 42\nERROR", "ERROR"), matches);
+        assertEquals(prefix, input.position());
+    }
+
+    private static String randomText(Random random, int fragments) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < fragments; i++) {
+            text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return text.toString();
+    }
+
+    // What a Matcher.find() loop over the decoded text reports, with byte offsets and line numbers added
+    private static List<StreamingSearcher.Match> expectedMatches(String text, String pattern) {
+        List<StreamingSearcher.Match> matches = new ArrayList<>();
+        Matcher matcher = Pattern.compile(pattern).matcher(text);
+        while (matcher.find()) {
+            String before = text.substring(0, matcher.start());
+            long lines = 1 + before.chars().filter(c -> c == '\n').count();
+            matches.add(new StreamingSearcher.Match(matcher.group(), matcher.start(),
+                    before.getBytes(StandardCharsets.UTF_8).length, lines));
+        }
+        return matches;
+    }
+}